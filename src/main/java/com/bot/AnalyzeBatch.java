@@ -0,0 +1,294 @@
+package com.bot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * AnalyzeBatch v1.0 — many symbols × many bars through DecisionEngineMerged in one call.
+ *
+ * ┌─────────────────────────────────────────────────────────────────────┐
+ * │  Series  = символ + primary/HTF свечи + [from, to) баров решения    │
+ * │            + выравнивание HTF (htfEnd[i], один merge-проход) +      │
+ * │            опц. funding[i] / prevFunding[i] по барам primary        │
+ * │  run()   → fork/join по символам; внутри символа — плотный цикл     │
+ * │            по барам (кулдауны зависят от предыдущих решений)        │
+ * │  Result  = (series, bar, decisionMs, idea) — только бары с идеей,   │
+ * │            в порядке series → bar                                   │
+ * └─────────────────────────────────────────────────────────────────────┘
+ *
+ * Bar i is decided at decisionMs = primary[i-1].closeTime with
+ * primary[i-window, i) and the HTF bars already closed at that moment —
+ * the same no-look-ahead slicing SimpleBacktester uses. The router mode is
+ * resolved once per batch; the HTF end index per bar comes from one merge
+ * walk instead of a search per call; windows are subList views; and the
+ * symbol's FeatureVector is rebuilt at most once per bar and shared by every
+ * generator (see FeatureVector).
+ *
+ * Symbols run in parallel (the engine is already analysed concurrently by the
+ * live fetch pool); the bars of one symbol never do, since each decision sees
+ * the cooldowns of the previous ones. Results are identical for any parallelism.
+ *
+ * Benchmark: {@code java -cp bot.jar com.bot.AnalyzeBatch bench [symbols] [bars] [threads]}
+ */
+public final class AnalyzeBatch {
+
+    public static final int DEFAULT_WINDOW     = 200;
+    public static final int DEFAULT_HTF_WINDOW = 300;
+
+    private AnalyzeBatch() {}
+
+    // ─── Input ────────────────────────────────────────────────────────
+
+    public static final class Series {
+        public final String symbol;
+        public final DecisionEngineMerged.CoinCategory cat;
+        final List<TradingCore.Candle> primary, htf;
+        final int from, to, window, htfWindow;
+        final int[] htfEnd;                 // htf bars closed by decisionMs(i), indexed i - from
+        final double[] funding, prevFunding;
+
+        /**
+         * @param from        first decision bar (≥ 1 unless the range is empty)
+         * @param to          end of decision bars (exclusive, ≤ primary.size())
+         * @param funding     per primary bar, rate active at its decision (null = none)
+         * @param prevFunding per primary bar, rate one funding cycle earlier (null = funding)
+         */
+        public Series(String symbol, DecisionEngineMerged.CoinCategory cat,
+                      List<TradingCore.Candle> primary, List<TradingCore.Candle> htf,
+                      int from, int to, int window, int htfWindow,
+                      double[] funding, double[] prevFunding) {
+            if (to > primary.size() || from > to || (from < 1 && from < to))
+                throw new IllegalArgumentException(symbol + ": bars [" + from + ", " + to + ") outside 1.." + primary.size());
+            if (funding != null && funding.length < to)
+                throw new IllegalArgumentException(symbol + ": funding shorter than primary");
+            this.symbol = symbol;
+            this.cat = cat;
+            this.primary = primary;
+            this.htf = htf;
+            this.from = from;
+            this.to = to;
+            this.window = window;
+            this.htfWindow = htfWindow;
+            this.funding = funding;
+            this.prevFunding = prevFunding != null ? prevFunding : funding;
+            this.htfEnd = new int[to - from];
+            int j = 0;
+            for (int i = from; i < to; i++) {
+                long t = primary.get(i - 1).closeTime;
+                while (j < htf.size() && htf.get(j).closeTime <= t) j++;
+                htfEnd[i - from] = j;
+            }
+        }
+
+        /** Every bar with a full primary window, default windows, no funding; empty for an empty primary. */
+        public static Series of(String symbol, DecisionEngineMerged.CoinCategory cat,
+                                List<TradingCore.Candle> primary, List<TradingCore.Candle> htf) {
+            return new Series(symbol, cat, primary, htf, Math.min(DEFAULT_WINDOW, primary.size()), primary.size(),
+                    DEFAULT_WINDOW, DEFAULT_HTF_WINDOW, null, null);
+        }
+
+        public int bars() { return to - from; }
+    }
+
+    // ─── Output ───────────────────────────────────────────────────────
+
+    public static final class Result {
+        public final int series;            // index into the batch
+        public final int bar;               // primary bar index (entry bar)
+        public final long decisionMs;
+        public final DecisionEngineMerged.TradeIdea idea;
+
+        Result(int series, int bar, long decisionMs, DecisionEngineMerged.TradeIdea idea) {
+            this.series = series;
+            this.bar = bar;
+            this.decisionMs = decisionMs;
+            this.idea = idea;
+        }
+    }
+
+    // ─── Run ──────────────────────────────────────────────────────────
+
+    /** Evaluates every series; parallelism ≤ 1 runs on the calling thread. */
+    static List<Result> run(DecisionEngineMerged engine, List<Series> batch, int parallelism) {
+        if (batch.isEmpty()) return Collections.emptyList();
+        String mode = engine.strategyMode();
+        List<List<Result>> out = new ArrayList<>(Collections.nCopies(batch.size(), null));
+        if (parallelism <= 1 || batch.size() == 1) {
+            for (int s = 0; s < batch.size(); s++) out.set(s, runSeries(engine, batch, s, mode));
+        } else {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                pool.invoke(new Split(engine, batch, mode, out, 0, batch.size()));
+            } finally {
+                pool.shutdown();
+            }
+        }
+        int n = 0;
+        for (List<Result> r : out) n += r.size();
+        List<Result> all = new ArrayList<>(n);
+        for (List<Result> r : out) all.addAll(r);
+        return all;
+    }
+
+    private static List<Result> runSeries(DecisionEngineMerged engine, List<Series> batch, int idx, String mode) {
+        Series s = batch.get(idx);
+        List<Result> hits = new ArrayList<>();
+        for (int i = s.from; i < s.to; i++) {
+            long now = s.primary.get(i - 1).closeTime;
+            int he = s.htfEnd[i - s.from];
+            if (s.funding != null) {
+                double fr = s.funding[i], prev = s.prevFunding[i];
+                if (fr != 0.0 || prev != 0.0) engine.setSimulatedFunding(s.symbol, fr, prev);
+            }
+            DecisionEngineMerged.TradeIdea idea = engine.analyzeResolved(s.symbol,
+                    s.primary.subList(Math.max(0, i - s.window), i),
+                    s.htf.subList(Math.max(0, he - s.htfWindow), he),
+                    s.cat, now, mode);
+            if (idea != null) hits.add(new Result(idx, i, now, idea));
+        }
+        return hits;
+    }
+
+    /** Halves [lo, hi) down to single series; each writes only its own slot of {@code out}. */
+    private static final class Split extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final DecisionEngineMerged engine;
+        private final List<Series> batch;
+        private final String mode;
+        private final List<List<Result>> out;
+        private final int lo, hi;
+
+        Split(DecisionEngineMerged engine, List<Series> batch, String mode, List<List<Result>> out, int lo, int hi) {
+            this.engine = engine;
+            this.batch = batch;
+            this.mode = mode;
+            this.out = out;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo == 1) {
+                out.set(lo, runSeries(engine, batch, lo, mode));
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new Split(engine, batch, mode, out, lo, mid), new Split(engine, batch, mode, out, mid, hi));
+        }
+    }
+
+    // ─── Benchmark ────────────────────────────────────────────────────
+
+    /**
+     * {@code bench [symbols=24] [bars=1200] [threads=4]}: synthetic primary/HTF random walks;
+     * per STRATEGY_MODE in effect, compares repeated analyze() (subList + HTF search per call,
+     * as a caller would write it) with analyzeBatch at 1 and N threads, each on a fresh engine.
+     * Reports the best of 5 rounds as decisions/s and ideas/s, and checks that all three
+     * produce the same ideas.
+     */
+    public static void main(String[] args) {
+        if (args.length == 0 || !"bench".equals(args[0])) {
+            System.out.println("usage: AnalyzeBatch bench [symbols] [bars] [threads]");
+            return;
+        }
+        int symbols = args.length > 1 ? Integer.parseInt(args[1]) : 24;
+        int bars    = args.length > 2 ? Integer.parseInt(args[2]) : 1_200;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : 4;
+        long step = 3_600_000L, htfStep = 4 * step;
+        List<Series> batch = new ArrayList<>();
+        for (int s = 0; s < symbols; s++) {
+            List<TradingCore.Candle> p = walk(s, T0, bars, step, 0.012);
+            List<TradingCore.Candle> h = walk(s + 10_000, T0 - DEFAULT_HTF_WINDOW * htfStep,
+                    bars / 4 + DEFAULT_HTF_WINDOW, htfStep, 0.02);
+            double[] fr = new double[bars];
+            for (int i = 0; i < bars; i++) fr[i] = ((i * 7 + s) % 37 - 18) * 0.0001;
+            batch.add(new Series("SYM" + s + "USDT", DecisionEngineMerged.CoinCategory.ALT, p, h,
+                    DEFAULT_WINDOW, bars, DEFAULT_WINDOW, DEFAULT_HTF_WINDOW, fr, null));
+        }
+        long decisions = (long) symbols * (bars - DEFAULT_WINDOW);
+
+        String[] labels = {"analyze() loop", "analyzeBatch ×1", "analyzeBatch ×" + threads};
+        long[] best = {Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE};
+        List<List<String>> ideas = new ArrayList<>(Arrays.asList(null, null, null));
+        for (int round = 0; round < 6; round++) {          // round 0 = JIT warm-up; best of the rest
+            for (int k = 0; k < 3; k++) {
+                int v = (round + k) % 3;                    // rotate the order between rounds
+                DecisionEngineMerged e = new DecisionEngineMerged();
+                long t0 = System.nanoTime();
+                List<String> r = v == 0 ? repeated(e, batch) : keys(e.analyzeBatch(batch, v == 1 ? 1 : threads), batch);
+                long dt = System.nanoTime() - t0;
+                DecisionEngineMerged.getAndResetRejectTrace();
+                if (round > 0) best[v] = Math.min(best[v], dt);
+                ideas.set(v, r);
+            }
+        }
+        System.out.printf("%d symbols × %d bars = %d decisions, %d ideas, identical=%s (best of 5)%n",
+                symbols, bars - DEFAULT_WINDOW, decisions, ideas.get(0).size(),
+                ideas.get(0).equals(ideas.get(1)) && ideas.get(0).equals(ideas.get(2)));
+        for (int v = 0; v < 3; v++) report(labels[v], decisions, ideas.get(v).size(), best[v]);
+    }
+
+    private static List<String> repeated(DecisionEngineMerged e, List<Series> batch) {
+        List<String> keys = new ArrayList<>();
+        for (Series s : batch) repeated(e, s, keys);
+        return keys;
+    }
+
+    private static void repeated(DecisionEngineMerged e, Series s, List<String> keys) {
+        long[] htfClose = new long[s.htf.size()];
+        for (int k = 0; k < htfClose.length; k++) htfClose[k] = s.htf.get(k).closeTime;
+        for (int i = s.from; i < s.to; i++) {
+            long now = s.primary.get(i - 1).closeTime;
+            int he = Arrays.binarySearch(htfClose, now);
+            he = he >= 0 ? he + 1 : -he - 1;
+            if (s.funding[i] != 0.0 || s.prevFunding[i] != 0.0)
+                e.setSimulatedFunding(s.symbol, s.funding[i], s.prevFunding[i]);
+            DecisionEngineMerged.TradeIdea idea = e.analyze(s.symbol, null, null,
+                    s.primary.subList(Math.max(0, i - s.window), i),
+                    s.htf.subList(Math.max(0, he - s.htfWindow), he), s.cat, now);
+            if (idea != null) keys.add(key(s, i, idea));
+        }
+    }
+
+    private static List<String> keys(List<Result> rs, List<Series> batch) {
+        List<String> keys = new ArrayList<>(rs.size());
+        for (Result r : rs) keys.add(key(batch.get(r.series), r.bar, r.idea));
+        return keys;
+    }
+
+    private static String key(Series s, int bar, DecisionEngineMerged.TradeIdea idea) {
+        return s.symbol + "@" + bar + " " + idea.side + " " + idea.price + " " + idea.stop + " " + idea.probability;
+    }
+
+    private static void report(String label, long decisions, int ideas, long ns) {
+        double sec = ns / 1e9;
+        System.out.printf("  %-18s %7.0f ms  %9.0f decisions/s  %8.1f ideas/s%n",
+                label, ns / 1e6, decisions / sec, ideas / sec);
+    }
+
+    private static final long T0 = 1_700_000_000_000L;
+
+    private static List<TradingCore.Candle> walk(long seed, long t0, int n, long step, double vol) {
+        Random r = new Random(seed);
+        List<TradingCore.Candle> out = new ArrayList<>(n);
+        double px = 100, drift = 0;
+        for (int i = 0; i < n; i++) {
+            if (i % 80 == 0) drift = (r.nextDouble() - 0.5) * 0.006;
+            double o = px;
+            double c = o * (1 + drift + r.nextGaussian() * vol * (r.nextDouble() < 0.03 ? 4 : 1));
+            double hi = Math.max(o, c) * (1 + Math.abs(r.nextGaussian()) * vol * 0.5);
+            double lo = Math.min(o, c) * (1 - Math.abs(r.nextGaussian()) * vol * 0.5);
+            double v = 1_000 * (0.5 + r.nextDouble()) * (r.nextDouble() < 0.05 ? 4 : 1);
+            double tb = v * Math.min(1, Math.max(0, 0.5 + (c - o) / o * 40 + r.nextGaussian() * 0.1));
+            out.add(new TradingCore.Candle(t0 + i * step, o, hi, lo, c, v, v * c, t0 + (i + 1) * step - 1, 10, tb, tb * c));
+            px = c;
+        }
+        return out;
+    }
+}
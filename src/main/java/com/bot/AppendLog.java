@@ -0,0 +1,261 @@
+package com.bot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * AppendLog v1.0 — append-only line log with a single writer thread and group commit.
+ *
+ * ┌─────────────────────────────────────────────────────────────────────┐
+ * │  append(line)  → очередь, без IO на вызывающем потоке               │
+ * │  writer-поток:  берёт всё накопленное (≤ BATCH_MAX строк) →         │
+ * │                 один write + fsync по политике (group commit)       │
+ * │  flush()       → барьер: всё, что добавлено до него, на диске       │
+ * │  rotate()      → барьер: текущий файл → <path>.old, новый пустой    │
+ * │                 (для компакции: снапшот + удаление .old)            │
+ * └─────────────────────────────────────────────────────────────────────┘
+ *
+ * Lines are written in append() order. Barriers are ordered with the lines:
+ * everything appended before flush()/rotate() is in the file (and fsynced)
+ * when the call returns. A full queue drops the line and counts it — the
+ * caller is an analysis or dispatch thread that must never wait on disk.
+ *
+ * rotate() onto an existing .old (a compaction that crashed before
+ * dropRotated()) appends to it instead of replacing it, so no segment is
+ * lost before a snapshot covers it.
+ *
+ * Параметры:
+ *   CAL_LOG_FSYNC    — BATCH (fsync каждой пачки, default) | INTERVAL | OFF
+ *   CAL_LOG_FSYNC_MS — период fsync для INTERVAL (default 1000)
+ */
+public final class AppendLog {
+
+    private static final Logger LOG = Logger.getLogger("AppendLog");
+
+    public enum Fsync { BATCH, INTERVAL, OFF }
+
+    static final Fsync FSYNC = parseFsync(System.getenv().getOrDefault("CAL_LOG_FSYNC", "BATCH"));
+    static final long  FSYNC_INTERVAL_MS = Math.max(10, envLong("CAL_LOG_FSYNC_MS", 1_000));
+    static final int   QUEUE_CAP = 65_536;
+    static final int   BATCH_MAX = 1_024;
+
+    private static final class Barrier {
+        final boolean rotate;
+        final CountDownLatch done = new CountDownLatch(1);
+        volatile boolean ok;
+        Barrier(boolean rotate) { this.rotate = rotate; }
+    }
+
+    private final Path path, rotated;
+    private final LinkedBlockingQueue<Object> queue = new LinkedBlockingQueue<>(QUEUE_CAP);
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    // Writer thread only
+    private FileChannel ch;
+    private boolean dirty;
+    private long lastSyncMs;
+
+    private final AtomicLong appended = new AtomicLong(0);
+    private final AtomicLong batches  = new AtomicLong(0);
+    private final AtomicLong fsyncs   = new AtomicLong(0);
+    private final AtomicLong dropped  = new AtomicLong(0);
+    private final AtomicLong failures = new AtomicLong(0);
+    private volatile int maxBatch = 0;
+
+    public AppendLog(Path path) {
+        this.path = path;
+        this.rotated = path.resolveSibling(path.getFileName() + ".old");
+        writer = new Thread(this::run, "append-log-" + path.getFileName());
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public Path path()        { return path; }
+    public Path rotatedPath() { return rotated; }
+
+    /** Queues {@code line} (no trailing newline); false if the queue is full and the line was dropped. */
+    public boolean append(String line) {
+        if (queue.offer(line)) return true;
+        if (dropped.incrementAndGet() % 1_000 == 1) LOG.warning("[APPEND-LOG] " + path + ": queue full, dropping lines");
+        return false;
+    }
+
+    /** Waits until everything appended so far is written and fsynced. */
+    public boolean flush(long timeoutMs) { return barrier(new Barrier(false), timeoutMs); }
+
+    /** As flush(), then moves the file to rotatedPath() and starts a new one. */
+    public boolean rotate(long timeoutMs) { return barrier(new Barrier(true), timeoutMs); }
+
+    /** Deletes the rotated segment once a snapshot covers it. */
+    public void dropRotated() {
+        try { Files.deleteIfExists(rotated); }
+        catch (IOException e) { LOG.warning("[APPEND-LOG] drop " + rotated + ": " + e.getMessage()); }
+    }
+
+    /** Flushes and stops the writer. */
+    public void close(long timeoutMs) {
+        flush(timeoutMs);
+        running = false;
+        writer.interrupt();
+    }
+
+    private boolean barrier(Barrier b, long timeoutMs) {
+        if (!running) return false;
+        try {
+            if (!queue.offer(b, timeoutMs, TimeUnit.MILLISECONDS)) return false;
+            return b.done.await(timeoutMs, TimeUnit.MILLISECONDS) && b.ok;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // ─── Writer ───────────────────────────────────────────────────────
+
+    private void run() {
+        List<Object> batch = new ArrayList<>(BATCH_MAX);
+        StringBuilder sb = new StringBuilder(8_192);
+        while (running) {
+            try {
+                Object first = queue.poll(FSYNC == Fsync.INTERVAL ? FSYNC_INTERVAL_MS : 1_000, TimeUnit.MILLISECONDS);
+                if (first == null) { syncIfDue(); continue; }
+                batch.add(first);
+                queue.drainTo(batch, BATCH_MAX - 1);
+                int lines = 0;
+                for (Object item : batch) {
+                    if (item instanceof String) {
+                        sb.append((String) item).append('\n');
+                        lines++;
+                    } else {
+                        Barrier b = (Barrier) item;
+                        b.ok = write(sb) && sync();
+                        if (b.rotate && b.ok) b.ok = doRotate();
+                        b.done.countDown();
+                    }
+                }
+                write(sb);
+                if (FSYNC == Fsync.BATCH) sync(); else syncIfDue();
+                if (lines > 0) {
+                    appended.addAndGet(lines);
+                    batches.incrementAndGet();
+                    if (lines > maxBatch) maxBatch = lines;
+                }
+            } catch (InterruptedException e) {
+                if (!running) break;
+            } catch (Throwable t) {
+                failures.incrementAndGet();
+                LOG.warning("[APPEND-LOG] " + path + ": " + t.getMessage());
+            } finally {
+                for (Object item : batch) {
+                    if (item instanceof Barrier) ((Barrier) item).done.countDown();
+                }
+                batch.clear();
+                sb.setLength(0);
+            }
+        }
+        closeChannel();
+    }
+
+    private boolean write(StringBuilder sb) {
+        if (sb.length() == 0) return true;
+        try {
+            if (ch == null) open();
+            ByteBuffer buf = ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8));
+            while (buf.hasRemaining()) ch.write(buf);
+            dirty = true;
+            return true;
+        } catch (IOException e) {
+            failures.incrementAndGet();
+            LOG.warning("[APPEND-LOG] write " + path + ": " + e.getMessage());
+            closeChannel();
+            return false;
+        } finally {
+            sb.setLength(0);
+        }
+    }
+
+    private boolean sync() {
+        if (!dirty || ch == null) return true;
+        if (FSYNC == Fsync.OFF) { dirty = false; return true; }
+        try {
+            ch.force(false);
+            fsyncs.incrementAndGet();
+            dirty = false;
+            lastSyncMs = System.currentTimeMillis();
+            return true;
+        } catch (IOException e) {
+            failures.incrementAndGet();
+            LOG.warning("[APPEND-LOG] fsync " + path + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void syncIfDue() {
+        if (dirty && FSYNC == Fsync.INTERVAL && System.currentTimeMillis() - lastSyncMs >= FSYNC_INTERVAL_MS) sync();
+    }
+
+    private boolean doRotate() {
+        closeChannel();
+        try {
+            if (!Files.exists(path)) return true;
+            if (Files.exists(rotated)) {
+                Files.write(rotated, Files.readAllBytes(path), StandardOpenOption.APPEND);
+                Files.delete(path);
+            } else {
+                Files.move(path, rotated, StandardCopyOption.ATOMIC_MOVE);
+            }
+            return true;
+        } catch (IOException e) {
+            failures.incrementAndGet();
+            LOG.warning("[APPEND-LOG] rotate " + path + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void open() throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        ch = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private void closeChannel() {
+        if (ch == null) return;
+        try { ch.close(); } catch (IOException ignored) {}
+        ch = null;
+    }
+
+    // ─── Stats ────────────────────────────────────────────────────────
+
+    /** "lines=… batches=… avg=… max=… fsyncs=… dropped=… failures=…"; empty before the first line. */
+    public String stats() {
+        long b = batches.get();
+        if (b == 0 && dropped.get() == 0) return "";
+        return String.format("lines=%d batches=%d avg=%.1f max=%d fsyncs=%d (%s) dropped=%d failures=%d",
+                appended.get(), b, b > 0 ? (double) appended.get() / b : 0.0, maxBatch,
+                fsyncs.get(), FSYNC, dropped.get(), failures.get());
+    }
+
+    private static Fsync parseFsync(String v) {
+        try { return Fsync.valueOf(v.trim().toUpperCase()); } catch (Exception e) { return Fsync.BATCH; }
+    }
+
+    private static long envLong(String k, long d) {
+        String v = System.getenv(k);
+        if (v == null || v.isBlank()) return d;
+        try { return Long.parseLong(v.trim()); } catch (Exception e) { return d; }
+    }
+}
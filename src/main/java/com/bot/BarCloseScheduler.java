@@ -0,0 +1,247 @@
+package com.bot;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * BarCloseScheduler v1.0 — per-symbol analysis on primary-TF bar close.
+ *
+ * ┌─────────────────────────────────────────────────────────────────────┐
+ * │  Триггеры закрытия бара (что раньше):                               │
+ * │    kline stream  x=true для PRIMARY_TF            → onClose()       │
+ * │    tick builder  закрытая 1m на границе PRIMARY_TF → onClose()       │
+ * │    таймер        граница + SETTLE_MS → вся scan-вселенная           │
+ * │  Очередь → пейсер (100 мс): остаток очереди равномерно раскладывается│
+ * │  на оставшееся окно SPREAD_MS, не более MAX_INFLIGHT анализов сразу │
+ * │  Дедлайн: не начат / не закончен к close + DEADLINE_MS → не шлём  │
+ * └─────────────────────────────────────────────────────────────────────┘
+ *
+ * The cycle-mode burst (every pair analysed at a fixed INTERVAL) put the
+ * analysis anywhere from 0 to INTERVAL after the close and loaded REST and
+ * CPU in spikes. Here each symbol is analysed once per closed bar, as soon as
+ * its close is known, and the batch is spread over SPREAD_MS. Results go to
+ * the caller's Sink as they arrive (SignalSender routes them through
+ * Dispatcher and ISC like HOT_RESCAN).
+ *
+ * Stream / tick triggers only cover symbols of the last sweep's universe, so
+ * both modes analyse the same pairs; the timer sweep catches symbols whose
+ * stream was silent at the close.
+ *
+ * Latency (seconds from the close): close→analysed for every analysis,
+ * close→signal for every dispatched idea. SignalSender records the same two
+ * distributions in cycle mode so the [STATS] BAR-CLOSE line compares them.
+ *
+ * Параметры:
+ *   ANALYSIS_MODE          — CYCLE (default) | BAR_CLOSE
+ *   BAR_CLOSE_SETTLE_MS    — задержка таймерного прохода после границы (default 1500)
+ *   BAR_CLOSE_SPREAD_MS    — окно, на которое раскладывается очередь (default 20000)
+ *   BAR_CLOSE_DEADLINE_MS  — крайний срок анализа от закрытия (default 90000)
+ *   BAR_CLOSE_MAX_INFLIGHT — одновременных анализов (default 6)
+ */
+public final class BarCloseScheduler<T> {
+
+    private static final Logger LOG = Logger.getLogger("BarCloseScheduler");
+
+    public static final boolean ENABLED =
+            "BAR_CLOSE".equalsIgnoreCase(System.getenv().getOrDefault("ANALYSIS_MODE", "CYCLE").trim());
+    static final long SETTLE_MS    = Math.max(0, envLong("BAR_CLOSE_SETTLE_MS", 1_500));
+    static final long SPREAD_MS    = Math.max(100, envLong("BAR_CLOSE_SPREAD_MS", 20_000));
+    static final long DEADLINE_MS  = Math.max(1_000, envLong("BAR_CLOSE_DEADLINE_MS", 90_000));
+    static final int  MAX_INFLIGHT = (int) Math.max(1, envLong("BAR_CLOSE_MAX_INFLIGHT", 6));
+    static final long PACE_MS      = 100;
+
+    /** Analysis of one symbol; null = no idea. */
+    @FunctionalInterface
+    public interface Analyzer<T> { T analyze(String symbol, long closeMs); }
+
+    /** Receives an idea produced within the deadline. */
+    @FunctionalInterface
+    public interface Sink<T> { void accept(String symbol, long closeMs, T idea); }
+
+    /** Scan universe at a bar close, best first. */
+    @FunctionalInterface
+    public interface Universe { List<String> symbols(); }
+
+    private static final class Job {
+        final String symbol;
+        final long closeMs;
+        Job(String symbol, long closeMs) { this.symbol = symbol; this.closeMs = closeMs; }
+    }
+
+    private final long barMs;
+    private final Analyzer<T> analyzer;
+    private final Sink<T> sink;
+    private final Universe universe;
+
+    private final ConcurrentLinkedQueue<Job> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending  = new AtomicInteger(0);
+    private final AtomicInteger inflight = new AtomicInteger(0);
+    private final ConcurrentHashMap<String, Long> queuedClose = new ConcurrentHashMap<>();
+    private volatile Set<String> members = Set.of();
+    private volatile long lastSweepClose = 0;
+    private volatile long spreadEndMs = 0;
+    private double credit = 0;   // pacer thread only: fractional releases carried between ticks
+    private volatile ScheduledExecutorService pacer;
+    private ExecutorService workers;   // MAX_INFLIGHT threads, own pool so a full fetchPool never drops a job
+
+    private final AtomicLong closes      = new AtomicLong(0);
+    private final AtomicLong streamFirst = new AtomicLong(0);
+    private final AtomicLong analyzed    = new AtomicLong(0);
+    private final AtomicLong expired     = new AtomicLong(0);
+    private final AtomicLong late        = new AtomicLong(0);
+    private final AtomicLong ideas       = new AtomicLong(0);
+    private final SignalSender.LatencyHistogram closeToAnalysed = new SignalSender.LatencyHistogram();
+    private final SignalSender.LatencyHistogram closeToSignal   = new SignalSender.LatencyHistogram();
+
+    public BarCloseScheduler(long barMs, Analyzer<T> analyzer, Sink<T> sink, Universe universe) {
+        this.barMs = barMs;
+        this.analyzer = analyzer;
+        this.sink = sink;
+        this.universe = universe;
+    }
+
+    /** Starts the pacer thread; idempotent. */
+    public synchronized void start() {
+        if (pacer != null) return;
+        AtomicInteger n = new AtomicInteger(0);
+        workers = Executors.newFixedThreadPool(MAX_INFLIGHT, r -> {
+            Thread t = new Thread(r, "bar-close-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        lastSweepClose = (System.currentTimeMillis() / barMs) * barMs;   // first sweep at the next close
+        pacer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "bar-close");
+            t.setDaemon(true);
+            return t;
+        });
+        pacer.scheduleAtFixedRate(this::tick, PACE_MS, PACE_MS, TimeUnit.MILLISECONDS);
+        LOG.info("[BAR-CLOSE] started: bar=" + barMs / 60_000 + "m settle=" + SETTLE_MS + "ms spread="
+                + SPREAD_MS + "ms deadline=" + DEADLINE_MS + "ms inflight=" + MAX_INFLIGHT);
+    }
+
+    public boolean isRunning() { return pacer != null; }
+
+    /** A bar of {@code symbol} closed at {@code closeMs} (stream or tick builder). */
+    public void onClose(String symbol, long closeMs) {
+        if (pacer == null || !members.contains(symbol)) return;
+        if (enqueue(symbol, closeMs)) streamFirst.incrementAndGet();
+    }
+
+    private boolean enqueue(String symbol, long closeMs) {
+        boolean[] added = {false};
+        queuedClose.compute(symbol, (k, prev) -> {
+            if (prev != null && prev >= closeMs) return prev;
+            added[0] = true;
+            return closeMs;
+        });
+        if (!added[0]) return false;
+        queue.add(new Job(symbol, closeMs));
+        pending.incrementAndGet();
+        if (spreadEndMs < closeMs + SETTLE_MS) spreadEndMs = closeMs + SETTLE_MS + Math.min(SPREAD_MS, barMs / 2);
+        return true;
+    }
+
+    // ─── Pacer ────────────────────────────────────────────────────────
+
+    private void tick() {
+        try {
+            long now = System.currentTimeMillis();
+            long boundary = (now / barMs) * barMs;
+            if (boundary > lastSweepClose && now >= boundary + SETTLE_MS) {
+                lastSweepClose = boundary;
+                sweep(boundary);
+            }
+            release(now);
+        } catch (Throwable t) {
+            LOG.warning("[BAR-CLOSE] pacer: " + t.getMessage());
+        }
+    }
+
+    private void sweep(long closeMs) {
+        List<String> symbols = universe.symbols();
+        members = new HashSet<>(symbols);
+        closes.incrementAndGet();
+        for (String s : symbols) enqueue(s, closeMs);
+        queuedClose.keySet().retainAll(members);
+    }
+
+    /** Releases the pending share due this tick: what is left, spread evenly over what is left of the window. */
+    private void release(long now) {
+        int left = pending.get();
+        if (left <= 0) { credit = 0; return; }
+        long window = Math.max(PACE_MS, spreadEndMs - now);
+        credit = Math.min(left, credit + (double) left * PACE_MS / window);
+        int due = (int) credit;
+        credit -= due;
+        while (due > 0 && inflight.get() < MAX_INFLIGHT) {
+            Job job = queue.poll();
+            if (job == null) return;
+            pending.decrementAndGet();
+            if (now > job.closeMs + DEADLINE_MS) { expired.incrementAndGet(); continue; }
+            due--;
+            inflight.incrementAndGet();
+            try {
+                workers.execute(() -> run(job));
+            } catch (Exception rejected) {
+                inflight.decrementAndGet();
+                expired.incrementAndGet();
+            }
+        }
+    }
+
+    private void run(Job job) {
+        try {
+            T idea = analyzer.analyze(job.symbol, job.closeMs);
+            long done = System.currentTimeMillis();
+            analyzed.incrementAndGet();
+            closeToAnalysed.record((done - job.closeMs) * 1_000_000L);
+            if (idea == null) return;
+            if (done > job.closeMs + DEADLINE_MS) { late.incrementAndGet(); return; }
+            ideas.incrementAndGet();
+            sink.accept(job.symbol, job.closeMs, idea);
+        } catch (Throwable t) {
+            LOG.warning("[BAR-CLOSE] " + job.symbol + ": " + t.getMessage());
+        } finally {
+            inflight.decrementAndGet();
+        }
+    }
+
+    /** Records a dispatched signal built on the bar that closed at {@code closeMs}. */
+    public void noteSignal(long closeMs, long now) {
+        closeToSignal.record((now - closeMs) * 1_000_000L);
+    }
+
+    // ─── Stats ────────────────────────────────────────────────────────
+
+    /** "closes=… analysed=… stream-first=… expired=… late=… ideas=… | close→analysed … | close→signal …"; empty before the first close. */
+    public String stats() {
+        if (closes.get() == 0 && analyzed.get() == 0) return "";
+        return String.format("closes=%d analysed=%d stream-first=%d expired=%d late=%d ideas=%d queue=%d | close→analysed %s | close→signal %s",
+                closes.get(), analyzed.get(), streamFirst.get(), expired.get(), late.get(), ideas.get(),
+                pending.get(), dist(closeToAnalysed), dist(closeToSignal));
+    }
+
+    /** "n=… p50=…s p90=…s p99=…s max=…s" of a histogram recorded in nanoseconds. */
+    static String dist(SignalSender.LatencyHistogram h) {
+        if (h.count() == 0) return "n=0";
+        return String.format("n=%d p50=%.1fs p90=%.1fs p99=%.1fs max=%.1fs", h.count(),
+                h.percentile(50) / 1e9, h.percentile(90) / 1e9, h.percentile(99) / 1e9, h.max() / 1e9);
+    }
+
+    private static long envLong(String k, long d) {
+        String v = System.getenv(k);
+        if (v == null || v.isBlank()) return d;
+        try { return Long.parseLong(v.trim()); } catch (Exception e) { return d; }
+    }
+}
@@ -1581,6 +1581,15 @@ public final class BinanceTradeExecutor {
     }
 
     private double[] fetchBestBidAsk(String symbol) {
+        // [v98 L2-BOOK] Live local order book from SignalSender's depth stream — no REST
+        // round-trip on the order path. Mainnet only: the stream is mainnet data.
+        java.util.function.Function<String, double[]> src = localBookSource;
+        if (src != null && !useTestnet) {
+            try {
+                double[] ba = src.apply(symbol);
+                if (ba != null) return ba;
+            } catch (Throwable ignored) {}
+        }
         try {
             HttpResponse<String> resp = http.send(
                     HttpRequest.newBuilder()
@@ -2485,6 +2494,12 @@ public final class BinanceTradeExecutor {
         emergencyClosePositionWithVerify(symbol, wasLong, qty);
     }
 
+    /** Best bid/ask from a live local order book (null = not available). Static hook set by SignalSender. */
+    private static volatile java.util.function.Function<String, double[]> localBookSource = null;
+    public static void setLocalBookSource(java.util.function.Function<String, double[]> source) {
+        localBookSource = source;
+    }
+
     /** Telegram alert for failed emergency close. Static hook set by SignalSender. */
     private static volatile java.util.function.Consumer<String> emergencyAlertSink = null;
     public static void setEmergencyAlertSink(java.util.function.Consumer<String> sink) {
@@ -158,7 +158,8 @@ public final class BotMain {
             PRIMARY_IS_15M ? 420 : 168, "KLINES", "KLINES_LIMIT");
     // Max signals per scan cycle. ISC + RiskGuard.MAX_CONCURRENT_POSITIONS
     // remain authoritative limiters on actual trading.
-    private static final int MAX_SIGNALS_PER_CYCLE = envInt("MAX_SIGNALS_PER_CYCLE", 5);
+    // Also caps each bar in ANALYSIS_MODE=BAR_CLOSE (SignalSender.dispatchOnClose).
+    static final int MAX_SIGNALS_PER_CYCLE = envInt("MAX_SIGNALS_PER_CYCLE", 5);
 
     // Time-stop window for the verifier — single source of truth across bot.
     // [v86.5] Scales with PRIMARY_TF to MIRROR the real hold. Was hardcoded
@@ -1036,6 +1037,12 @@ public final class BotMain {
                         }
                     }
                 }
+                // [v114] The outcome tail belongs to the snapshot — set it aside with it.
+                for (String seg : new String[] {".tail", ".tail.old"}) {
+                    java.io.File t = new java.io.File(calibratorFile + seg);
+                    if (t.exists() && !t.renameTo(new java.io.File(t.getPath() + ".bak."
+                            + System.currentTimeMillis()))) t.delete();
+                }
                 com.bot.DecisionEngineMerged.getCalibrator().resetAll();
                 LOG.warning("[Calibrator] in-memory state cleared. "
                         + "REMEMBER to unset RESET_CALIBRATOR_ON_BOOT after this deploy.");
@@ -1389,7 +1396,9 @@ public final class BotMain {
         List<com.bot.DecisionEngineMerged.TradeIdea> signals = sender.generateSignals();
         lastCycleSuccessMs = System.currentTimeMillis();
         if (signals == null || signals.isEmpty()) {
-            LOG.info("No signals. " + isc.getStats());
+            if (sender.isBarCloseMode()) LOG.info("[BAR-CLOSE] pairs analysed on " + PRIMARY_TF + " close. " + isc.getStats());
+            else if (sender.lastCycleStreamed() > 0) LOG.info("Streamed " + sender.lastCycleStreamed() + " signal(s) mid-cycle. " + isc.getStats());
+            else LOG.info("No signals. " + isc.getStats());
             return;
         }
 
@@ -1397,7 +1406,8 @@ public final class BotMain {
                 .comparingDouble((com.bot.DecisionEngineMerged.TradeIdea i) -> i.probability).reversed()
                 .thenComparingDouble(i -> i.forecast != null ? i.forecast.confidence : 0.0).reversed()
                 .thenComparingDouble(i -> i.forecast != null ? Math.abs(i.forecast.directionScore) : 0.0).reversed());
-        int limit = Math.min(signals.size(), MAX_SIGNALS_PER_CYCLE);
+        // [v110] ideas streamed to the Dispatcher mid-cycle count against the cap
+        int limit = Math.min(signals.size(), Math.max(0, MAX_SIGNALS_PER_CYCLE - sender.lastCycleStreamed()));
         List<com.bot.DecisionEngineMerged.TradeIdea> dispatchSignals =
                 reorderSignalsForDispatch(new ArrayList<>(signals.subList(0, limit)));
 
@@ -1406,6 +1416,7 @@ public final class BotMain {
             Dispatcher.Result res = Dispatcher.getInstance().dispatch(s, "CYCLE");
             if (res.dispatched) {
                 isc.registerSignal(s);
+                sender.noteCycleSignal();   // [v109] close→signal in cycle mode
                 sent++;
             } else {
                 blocked++;
@@ -1414,6 +1425,7 @@ public final class BotMain {
             }
         }
         LOG.info("══ CYCLE #" + cycle + " END ══ sent=" + sent + " blocked=" + blocked
+                + " streamed=" + sender.lastCycleStreamed()
                 + " time=" + (System.currentTimeMillis() - cycleStart) + "ms");
     }
 
@@ -3138,6 +3150,36 @@ public final class BotMain {
                 errorCount.get(), watchdogAlerts.get(),
                 isc.getStats());
         LOG.info(msg);
+        String klineWs = sender.getKlineWsStats();   // [v96] empty unless KLINE_WS=1
+        if (!klineWs.isEmpty()) LOG.info("[STATS] KLINE-WS " + klineWs);
+        String depthBooks = sender.getDepthBookStats(); // [v98] empty unless DEPTH_WS
+        if (!depthBooks.isEmpty()) LOG.info("[STATS] L2-BOOK " + depthBooks);
+        String earlyEval = sender.getEarlyTickEvalStats(); // [v100] empty unless coalescing
+        if (!earlyEval.isEmpty()) LOG.info("[STATS] EARLY-EVAL " + earlyEval);
+        String journal = sender.getTickJournalStats();    // [v101] empty unless TICK_JOURNAL=1
+        if (!journal.isEmpty()) LOG.info("[STATS] TICK-JOURNAL " + journal);
+        String footprint = sender.getFootprintStats();    // [v103] empty unless FP_TICK
+        if (!footprint.isEmpty()) LOG.info("[STATS] FOOTPRINT " + footprint);
+        String latency = sender.getStreamLatencyStats(); // [v104] last LAT_WINDOW_SEC window
+        if (!latency.isEmpty()) LOG.info("[STATS] LATENCY " + latency);
+        String newListings = sender.getNewListingStats(); // [v106] empty until an NL stream is used
+        if (!newListings.isEmpty()) LOG.info("[STATS] NEW-LISTING " + newListings);
+        String series = sender.getCandleIntegrityStats(); // [v107] empty until a hole was seen
+        if (!series.isEmpty()) LOG.info("[STATS] SERIES " + series);
+        String funnel = sender.getScanFunnelStats();      // [v108] stage-1 throughput, stage-2 slots saved
+        if (!funnel.isEmpty()) LOG.info("[STATS] FUNNEL " + funnel);
+        String barCloseStats = sender.getBarCloseStats(); // [v109] close→analysed / close→signal, either mode
+        if (!barCloseStats.isEmpty()) LOG.info("[STATS] BAR-CLOSE " + barCloseStats);
+        String streamStats = sender.getStreamDispatchStats(); // [v110] time in cycle per idea, stragglers cut
+        if (!streamStats.isEmpty()) LOG.info("[STATS] CYCLE-STREAM " + streamStats);
+        String rejectRates = sender.getRejectRateStats(); // [v112] top block / reject reasons per minute
+        if (!rejectRates.isEmpty()) LOG.info("[STATS] REJECTS " + rejectRates);
+        String calLog = com.bot.DecisionEngineMerged.getCalibrator().logStats(); // [v114] outcome tail + audit group commits
+        if (!calLog.isEmpty()) LOG.info("[STATS] CAL-LOG " + calLog);
+        String feat = com.bot.FeatureVector.stats(); // [v115] shared per-bar features: computed vs read
+        if (!feat.isEmpty()) LOG.info("[STATS] FEATURES " + feat);
+        String engineState = sender.getEngineStateStats(); // [v116] per-symbol state held / evicted / ~KB
+        if (!engineState.isEmpty()) LOG.info("[STATS] ENGINE-STATE " + engineState);
         try {
             Set<String> autoBlocked = isc.getAutoBlacklist();
             for (String sym : autoBlocked) sender.addToGarbageBlocklist(sym);
@@ -3228,7 +3270,11 @@ public final class BotMain {
                 break;
             }
         }
-        return new ArrayList<>(byTime.values());   // sorted by openTime asc
+        // [v107] TreeMap only dedupes pages — a bar missing mid-history (exchange hiccup,
+        // malformed row) left a silent hole. Verify contiguity and fill holes with targeted
+        // range fetches; whatever the exchange cannot supply is logged, never hidden.
+        List<com.bot.TradingCore.Candle> series = new ArrayList<>(byTime.values());   // sorted by openTime asc
+        return sender != null ? sender.repairSeries(symbol, interval, series) : series;
     }
 
     private static void updateBtcContext(com.bot.SignalSender sender, com.bot.GlobalImpulseController gic) {
@@ -0,0 +1,218 @@
+package com.bot;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * CandleIntegrity v1.0 — contiguity check and targeted repair for candle series.
+ *
+ * ┌─────────────────────────────────────────────────────────────────────┐
+ * │  Серия интервала ivMs цела, если openTime[i+1] − openTime[i] == ivMs│
+ * │  для всех соседних баров. Дыра = пропущенные openTime между ними:   │
+ * │    gaps()   → список дыр (первый пропущенный openTime + число баров)│
+ * │    repair() → по одному REST-запросу на дыру (startTime/endTime,     │
+ * │               limit = ровно пропущенные бары), вставка в серию,     │
+ * │               вставленные бары помечены Candle.repaired             │
+ * │  Полный reseed нужен только если дыр больше бюджета.                │
+ * └─────────────────────────────────────────────────────────────────────┘
+ *
+ * Users:
+ *   - WS 1m ring (liveM1Buffer): a reconnect no longer wipes the ring; the
+ *     bars missed while the socket was down are fetched as one range.
+ *   - KLINE_WS series: a skipped interval is repaired instead of reseeding.
+ *   - Backtest loader (BotMain.fetchKlinesPaged): holes are repaired, and any
+ *     the exchange itself cannot fill are logged per series, never silently.
+ *
+ * Fetches go through the caller's RangeFetcher (SignalSender routes it via the
+ * shared weight-limited REST wrapper). A fetch that returns no bar for a missing
+ * openTime leaves it unrepaired (exchange downtime has no klines).
+ *
+ * Параметры:
+ *   GAP_REPAIR             — 0 = выключить, дыры → полный reseed как раньше (default 1)
+ *   GAP_REPAIR_MAX_FETCHES — REST-запросов на одну серию за вызов (default 4)
+ */
+public final class CandleIntegrity {
+
+    private static final Logger LOG = Logger.getLogger("CandleIntegrity");
+
+    public static final boolean ENABLED = !"0".equals(System.getenv().getOrDefault("GAP_REPAIR", "1"));
+    static final int MAX_FETCHES = (int) Math.max(1, Math.min(32, envLong("GAP_REPAIR_MAX_FETCHES", 4)));
+    static final int MAX_RANGE_BARS = 1500;   // Binance klines limit per request
+
+    /** Fetches closed klines with startMs ≤ openTime ≤ endMs; null on failure. */
+    @FunctionalInterface
+    public interface RangeFetcher {
+        List<TradingCore.Candle> fetch(String symbol, String interval, long startMs, long endMs, int limit);
+    }
+
+    /** A run of {@code bars} missing bars starting at openTime {@code fromOpen}. */
+    public static final class Gap {
+        public final long fromOpen;
+        public final int  bars;
+        Gap(long fromOpen, int bars) { this.fromOpen = fromOpen; this.bars = bars; }
+        @Override public String toString() { return bars + "@" + fromOpen; }
+    }
+
+    /** Outcome of one repair: the merged series and what was (not) filled. */
+    public static final class Result {
+        public final List<TradingCore.Candle> candles;
+        public final int gaps, repaired, unrepaired;
+        Result(List<TradingCore.Candle> candles, int gaps, int repaired, int unrepaired) {
+            this.candles = candles; this.gaps = gaps; this.repaired = repaired; this.unrepaired = unrepaired;
+        }
+        public boolean complete() { return unrepaired == 0; }
+    }
+
+    private final RangeFetcher fetcher;
+    private final AtomicLong checks      = new AtomicLong(0);
+    private final AtomicLong gapsFound   = new AtomicLong(0);
+    private final AtomicLong barsMissing = new AtomicLong(0);
+    private final AtomicLong barsFilled  = new AtomicLong(0);
+    private final AtomicLong barsLeft    = new AtomicLong(0);
+    private final AtomicLong fetches     = new AtomicLong(0);
+    private final AtomicLong fullReseeds = new AtomicLong(0);
+
+    public CandleIntegrity(RangeFetcher fetcher) {
+        this.fetcher = fetcher;
+    }
+
+    // ─── Verification ─────────────────────────────────────────────────
+
+    /** Holes in an openTime-ascending series; empty when contiguous. Duplicates/disorder are not holes. */
+    public static List<Gap> gaps(List<TradingCore.Candle> series, long ivMs) {
+        return gaps(series, ivMs, Long.MIN_VALUE);
+    }
+
+    /**
+     * As {@link #gaps(List, long)}, plus a trailing hole when the series should
+     * reach up to (exclusive) {@code untilOpen} — e.g. the openTime of the bar
+     * now forming, so bars missed at the tail during an outage count as well.
+     */
+    public static List<Gap> gaps(List<TradingCore.Candle> series, long ivMs, long untilOpen) {
+        if (series == null || series.isEmpty() || ivMs <= 0) return Collections.emptyList();
+        List<Gap> out = null;
+        long prev = series.get(0).openTime;
+        for (int i = 1, n = series.size(); i < n; i++) {
+            long t = series.get(i).openTime;
+            long step = t - prev;
+            if (step > ivMs) {
+                if (out == null) out = new ArrayList<>(2);
+                out.add(new Gap(prev + ivMs, (int) Math.min(Integer.MAX_VALUE, step / ivMs - 1)));
+            }
+            if (t > prev) prev = t;
+        }
+        if (untilOpen > prev + ivMs) {
+            if (out == null) out = new ArrayList<>(1);
+            out.add(new Gap(prev + ivMs, (int) Math.min(Integer.MAX_VALUE, (untilOpen - prev) / ivMs - 1)));
+        }
+        return out == null ? Collections.emptyList() : out;
+    }
+
+    /** Total missing bars across {@code gaps}. */
+    public static long missing(List<Gap> gaps) {
+        long n = 0;
+        for (Gap g : gaps) n += g.bars;
+        return n;
+    }
+
+    // ─── Repair ───────────────────────────────────────────────────────
+
+    /** Repairs interior holes only; see {@link #repair(String, String, long, List, long, long)}. */
+    public Result repair(String symbol, String interval, long ivMs,
+                         List<TradingCore.Candle> series, long maxBars) {
+        return repair(symbol, interval, ivMs, series, maxBars, Long.MIN_VALUE);
+    }
+
+    /**
+     * Fills the holes of {@code series} (and its tail up to {@code untilOpen},
+     * exclusive) with range fetches, at most MAX_FETCHES requests and
+     * {@code maxBars} missing bars (beyond that a full reseed is cheaper — the
+     * result is returned unrepaired). The input is not modified.
+     */
+    public Result repair(String symbol, String interval, long ivMs,
+                         List<TradingCore.Candle> series, long maxBars, long untilOpen) {
+        checks.incrementAndGet();
+        List<Gap> holes = gaps(series, ivMs, untilOpen);
+        if (holes.isEmpty()) return new Result(series, 0, 0, 0);
+        long missing = missing(holes);
+        gapsFound.addAndGet(holes.size());
+        barsMissing.addAndGet(missing);
+        if (!ENABLED || missing > maxBars) {
+            barsLeft.addAndGet(missing);
+            return new Result(series, holes.size(), 0, (int) Math.min(Integer.MAX_VALUE, missing));
+        }
+
+        List<TradingCore.Candle> fill = new ArrayList<>();
+        int budget = MAX_FETCHES;
+        for (Gap g : holes) {
+            long from = g.fromOpen, end = g.fromOpen + (long) g.bars * ivMs;   // end exclusive
+            while (from < end && budget > 0) {
+                int n = (int) Math.min(MAX_RANGE_BARS, (end - from) / ivMs);
+                long to = from + (long) n * ivMs - 1;
+                budget--;
+                fetches.incrementAndGet();
+                List<TradingCore.Candle> got = fetcher.fetch(symbol, interval, from, to, n);
+                if (got != null) {
+                    for (TradingCore.Candle c : got) {
+                        if (c.openTime >= from && c.openTime <= to && c.openTime % ivMs == from % ivMs)
+                            fill.add(c.asRepaired());
+                    }
+                }
+                from = to + 1;
+            }
+        }
+
+        List<TradingCore.Candle> merged = merge(series, fill);
+        int left = (int) missing(gaps(merged, ivMs, untilOpen));
+        int filled = (int) missing - left;
+        barsFilled.addAndGet(filled);
+        barsLeft.addAndGet(left);
+        if (left > 0) {
+            LOG.warning("[GAP] " + symbol + " " + interval + ": " + left + " of " + missing
+                    + " missing bars not available from the exchange " + holes);
+        }
+        return new Result(merged, holes.size(), filled, left);
+    }
+
+    /** Counts a fallback to a full REST reseed (repair impossible or disabled). */
+    public void noteFullReseed() { fullReseeds.incrementAndGet(); }
+
+    /** Sorted merge of two openTime-ascending lists; on equal openTime the series bar wins. */
+    static List<TradingCore.Candle> merge(List<TradingCore.Candle> series, List<TradingCore.Candle> fill) {
+        if (fill.isEmpty()) return series;
+        fill.sort((a, b) -> Long.compare(a.openTime, b.openTime));
+        List<TradingCore.Candle> out = new ArrayList<>(series.size() + fill.size());
+        int i = 0, j = 0;
+        while (i < series.size() || j < fill.size()) {
+            TradingCore.Candle next;
+            if (j >= fill.size()) next = series.get(i++);
+            else if (i >= series.size()) next = fill.get(j++);
+            else if (fill.get(j).openTime < series.get(i).openTime) next = fill.get(j++);
+            else {
+                if (fill.get(j).openTime == series.get(i).openTime) j++;
+                next = series.get(i++);
+            }
+            if (out.isEmpty() || next.openTime > out.get(out.size() - 1).openTime) out.add(next);
+        }
+        return out;
+    }
+
+    // ─── Stats ────────────────────────────────────────────────────────
+
+    /** "checks=… gaps=… missing=… filled=… left=… fetches=… reseeds=…"; empty until a hole was seen. */
+    public String stats() {
+        if (gapsFound.get() == 0 && fullReseeds.get() == 0) return "";
+        return String.format("checks=%d gaps=%d missing=%d filled=%d left=%d fetches=%d reseeds=%d",
+                checks.get(), gapsFound.get(), barsMissing.get(), barsFilled.get(), barsLeft.get(),
+                fetches.get(), fullReseeds.get());
+    }
+
+    private static long envLong(String k, long d) {
+        String v = System.getenv(k);
+        if (v == null || v.isBlank()) return d;
+        try { return Long.parseLong(v.trim()); } catch (Exception e) { return d; }
+    }
+}
@@ -0,0 +1,290 @@
+package com.bot;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * FeatureVector v1.0 — flat per-(symbol, bar) feature vector shared by all strategies.
+ *
+ * ┌─────────────────────────────────────────────────────────────────────┐
+ * │  primary (c15) + HTF (c1h) → double[COUNT], схема = NAMES           │
+ * │  get(id)    → считается один раз при первом чтении, дальше из массива│
+ * │  series(id) → EMA/RSI-серии, из которых берутся скаляры             │
+ * │  adx() / htfAdx() / bb() → те же расчёты, объектом                  │
+ * │  fill()     → все признаки (экспорт / батч-оценка в бэктесте)       │
+ * │  export()   → строка в FEATURE_EXPORT для ресёрча                   │
+ * └─────────────────────────────────────────────────────────────────────┘
+ *
+ * The generators used to derive ATR, RSI, ADX, volume SMA, HTF EMA
+ * separation and flow independently, several times per bar. A vector is
+ * bound to one (primary, HTF) bar pair: matches() compares size, first and
+ * last bar of both lists, so the same closed bars reuse it across
+ * strategies, shadow modes and the next analyze() of the same bar.
+ * Features are lazy so an early reject still pays only for what it read.
+ *
+ * Values are the exact TradingCore results the generators computed
+ * before, so switching a generator to the vector changes no decision.
+ *
+ * Параметры:
+ *   FEATURE_EXPORT — путь CSV для ресёрч-экспорта фич на каждом сигнале (default off)
+ */
+public final class FeatureVector {
+
+    // ─── Schema ───────────────────────────────────────────────────────
+
+    public static final int PRICE        = 0;   // last primary close
+    public static final int ATR          = 1;   // ATR(14) primary
+    public static final int ATR_PCT      = 2;   // ATR / price
+    public static final int ATR_PCTILE   = 3;   // ATR(14) percentile over 100 bars
+    public static final int RSI          = 4;   // RSI(14) primary
+    public static final int ADX          = 5;   // ADX(14) primary
+    public static final int PLUS_DI      = 6;
+    public static final int MINUS_DI     = 7;
+    public static final int CHOP         = 8;   // choppiness index(14)
+    public static final int VOL_SMA      = 9;   // volume SMA(20)
+    public static final int VOL_RATIO    = 10;  // last volume / VOL_SMA (0 without SMA)
+    public static final int EMA20        = 11;
+    public static final int EMA50        = 12;
+    public static final int BB_UPPER     = 13;  // Bollinger(20, 2.0), bandwidth pctile over 96
+    public static final int BB_LOWER     = 14;
+    public static final int BB_PCTILE    = 15;
+    public static final int PCT_B        = 16;  // (price - lower) / (upper - lower)
+    public static final int VWAP_DEV     = 17;  // (price - VWAP) / VWAP over vwapWindow bars
+    public static final int BODY_RATIO   = 18;  // last bar body / range
+    public static final int RANGE_ATR    = 19;  // last bar range / ATR
+    public static final int FLOW         = 20;  // taker-buy ratio, last closed bar
+    public static final int FLOW_1       = 21;  // … one bar back
+    public static final int FLOW_2       = 22;  // … two bars back
+    public static final int FLOW_PERSIST = 23;  // FLOW - FLOW_2 (CVD drift over 3 bars)
+    public static final int HTF_PRICE    = 24;
+    public static final int HTF_EMA20    = 25;
+    public static final int HTF_EMA50    = 26;
+    public static final int HTF_SEP      = 27;  // |EMA20 - EMA50| / HTF price
+    public static final int HTF_ADX      = 28;
+    public static final int HTF_RSI      = 29;
+    public static final int COUNT        = 30;
+
+    public static final String[] NAMES = {
+            "price", "atr", "atr_pct", "atr_pctile", "rsi", "adx", "plus_di", "minus_di",
+            "chop", "vol_sma", "vol_ratio", "ema20", "ema50", "bb_upper", "bb_lower",
+            "bb_pctile", "pct_b", "vwap_dev", "body_ratio", "range_atr", "flow", "flow_1",
+            "flow_2", "flow_persist", "htf_price", "htf_ema20", "htf_ema50", "htf_sep",
+            "htf_adx", "htf_rsi"
+    };
+
+    public static final int S_EMA20 = 0, S_EMA50 = 1, S_RSI = 2, S_HTF_EMA20 = 3, S_HTF_EMA50 = 4, S_HTF_RSI = 5;
+    private static final int SERIES = 6;
+
+    private static final LongAdder BUILT = new LongAdder(), REUSED = new LongAdder(),
+                                   COMPUTED = new LongAdder(), READS = new LongAdder();
+
+    // ─── State ────────────────────────────────────────────────────────
+
+    private List<com.bot.TradingCore.Candle> p, h;      // rebound on reuse; guarded by this
+    private final int vwapWindow;
+    private final long pFirst, pLast, hFirst, hLast;
+    private final double pClose, pVolume, hClose;
+    private final int pSize, hSize;
+
+    private final double[] v = new double[COUNT];
+    private long have;                                   // bit i = v[i] computed
+    private final double[][] series = new double[SERIES][];
+    private com.bot.TradingCore.ADXResult adx, htfAdx;
+    private com.bot.TradingCore.BollingerSqueeze bb;
+
+    public FeatureVector(List<com.bot.TradingCore.Candle> primary,
+                         List<com.bot.TradingCore.Candle> htf, int vwapWindow) {
+        this.p = primary;
+        this.h = htf;
+        this.vwapWindow = Math.max(1, vwapWindow);
+        this.pSize = primary.size();
+        this.hSize = htf.size();
+        this.pFirst = pSize > 0 ? primary.get(0).openTime : 0;
+        this.pLast  = pSize > 0 ? primary.get(pSize - 1).openTime : 0;
+        this.hFirst = hSize > 0 ? htf.get(0).openTime : 0;
+        this.hLast  = hSize > 0 ? htf.get(hSize - 1).openTime : 0;
+        this.pClose  = pSize > 0 ? primary.get(pSize - 1).close : 0;
+        this.pVolume = pSize > 0 ? primary.get(pSize - 1).volume : 0;
+        this.hClose  = hSize > 0 ? htf.get(hSize - 1).close : 0;
+        BUILT.increment();
+    }
+
+    /** True if {@code primary}/{@code htf} are the bars this vector was built from. */
+    public boolean matches(List<com.bot.TradingCore.Candle> primary,
+                           List<com.bot.TradingCore.Candle> htf) {
+        int ps = primary.size(), hs = htf.size();
+        return ps == pSize && hs == hSize
+                && (ps == 0 || (primary.get(0).openTime == pFirst && primary.get(ps - 1).openTime == pLast
+                                && primary.get(ps - 1).close == pClose   // a forming bar moves it
+                                && primary.get(ps - 1).volume == pVolume))
+                && (hs == 0 || (htf.get(0).openTime == hFirst && htf.get(hs - 1).openTime == hLast
+                                && htf.get(hs - 1).close == hClose));
+    }
+
+    /** Points a matching vector at the caller's lists (older subLists may be invalidated). */
+    public synchronized FeatureVector rebind(List<com.bot.TradingCore.Candle> primary,
+                                             List<com.bot.TradingCore.Candle> htf) {
+        this.p = primary;
+        this.h = htf;
+        REUSED.increment();
+        return this;
+    }
+
+    // ─── Access ───────────────────────────────────────────────────────
+
+    public synchronized double get(int id) {
+        READS.increment();
+        return val(id);
+    }
+
+    private double val(int id) {
+        if ((have & (1L << id)) != 0) return v[id];
+        double x = compute(id);
+        v[id] = x;
+        have |= 1L << id;
+        COMPUTED.increment();
+        return x;
+    }
+
+    public synchronized double[] series(int id) {
+        double[] s = series[id];
+        if (s != null) return s;
+        switch (id) {
+            case S_EMA20:     s = com.bot.TradingCore.emaSeries(p, 20); break;
+            case S_EMA50:     s = com.bot.TradingCore.emaSeries(p, 50); break;
+            case S_RSI:       s = com.bot.TradingCore.rsiSeries(p, 14); break;
+            case S_HTF_EMA20: s = com.bot.TradingCore.emaSeries(h, 20); break;
+            case S_HTF_EMA50: s = com.bot.TradingCore.emaSeries(h, 50); break;
+            case S_HTF_RSI:   s = com.bot.TradingCore.rsiSeries(h, 14); break;
+            default: throw new IllegalArgumentException("series " + id);
+        }
+        series[id] = s;
+        return s;
+    }
+
+    public synchronized com.bot.TradingCore.ADXResult adx() {
+        if (adx == null) adx = com.bot.TradingCore.adx(p, 14);
+        return adx;
+    }
+
+    public synchronized com.bot.TradingCore.ADXResult htfAdx() {
+        if (htfAdx == null) htfAdx = com.bot.TradingCore.adx(h, 14);
+        return htfAdx;
+    }
+
+    public synchronized com.bot.TradingCore.BollingerSqueeze bb() {
+        if (bb == null) bb = com.bot.TradingCore.bollingerSqueeze(p, 20, 2.0, 96);
+        return bb;
+    }
+
+    /** Computes every feature; returns a copy of the vector in schema order. */
+    public synchronized double[] fill() {
+        for (int i = 0; i < COUNT; i++) val(i);
+        return Arrays.copyOf(v, COUNT);
+    }
+
+    private double compute(int id) {
+        switch (id) {
+            case PRICE:      return pSize > 0 ? p.get(pSize - 1).close : 0;
+            case ATR:        return com.bot.TradingCore.atr(p, 14);
+            case ATR_PCT:    { double px = val(PRICE); return px > 0 ? val(ATR) / px : 0; }
+            case ATR_PCTILE: return com.bot.TradingCore.atrPercentile(p, 14, 100);
+            case RSI:        return last(series(S_RSI));
+            case ADX:        return adx().adx;
+            case PLUS_DI:    return adx().plusDI;
+            case MINUS_DI:   return adx().minusDI;
+            case CHOP:       return com.bot.TradingCore.choppinessIndex(p, 14);
+            case VOL_SMA:    return volSma(20);
+            case VOL_RATIO:  { double s = val(VOL_SMA); return s > 0 ? p.get(pSize - 1).volume / s : 0; }
+            case EMA20:      return last(series(S_EMA20));
+            case EMA50:      return last(series(S_EMA50));
+            case BB_UPPER:   return bb().upper;
+            case BB_LOWER:   return bb().lower;
+            case BB_PCTILE:  return bb().bandwidthPctile;
+            case PCT_B:      return (val(PRICE) - bb().lower) / Math.max(1e-9, bb().upper - bb().lower);
+            case VWAP_DEV:   { double w = vwap(); return w > 0 ? (val(PRICE) - w) / w : 0; }
+            case BODY_RATIO: return pSize > 0 ? p.get(pSize - 1).bodyRatio() : 0;
+            case RANGE_ATR:  { double a = val(ATR); return a > 0 && pSize > 0 ? p.get(pSize - 1).range / a : 0; }
+            case FLOW:       return flow(1);
+            case FLOW_1:     return flow(2);
+            case FLOW_2:     return flow(3);
+            case FLOW_PERSIST: return val(FLOW) - val(FLOW_2);
+            case HTF_PRICE:  return hSize > 0 ? h.get(hSize - 1).close : 0;
+            case HTF_EMA20:  return last(series(S_HTF_EMA20));
+            case HTF_EMA50:  return last(series(S_HTF_EMA50));
+            case HTF_SEP:    return Math.abs(val(HTF_EMA20) - val(HTF_EMA50)) / Math.max(1e-9, val(HTF_PRICE));
+            case HTF_ADX:    return htfAdx().adx;
+            case HTF_RSI:    return last(series(S_HTF_RSI));
+            default: throw new IllegalArgumentException("feature " + id);
+        }
+    }
+
+    private double volSma(int period) {
+        if (pSize < period) return 0;
+        double sum = 0;
+        for (int i = pSize - period; i < pSize; i++) sum += p.get(i).volume;
+        return sum / period;
+    }
+
+    private double vwap() {
+        double pv = 0, vol = 0;
+        for (int i = Math.max(0, pSize - vwapWindow); i < pSize; i++) {
+            com.bot.TradingCore.Candle c = p.get(i);
+            pv  += c.typicalPrice() * c.volume;
+            vol += c.volume;
+        }
+        return vol > 0 ? pv / vol : 0;
+    }
+
+    private double flow(int back) {
+        return pSize >= back ? p.get(pSize - back).takerBuySellRatio() : 0.5;
+    }
+
+    private static double last(double[] s) {
+        return s.length > 0 ? s[s.length - 1] : 0;
+    }
+
+    // ─── Research export ──────────────────────────────────────────────
+
+    private static final String EXPORT_PATH = System.getenv().getOrDefault("FEATURE_EXPORT", "").trim();
+    private static volatile AppendLog exportLog;
+
+    /** Appends "ts;symbol;strategy;side;prob;features…" to FEATURE_EXPORT; no-op when unset. */
+    public static void export(long ts, String symbol, String strategy, String side, double prob, FeatureVector fv) {
+        if (EXPORT_PATH.isEmpty() || fv == null) return;
+        AppendLog log = exportLog;
+        if (log == null) {
+            synchronized (FeatureVector.class) {
+                if (exportLog == null) {
+                    Path path = Paths.get(EXPORT_PATH);
+                    boolean fresh;
+                    try { fresh = !Files.exists(path) || Files.size(path) == 0; } catch (Exception e) { fresh = true; }
+                    exportLog = new AppendLog(path);
+                    if (fresh) exportLog.append("# ts;symbol;strategy;side;prob;" + String.join(";", NAMES));
+                }
+                log = exportLog;
+            }
+        }
+        double[] x = fv.fill();
+        StringBuilder sb = new StringBuilder(32 + COUNT * 12);
+        sb.append(ts).append(';').append(symbol).append(';').append(strategy)
+          .append(';').append(side).append(';').append(String.format("%.2f", prob));
+        for (double d : x) sb.append(';').append(String.format("%.6g", d));
+        log.append(sb.toString());
+    }
+
+    // ─── Stats ────────────────────────────────────────────────────────
+
+    /** "vectors=… reused=… computed=… reads=… (x.x reads/compute)"; empty before the first vector. */
+    public static String stats() {
+        long b = BUILT.sum();
+        if (b == 0) return "";
+        long c = COMPUTED.sum(), r = READS.sum();
+        return String.format("vectors=%d reused=%d computed=%d reads=%d (%.1f reads/compute)",
+                b, REUSED.sum(), c, r, c > 0 ? (double) r / c : 0.0);
+    }
+}
@@ -0,0 +1,151 @@
+package com.bot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * GatePipeline v1.0 — measured, cost-ordered gate chain.
+ *
+ * ┌─────────────────────────────────────────────────────────────────────┐
+ * │  screen(ctx): гейты без данных (кулдауны, блоклисты, ликвидность)   │
+ * │    порядок пересчитывается каждые REORDER_EVERY вызовов:           │
+ * │    rank = rejectRate / avgCost — дешёвые и часто режущие первыми   │
+ * │  record(gate, t, rejected): гейты на фиксированном месте (после    │
+ * │    загрузки свечей / анализа) — только замер, порядок не меняется  │
+ * │  diagTable(): calls / reject% / avg µs по каждому гейту за окно   │
+ * └─────────────────────────────────────────────────────────────────────┘
+ *
+ * For independent pass/fail filters the expected cost of the chain is
+ * minimal when they run in descending reject-probability / cost order, so
+ * screen() converges to that order from live measurements. A gate with fewer
+ * than WARMUP calls keeps its registration position until it has data.
+ * Cumulative counters are halved once a gate passes DECAY_AT calls, so the
+ * order follows regime changes (cooldowns fill up after a signal burst).
+ *
+ * Gates registered with gate() must be free of ordering dependencies: each
+ * may run before or after any other. Side effects are limited to their own
+ * reject counters.
+ */
+public final class GatePipeline<C> {
+
+    static final int  REORDER_EVERY = 256;
+    static final long WARMUP        = 16;
+    static final long DECAY_AT      = 50_000;
+
+    /** A reorderable gate: true = pass. */
+    @FunctionalInterface
+    public interface Check<C> { boolean pass(C ctx); }
+
+    private static final class Stat<C> {
+        final String name;
+        final int seq;
+        final Check<C> check;                                // null for fixed-position gates
+        final AtomicLong calls = new AtomicLong(), rejects = new AtomicLong(), nanos = new AtomicLong();
+        final AtomicLong wCalls = new AtomicLong(), wRejects = new AtomicLong(), wNanos = new AtomicLong();
+        Stat(String name, int seq, Check<C> check) { this.name = name; this.seq = seq; this.check = check; }
+
+        void add(boolean rejected, long ns) {
+            calls.incrementAndGet(); nanos.addAndGet(ns);
+            wCalls.incrementAndGet(); wNanos.addAndGet(ns);
+            if (rejected) { rejects.incrementAndGet(); wRejects.incrementAndGet(); }
+        }
+
+        double rank() {
+            long n = calls.get();
+            if (n < WARMUP) return Double.MAX_VALUE - seq;
+            double rejectRate = (double) rejects.get() / n;
+            double cost = Math.max(100.0, (double) nanos.get() / n);
+            return rejectRate / cost;
+        }
+    }
+
+    private final ConcurrentHashMap<String, Stat<C>> stats = new ConcurrentHashMap<>();
+    private final AtomicInteger seq = new AtomicInteger(0);
+    private final AtomicLong screens = new AtomicLong(0);
+    private volatile Stat<C>[] order = newArray(0);
+
+    @SuppressWarnings("unchecked")
+    private static <C> Stat<C>[] newArray(int n) { return (Stat<C>[]) new Stat<?>[n]; }
+
+    /** Registers a reorderable gate; registration order is the initial order. */
+    public synchronized GatePipeline<C> gate(String name, Check<C> check) {
+        Stat<C> s = new Stat<>(name, seq.getAndIncrement(), check);
+        stats.put(name, s);
+        Stat<C>[] next = Arrays.copyOf(order, order.length + 1);
+        next[order.length] = s;
+        order = next;
+        return this;
+    }
+
+    /** Runs the reorderable gates in the current order; the rejecting gate's name, or null if all pass. */
+    public String screen(C ctx) {
+        Stat<C>[] gates = order;
+        String rejectedBy = null;
+        long t = System.nanoTime();
+        for (Stat<C> g : gates) {
+            boolean ok = g.check.pass(ctx);
+            long now = System.nanoTime();
+            g.add(!ok, now - t);
+            t = now;
+            if (!ok) { rejectedBy = g.name; break; }
+        }
+        if (screens.incrementAndGet() % REORDER_EVERY == 0) reorder();
+        return rejectedBy;
+    }
+
+    /**
+     * Records a fixed-position gate that ran from {@code sinceNs} to now.
+     * Returns now, the start of the next gate.
+     */
+    public long record(String gate, long sinceNs, boolean rejected) {
+        long now = System.nanoTime();
+        Stat<C> s = stats.get(gate);
+        if (s == null) s = stats.computeIfAbsent(gate, k -> new Stat<>(k, seq.getAndIncrement(), null));
+        s.add(rejected, now - sinceNs);
+        return now;
+    }
+
+    private synchronized void reorder() {
+        Stat<C>[] next = order.clone();
+        for (Stat<C> s : next) {
+            if (s.calls.get() > DECAY_AT) {
+                s.calls.set(s.calls.get() / 2); s.rejects.set(s.rejects.get() / 2); s.nanos.set(s.nanos.get() / 2);
+            }
+        }
+        Arrays.sort(next, Comparator.comparingDouble((Stat<C> s) -> s.rank()).reversed());
+        order = next;
+    }
+
+    /** Current screen() order, cheapest-rejecting first. */
+    public List<String> currentOrder() {
+        List<String> out = new ArrayList<>();
+        for (Stat<C> s : order) out.add(s.name);
+        return out;
+    }
+
+    /**
+     * "name calls/reject%/avgµs …" since the previous call — screen() gates in
+     * their current order, then fixed gates in pipeline order; resets the window.
+     * Empty when nothing ran.
+     */
+    public String diagTable() {
+        List<Stat<C>> rows = new ArrayList<>(Arrays.asList(order));
+        List<Stat<C>> fixed = new ArrayList<>();
+        for (Stat<C> s : stats.values()) if (s.check == null) fixed.add(s);
+        fixed.sort(Comparator.comparingInt(s -> s.seq));
+        rows.addAll(fixed);
+        StringBuilder sb = new StringBuilder();
+        for (Stat<C> s : rows) {
+            long n = s.wCalls.getAndSet(0), rej = s.wRejects.getAndSet(0), ns = s.wNanos.getAndSet(0);
+            if (n == 0) continue;
+            if (sb.length() > 0) sb.append(" | ");
+            sb.append(String.format("%s %d/%.0f%%/%.0fµs", s.name, n, 100.0 * rej / n, ns / 1e3 / n));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,178 @@
+package com.bot;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * RejectCounters v1.0 — striped per-reason counters with per-cycle snapshots.
+ *
+ * ┌─────────────────────────────────────────────────────────────────────┐
+ * │  id(reason)  → int, интернируется один раз (ConcurrentHashMap.get)  │
+ * │  inc(id)     → LongAdder.increment(): без CAS-гонки между 10–34     │
+ * │                fetch-потоками, каждый поток пишет в свою ячейку     │
+ * │  snapshotAndReset() → дельты с прошлого снимка, одним проходом      │
+ * │  peek()             → те же дельты без сдвига базы                   │
+ * │  windowRates(n)     → top-N причин в /мин за последние WINDOW снимков│
+ * └─────────────────────────────────────────────────────────────────────┘
+ *
+ * Adders are never reset. A snapshot reads each sum once and keeps it as
+ * the base of the next window, so every increment lands in exactly one
+ * window: one racing with the snapshot is counted in the next. That
+ * replaces the getAndSet / read-then-set-prev patterns, which lost updates
+ * made between the read and the reset.
+ *
+ * Reasons past MAX_REASONS share the "other" counter.
+ *
+ * Параметры:
+ *   REJECT_WINDOW_SNAPSHOTS — снимков в скользящем окне (default 12)
+ */
+public final class RejectCounters {
+
+    static final int MAX_REASONS = 512;
+    static final int WINDOW = (int) Math.max(1, Math.min(240, envLong("REJECT_WINDOW_SNAPSHOTS", 12)));
+    public static final String OTHER = "other";
+
+    /** Per-reason deltas of one window, indexed by reason id. */
+    public static final class Snapshot {
+        private final String[] names;
+        private final long[] counts;
+        public final long spanMs;
+        Snapshot(String[] names, long[] counts, long spanMs) {
+            this.names = names; this.counts = counts; this.spanMs = spanMs;
+        }
+        public long get(int id) { return id >= 0 && id < counts.length ? counts[id] : 0; }
+        public long get(String reason) {
+            for (int i = 0; i < counts.length; i++) if (names[i].equals(reason)) return counts[i];
+            return 0;
+        }
+        public long total() {
+            long s = 0;
+            for (long c : counts) s += c;
+            return s;
+        }
+        /** "k1=v1 k2=v2 …", largest first, zeros skipped; empty when nothing counted. */
+        public String top(int n) {
+            StringBuilder sb = new StringBuilder();
+            for (int i : ranked(counts, n)) {
+                if (sb.length() > 0) sb.append(' ');
+                sb.append(names[i]).append('=').append(counts[i]);
+            }
+            return sb.toString();
+        }
+    }
+
+    private static final class Slice {
+        final long startMs, endMs;
+        final long[] counts;
+        Slice(long startMs, long endMs, long[] counts) { this.startMs = startMs; this.endMs = endMs; this.counts = counts; }
+    }
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] names = new String[0];
+    private volatile LongAdder[] adders = new LongAdder[0];
+    private final int other;
+
+    // Guarded by this
+    private long[] base = new long[0];
+    private long baseMs = System.currentTimeMillis();
+    private final ArrayDeque<Slice> window = new ArrayDeque<>();
+
+    public RejectCounters() {
+        other = register(OTHER);
+    }
+
+    /** Interned id of {@code reason}; registers it on first use. */
+    public int id(String reason) {
+        Integer id = ids.get(reason);
+        return id != null ? id : register(reason);
+    }
+
+    private synchronized int register(String reason) {
+        Integer id = ids.get(reason);
+        if (id != null) return id;
+        int n = names.length;
+        if (n >= MAX_REASONS) return other;
+        LongAdder[] a = Arrays.copyOf(adders, n + 1);
+        a[n] = new LongAdder();
+        String[] s = Arrays.copyOf(names, n + 1);
+        s[n] = reason;
+        adders = a;
+        names = s;
+        ids.put(reason, n);          // published after the adder it points to
+        return n;
+    }
+
+    public void inc(int id)          { adders[id].increment(); }
+    public void inc(String reason)   { inc(id(reason)); }   // id first: registering replaces the array
+    public void add(int id, long n)  { adders[id].add(n); }
+
+    /** Lifetime count of {@code id}. */
+    public long total(int id)        { return adders[id].sum(); }
+
+    /** Deltas since the previous snapshot; starts the next window. */
+    public synchronized Snapshot snapshotAndReset(long now) {
+        String[] s = names;
+        long[] d = deltas(adders, true);
+        window.addLast(new Slice(baseMs, now, d));
+        while (window.size() > WINDOW) window.removeFirst();
+        Snapshot snap = new Snapshot(s, d, now - baseMs);
+        baseMs = now;
+        return snap;
+    }
+
+    /** Deltas since the previous snapshot, without starting a new window. */
+    public synchronized Snapshot peek(long now) {
+        return new Snapshot(names, deltas(adders, false), now - baseMs);
+    }
+
+    private long[] deltas(LongAdder[] a, boolean advance) {
+        if (base.length < a.length) base = Arrays.copyOf(base, a.length);
+        long[] d = new long[a.length];
+        for (int i = 0; i < a.length; i++) {
+            long sum = a[i].sum();
+            d[i] = sum - base[i];
+            if (advance) base[i] = sum;
+        }
+        return d;
+    }
+
+    /** "reason=x.x/min …" over the last WINDOW snapshots, top {@code n}; empty before the first snapshot. */
+    public synchronized String windowRates(int n) {
+        if (window.isEmpty()) return "";
+        String[] s = names;
+        long[] sum = new long[s.length];
+        for (Slice sl : window) {
+            for (int i = 0; i < sl.counts.length; i++) sum[i] += sl.counts[i];
+        }
+        double minutes = Math.max(1, window.peekLast().endMs - window.peekFirst().startMs) / 60_000.0;
+        StringBuilder sb = new StringBuilder();
+        for (int i : ranked(sum, n)) {
+            if (sb.length() > 0) sb.append(' ');
+            sb.append(s[i]).append('=').append(String.format("%.1f/min", sum[i] / minutes));
+        }
+        return sb.toString();
+    }
+
+    /** Indices of the top {@code n} non-zero counts, largest first. */
+    private static int[] ranked(long[] counts, int n) {
+        int k = Math.max(0, n), size = 0;
+        int[] top = new int[Math.min(k, counts.length)];
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] <= 0) continue;
+            int j = Math.min(size, top.length - 1);
+            if (j < 0 || (size == top.length && counts[top[j]] >= counts[i])) continue;
+            if (size < top.length) size++;
+            while (j > 0 && counts[top[j - 1]] < counts[i]) { top[j] = top[j - 1]; j--; }
+            top[j] = i;
+        }
+        return Arrays.copyOf(top, size);
+    }
+
+    private static long envLong(String k, long d) {
+        String v = System.getenv(k);
+        if (v == null || v.isBlank()) return d;
+        try { return Long.parseLong(v.trim()); } catch (Exception e) { return d; }
+    }
+}
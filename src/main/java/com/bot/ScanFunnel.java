@@ -0,0 +1,262 @@
+package com.bot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * ScanFunnel v1.0 — stage-1 screener for the per-cycle scan.
+ *
+ * ┌─────────────────────────────────────────────────────────────────────┐
+ * │  Stage 1 (каждый цикл, вся USDT-M вселенная, только примитивы):     │
+ * │    last price + 24h quote volume из !miniTicker@arr (MarketSlots),  │
+ * │    сэмплы каждые 15 с → доходность 1m / 5m, всплеск объёма 5m,      │
+ * │    funding из !markPrice@arr                                        │
+ * │    score ≈ ожидаемое движение (bps) − round-trip издержки (bps)     │
+ * │  Shortlist (2·K лучших) → OBI (если есть книга) + фильтры пары      │
+ * │  Stage 2: только top-K с score > MIN_EV идут в processPair/analyze  │
+ * │  (но не меньше MIN_K лучших, даже если все ниже порога)              │
+ * └─────────────────────────────────────────────────────────────────────┘
+ *
+ * Score (bps):
+ *   move  = (|r5m| + 0.5·|r1m|) · √min(surge, 9)      surge = vol5m / avg 5m of the 24h
+ *   fund  = max(0, |funding| − 1 bp)                   crowding beyond the neutral rate
+ *   obi   = 0.5 · move · OBI · sign(r5m)               aligned book adds, opposing subtracts
+ *   cost  = 5 / 15 / 40 bps by 24h volume ≥200M / ≥20M / below (TOP / ALT / MEME slippage)
+ *   score = move + fund + obi − cost
+ *
+ * In a flat market nearly every symbol scores below the floor (cost alone is
+ * 5–40 bps), which would leave stage 2 empty and the engine idle. MIN_K best
+ * eligible symbols are therefore always passed, whatever their score.
+ *
+ * The per-symbol pass touches only the slot arrays; string work (blocklists,
+ * tier, asset type) and the OBI lookup run on the shortlist alone. vol5m adds
+ * back the average 5m that rolled out of the 24h window, so a flat market
+ * reads surge ≈ 1.
+ *
+ * Single writer for the sample rings: the bulk-stream thread (sample()).
+ * screen() runs on the cycle thread and tolerates a torn sample (one stale
+ * return for one symbol for one cycle).
+ *
+ * Параметры:
+ *   SCAN_FUNNEL            — 0 = старый отбор top-N по объёму (default 1)
+ *   SCAN_FUNNEL_TOP_K      — максимум пар в stage 2 за цикл (default 30, ≤ pair budget)
+ *   SCAN_FUNNEL_MIN_EV_BPS — порог score для stage 2 (default 0)
+ *   SCAN_FUNNEL_MIN_K      — минимум пар в stage 2 вне порога (default 8, ≤ TOP_K)
+ *   SCAN_FUNNEL_MIN_QV     — минимальный 24h объём, USDT (default 5_000_000)
+ */
+public final class ScanFunnel {
+
+    private static final Logger LOG = Logger.getLogger("ScanFunnel");
+
+    public static final boolean ENABLED = !"0".equals(System.getenv().getOrDefault("SCAN_FUNNEL", "1"));
+    static final int    TOP_K      = (int) Math.max(1, envLong("SCAN_FUNNEL_TOP_K", 30));
+    static final double MIN_EV_BPS = envDouble("SCAN_FUNNEL_MIN_EV_BPS", 0.0);
+    static final int    MIN_K      = (int) Math.max(0, envLong("SCAN_FUNNEL_MIN_K", 8));
+    static final double MIN_QV     = envDouble("SCAN_FUNNEL_MIN_QV", 5_000_000.0);
+
+    static final long SAMPLE_MS   = 15_000L;
+    static final int  SAMPLES     = 24;                  // 6 min of history at 15 s
+    static final long R1_MS       = 60_000L;
+    static final long R5_MS       = 300_000L;
+    static final long TICKER_STALE_MS = 120_000L;
+    private static final int CAP  = SignalSender.MarketSlots.CAPACITY;
+
+    /** Shortlist-only inputs that need strings or maps. */
+    public interface Inputs {
+        /** Whether stage 2 may take {@code symbol} (blocklists, tier, asset type, WS capacity). */
+        boolean eligible(String symbol);
+        /** Order-book imbalance in [-1, 1], or NaN when no book is tracked. */
+        double obi(String symbol);
+    }
+
+    // Ring per slot: SAMPLES entries at [slot * SAMPLES, (slot + 1) * SAMPLES)
+    private final double[] px  = new double[CAP * SAMPLES];
+    private final double[] qv  = new double[CAP * SAMPLES];
+    private final long[]   ts  = new long[CAP * SAMPLES];
+    private final int[]    head = new int[CAP];
+    private final long[]   lastSampleMs = new long[CAP];
+    private volatile long  firstSampleMs = 0;
+
+    // Scratch for screen() — cycle thread only
+    private final double[] score = new double[CAP];
+    private final double[] move  = new double[CAP];
+    private final double[] dir   = new double[CAP];
+
+    private final AtomicLong cycles      = new AtomicLong(0);
+    private final AtomicLong scored      = new AtomicLong(0);
+    private final AtomicLong stage1Nanos = new AtomicLong(0);
+    private final AtomicLong budgetSlots = new AtomicLong(0);
+    private final AtomicLong usedSlots   = new AtomicLong(0);
+    private final AtomicLong fallbacks   = new AtomicLong(0);
+    private final AtomicLong promoted    = new AtomicLong(0);
+    private final AtomicLong floorFills  = new AtomicLong(0);
+
+    // ─── Feed (bulk-stream thread) ────────────────────────────────────
+
+    /** Records a mini-ticker update; keeps one sample per SAMPLE_MS per slot. */
+    public void sample(int slot, long now, double price, double quoteVol24h) {
+        if (slot < 0 || slot >= CAP || price <= 0) return;
+        if (now - lastSampleMs[slot] < SAMPLE_MS) return;
+        lastSampleMs[slot] = now;
+        int h = (head[slot] + 1) % SAMPLES;
+        int i = slot * SAMPLES + h;
+        px[i] = price; qv[i] = quoteVol24h; ts[i] = now;
+        head[slot] = h;
+        if (firstSampleMs == 0) firstSampleMs = now;
+    }
+
+    /** True once the rings span the 5m return window. */
+    public boolean warm(long now) {
+        long f = firstSampleMs;
+        return f > 0 && now - f >= R5_MS;
+    }
+
+    /** Ring index of the newest sample at least {@code windowMs} old (within one extra minute), -1 if none. */
+    private int sampleAgo(int slot, long now, long windowMs) {
+        int base = slot * SAMPLES, h = head[slot];
+        for (int k = 0; k < SAMPLES; k++) {
+            int i = base + (h - k + SAMPLES) % SAMPLES;
+            long t = ts[i];
+            if (t == 0) return -1;
+            long age = now - t;
+            if (age >= windowMs) return age <= windowMs + 60_000L ? i : -1;
+        }
+        return -1;
+    }
+
+    // ─── Stage 1 ──────────────────────────────────────────────────────
+
+    /**
+     * Ranks every slot and returns at most min(budget, TOP_K) symbols whose
+     * score clears MIN_EV_BPS, best first, topped up to MIN_K with the best
+     * eligible symbols below the floor.
+     */
+    public List<String> screen(SignalSender.MarketSlots m, long now, int budget, Inputs in) {
+        int k = Math.max(0, Math.min(budget, TOP_K));
+        int shortlist = Math.min(CAP, Math.max(k * 2, k + 8));
+        long t0 = System.nanoTime();
+        int n = m.size(), count = 0;
+
+        // Min-heap of the best `shortlist` slots by score
+        int[] heap = new int[shortlist];
+        for (int slot = 0; slot < n; slot++) {
+            double last = m.lastPrice[slot], q = m.quoteVolume24h[slot];
+            if (last <= 0 || q < MIN_QV || now - m.tickerUpdatedMs[slot] > TICKER_STALE_MS) continue;
+            int i5 = sampleAgo(slot, now, R5_MS);
+            if (i5 < 0) continue;
+            int i1 = sampleAgo(slot, now, R1_MS);
+            double r5 = last / px[i5] - 1.0;
+            double r1 = i1 >= 0 ? last / px[i1] - 1.0 : 0.0;
+            double avg5 = q / 288.0;
+            double surge = Math.max(0.0, q - qv[i5] + avg5) / avg5;
+            double mv = (Math.abs(r5) + 0.5 * Math.abs(r1)) * 1e4 * Math.sqrt(Math.min(surge, 9.0));
+            double fund = Math.max(0.0, Math.abs(m.fundingRate[slot]) * 1e4 - 1.0);
+            double cost = q >= 200_000_000 ? 5.0 : q >= 20_000_000 ? 15.0 : 40.0;
+            double s = mv + fund - cost;
+            score[slot] = s; move[slot] = mv; dir[slot] = Math.signum(r5);
+            count++;
+            if (shortlist == 0) continue;
+            int size = Math.min(count, shortlist);
+            if (count <= shortlist) siftUp(heap, size - 1, slot);
+            else if (s > score[heap[0]]) { heap[0] = slot; siftDown(heap, shortlist, 0); }
+        }
+        long nanos = System.nanoTime() - t0;
+
+        // Shortlist: OBI adjustment, then pair filters in score order
+        int sl = Math.min(count, shortlist);
+        int[] cand = new int[sl];
+        double[] adj = new double[sl];
+        for (int j = 0; j < sl; j++) {
+            int slot = heap[j];
+            double obi = in.obi(m.symbol(slot));
+            cand[j] = slot;
+            adj[j] = score[slot] + (Double.isNaN(obi) ? 0.0 : 0.5 * move[slot] * obi * dir[slot]);
+        }
+        for (int a = 1; a < sl; a++) {            // insertion sort, descending — sl is small
+            int cs = cand[a]; double ca = adj[a]; int b = a - 1;
+            while (b >= 0 && adj[b] < ca) { cand[b + 1] = cand[b]; adj[b + 1] = adj[b]; b--; }
+            cand[b + 1] = cs; adj[b + 1] = ca;
+        }
+        List<String> out = new ArrayList<>(k);
+        int j = 0;
+        for (; j < sl && out.size() < k; j++) {
+            if (adj[j] <= MIN_EV_BPS) break;
+            String sym = m.symbol(cand[j]);
+            if (in.eligible(sym)) out.add(sym);
+        }
+        int minK = Math.min(k, MIN_K);
+        if (out.size() < minK) {
+            floorFills.incrementAndGet();
+            for (; j < sl && out.size() < minK; j++) {
+                String sym = m.symbol(cand[j]);
+                if (in.eligible(sym)) out.add(sym);
+            }
+        }
+
+        cycles.incrementAndGet();
+        scored.addAndGet(count);
+        stage1Nanos.addAndGet(nanos);
+        budgetSlots.addAndGet(budget);
+        usedSlots.addAndGet(out.size());
+        if (!out.isEmpty() && LOG.isLoggable(java.util.logging.Level.FINE)) {
+            LOG.fine("[FUNNEL] scored=" + count + " top=" + out.get(0)
+                    + String.format(" %.1fbps", adj[0]) + " stage2=" + out.size() + "/" + budget);
+        }
+        return out;
+    }
+
+    private void siftUp(int[] heap, int i, int slot) {
+        heap[i] = slot;
+        while (i > 0) {
+            int p = (i - 1) >>> 1;
+            if (score[heap[p]] <= score[heap[i]]) break;
+            int t = heap[p]; heap[p] = heap[i]; heap[i] = t;
+            i = p;
+        }
+    }
+
+    private void siftDown(int[] heap, int size, int i) {
+        while (true) {
+            int l = 2 * i + 1, r = l + 1, min = i;
+            if (l < size && score[heap[l]] < score[heap[min]]) min = l;
+            if (r < size && score[heap[r]] < score[heap[min]]) min = r;
+            if (min == i) return;
+            int t = heap[min]; heap[min] = heap[i]; heap[i] = t;
+            i = min;
+        }
+    }
+
+    // ─── Stats ────────────────────────────────────────────────────────
+
+    /** Counts a cycle that used the legacy volume ranking (stream stale / not warm). */
+    public void noteFallback() { fallbacks.incrementAndGet(); }
+
+    /** Counts a stage-2 pick that had no per-pair stream and was subscribed for it. */
+    public void notePromoted() { promoted.incrementAndGet(); }
+
+    /** "cycles=… scored/cycle=… stage1=…sym/ms stage2=used/budget saved=… promoted=… fallback=… minK=…"; empty before the first screen. */
+    public String stats() {
+        long c = cycles.get();
+        if (c == 0) return fallbacks.get() == 0 ? "" : "fallback=" + fallbacks.get();
+        double ms = stage1Nanos.get() / 1e6;
+        long budget = budgetSlots.get(), used = usedSlots.get();
+        return String.format("cycles=%d scored/cycle=%.0f stage1=%.0fsym/ms stage2=%d/%d saved=%d (%.0f%%) promoted=%d fallback=%d minK=%d",
+                c, (double) scored.get() / c, ms > 0 ? scored.get() / ms : 0.0, used, budget,
+                budget - used, budget > 0 ? 100.0 * (budget - used) / budget : 0.0,
+                promoted.get(), fallbacks.get(), floorFills.get());
+    }
+
+    private static long envLong(String k, long d) {
+        String v = System.getenv(k);
+        if (v == null || v.isBlank()) return d;
+        try { return Long.parseLong(v.trim()); } catch (Exception e) { return d; }
+    }
+
+    private static double envDouble(String k, double d) {
+        String v = System.getenv(k);
+        if (v == null || v.isBlank()) return d;
+        try { return Double.parseDouble(v.trim()); } catch (Exception e) { return d; }
+    }
+}
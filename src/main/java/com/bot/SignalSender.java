@@ -50,6 +50,10 @@ public final class SignalSender {
     private final double OBI_THRESHOLD;
     private final double DELTA_BLOCK_CONF;
     private final boolean ENABLE_EARLY_TICK;
+    private final boolean EARLY_TICK_COALESCE;   // [v100]
+    private final long    EARLY_TICK_EVAL_MS;
+    private final double  EARLY_TICK_TRIGGER_PCT;
+    private final long    EARLY_TICK_BAR_MS;
     private final int    MAX_SCAN_PAIRS_PER_CYCLE;
     private final int    DEPTH_SNAPSHOT_TOP_N;
     private final int    FUNDING_OI_TOP_N;
@@ -164,9 +168,17 @@ public final class SignalSender {
     private static final int    OFV_HISTORY_SIZE   = 8;    // 8 × ~500ms ticks = ~4s window
     private static final double OFV_SIGNAL_THRESH  = 0.015; // rate of OBI change per tick
     private static final double OFV_STRONG_THRESH  = 0.040; // strong directional flow
-    private final Map<String, Deque<double[]>> ofvHistory = new ConcurrentHashMap<>();
-    // OFV score per pair: positive = bullish flow velocity, negative = bearish
-    private final Map<String, Double> ofvScoreMap = new ConcurrentHashMap<>();
+    // [v93 OFV-O1 2026-10-19] History is a primitive ring with running regression
+    // sums (ObiSlopeWindow). bookTicker is our highest-frequency stream, and the
+    // old Deque<double[]> + stream().toArray() + full regression allocated three
+    // objects and did O(N) work per message. The window publishes the slope
+    // itself (positive = bullish flow velocity, negative = bearish), so it also
+    // replaces the former ofvScoreMap — no Double boxing per update.
+    // OFV_TIME_WEIGHTED=1 → regress OBI on event time instead of tick index; the
+    // slope is rescaled to "per nominal tick" so OFV_*_THRESH keep their meaning.
+    private static final boolean OFV_TIME_WEIGHTED = "1".equals(System.getenv().getOrDefault("OFV_TIME_WEIGHTED", "0"));
+    private static final double  OFV_NOMINAL_TICK_MS = 500.0;
+    private final Map<String, ObiSlopeWindow> ofvHistory = new ConcurrentHashMap<>();
 
     // RT-CVD — real-time CVD from aggTrade (resets each 15m candle)
     private final Map<String, Double> rtCvdBuy   = new ConcurrentHashMap<>();
@@ -182,13 +194,17 @@ public final class SignalSender {
     // ══ ДЫРА №2: Liquidation Heatmap — уровни принудительных ликвидаций ══
     // Цена ВСЕГДА идёт туда где лежат ликвидации. Это физика фьючерсного рынка.
     // Мы подписываемся на глобальный поток ликвидаций Binance (публичный, без ключей).
-    private final Map<String, java.util.NavigableMap<Double, Double>> liqHeatmap
-            = new ConcurrentHashMap<>();
+    // [v105] Bucketed per-symbol heatmap: forward-decayed notional in a Fenwick tree.
+    private final Map<String, LiquidationHeatmap> liqHeatmap = new ConcurrentHashMap<>();
     private volatile WebSocket liqWebSocket = null;
     private static final double LIQ_MIN_NOTIONAL =          // [v87.2] $50k→$5k: для СБОРА данных (#3) ловим больше; фильтр вверх — при анализе
             envDouble("LIQ_MIN_NOTIONAL", 5_000.0);
-    private static final long   LIQ_DECAY_MS     = 30 * 60_000L; // ликвидации "протухают" за 30 мин
-    private final Map<String, Long> liqTimestamps = new ConcurrentHashMap<>();
+    // [v105] Экспоненциальное затухание вместо жёсткого 30-мин TTL: через 30 мин вес 1/8.
+    private static final double LIQ_HALF_LIFE_MS = envDouble("LIQ_HALF_LIFE_MIN", 10.0) * 60_000.0;
+    // Нормировка score: старые $5M за 30-мин TTL. При постоянном потоке r затухающая сумма
+    // ≈ r·τ (τ = half-life/ln2), а TTL-сумма = r·30мин → тот же пул = $5M·τ/30мин (≈$2.4M при 10 мин).
+    private static final double LIQ_SCORE_NORM_USD = envDouble("LIQ_SCORE_NORM_USD",
+            5_000_000.0 * (LIQ_HALF_LIFE_MS / Math.log(2)) / (30 * 60_000.0));
 
     // Tick / WebSocket
     private static final long REALTIME_STALE_SKIP_MS = 75_000L;
@@ -247,12 +263,35 @@ public final class SignalSender {
     private final Map<String, Long>    hotPairLastRescan   = new ConcurrentHashMap<>();
     private final AtomicInteger        hotPairActiveCount  = new AtomicInteger(0);
     private final java.util.concurrent.atomic.AtomicLong hotPairTotalTriggers = new AtomicLong(0);
-    private final Map<String, Deque<Double>>      tickVolumeDeque = new ConcurrentHashMap<>();
+    // [v99] Rolling tick features shared by EARLY_TICK and HOT rescan (replaces tickVolumeDeque)
+    private final Map<String, TickFeatureWindow>  tickFeatures    = new ConcurrentHashMap<>();
+    // [v100] Coalesced EARLY_TICK evaluation state + counters
+    private final Map<String, EarlyTickSlot>      earlyTickSlots  = new ConcurrentHashMap<>();
+    // [v103] Tick-built footprint per PRIMARY_TF bar (price-level aggressor volume) for
+    // ABSORB_BREAK / FLOW_FADE. Bounded: FP_MAX_LEVELS floats × (FP_KEEP_BARS + 1) per symbol.
+    private static final boolean FP_TICK =
+            "1".equals(System.getenv().getOrDefault("FP_TICK", "1"));
+    private final Map<String, TickFootprint>      footprints      = new ConcurrentHashMap<>();
+    private final AtomicLong earlyTickTicks     = new AtomicLong(0);
+    private final AtomicLong earlyTickEvals     = new AtomicLong(0);
+    private final AtomicLong earlyTickImmediate = new AtomicLong(0);
+    private final ScheduledExecutorService earlyTickEvaluator = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "early-tick-eval"); t.setDaemon(true); return t;
+    });
     private final Map<String, Long>               lastTickTime    = new ConcurrentHashMap<>();
     private final Map<String, Double>             lastTickPrice   = new ConcurrentHashMap<>();
     private final Map<String, WebSocket>          wsMap           = new ConcurrentHashMap<>();
     private final Map<String, Long>               wsReconnectDelay= new ConcurrentHashMap<>();
     private final Map<String, MicroCandleBuilder> microBuilders   = new ConcurrentHashMap<>();
+    // [v95] Intervals every tick builder maintains: 1s/5s/1m/5m/15m/1h/4h + PRIMARY_TF.
+    private static final long[] BUILDER_INTERVALS_MS = MicroCandleBuilder.intervalsWith(PRIMARY_TF_MS);
+    // [v95] Splice the tick-built forming bar into non-15m PRIMARY_TF series (see
+    // getPrimaryTfCandles). Off by default: the v90 closed-bar rationale still holds
+    // for VWAP-MR; when on, the bar is spliced only past LIVE_SPLICE_MIN_FRACTION of its span.
+    private static final boolean LIVE_SPLICE_PRIMARY =
+            "1".equals(System.getenv().getOrDefault("LIVE_SPLICE_PRIMARY", "0"));
+    private static final double  LIVE_SPLICE_MIN_FRACTION =
+            Math.max(0.0, Math.min(1.0, envDouble("LIVE_SPLICE_MIN_FRACTION", 0.5)));
 
     //  [v17.0 §2] EARLY TICK SIGNAL BUFFER
     //  Collects EARLY_TICK candidates across 1.5s windows per pair.
@@ -313,8 +352,50 @@ public final class SignalSender {
     });
 
     // Буфер 1m свечей для LiveCandleAssembler
-    private final Map<String, List<com.bot.TradingCore.Candle>> liveM1Buffer = new ConcurrentHashMap<>();
+    // [v94 M1-RING 2026-10-19] Per-symbol CandleRing instead of a copy-on-write
+    // List: closing a minute is O(1) and readers share one zero-copy snapshot.
+    private final Map<String, CandleRing> liveM1Buffer = new ConcurrentHashMap<>();
     private static final int LIVE_M1_BUFFER_SIZE = 180; // [v36-FIX] 4h of 1m bars from WS ticks
+    // [v107 GAP-REPAIR 2026-10-19] Holes in the 1m ring and the kline-stream series are
+    // filled by targeted range fetches (CandleIntegrity) instead of wipe + full reseed.
+    // m1Holed: pairs whose append path skipped a minute (reconnect, or a partial first
+    // bar from a fresh builder); getM1FromWs repairs them before handing out the ring.
+    private final CandleIntegrity candleIntegrity = new CandleIntegrity(this::fetchKlinesRange);
+    private final Set<String> m1Holed = ConcurrentHashMap.newKeySet();
+
+    // [v108 SCAN-FUNNEL] Stage-1 screener over the bulk-stream slots (see ScanFunnel).
+    private final ScanFunnel  scanFunnel = new ScanFunnel();
+    private final Set<String> funnelPromoted = ConcurrentHashMap.newKeySet();
+    private static final int  FUNNEL_PROMOTE_PER_CYCLE =
+            Math.max(0, Integer.parseInt(System.getenv().getOrDefault("SCAN_FUNNEL_PROMOTE", "4")));
+
+    // [v109 BAR-CLOSE] ANALYSIS_MODE=BAR_CLOSE: each pair is analysed as its PRIMARY_TF bar
+    // closes (BarCloseScheduler) instead of in the fixed-interval burst of generateSignals.
+    // Both modes record close→analysed / close→signal, reported by [STATS] BAR-CLOSE.
+    private final BarCloseScheduler<com.bot.DecisionEngineMerged.TradeIdea> barClose =
+            new BarCloseScheduler<>(PRIMARY_TF_MS, this::analyzeOnClose, this::dispatchOnClose, this::barCloseUniverse);
+    private final LatencyHistogram cycleCloseToAnalysed = new LatencyHistogram();
+    private final LatencyHistogram cycleCloseToSignal   = new LatencyHistogram();
+    private volatile int barCloseUniverseSize = 0;
+    // Per-bar dispatch cap (BotMain.MAX_SIGNALS_PER_CYCLE): only dispatched ideas take a slot.
+    private final Object barCloseCapLock = new Object();
+    private long barCloseCapMs = Long.MIN_VALUE;
+    private int  barCloseCapSent = 0;
+    private final AtomicLong barCloseCapped = new AtomicLong(0);
+
+    // [v110 STREAM-DISPATCH] Mid-cycle dispatch of strong ideas (see generateSignals).
+    private static final boolean STREAM_DISPATCH =
+            !"0".equals(System.getenv().getOrDefault("STREAM_DISPATCH", "1"));
+    private static final double  STREAM_DISPATCH_MIN_PROB =
+            Double.parseDouble(System.getenv().getOrDefault("STREAM_DISPATCH_MIN_PROB", "70"));
+    private static final long    CYCLE_DEADLINE_MS =
+            Math.max(5, Long.parseLong(System.getenv().getOrDefault("CYCLE_DEADLINE_SEC", "30"))) * 1000L;
+    private final LatencyHistogram cycleIdeaInCycle   = new LatencyHistogram();
+    private final LatencyHistogram cycleStreamInCycle = new LatencyHistogram();
+    private final AtomicLong streamDispatched = new AtomicLong(0);
+    private final AtomicLong streamBlocked    = new AtomicLong(0);
+    private final AtomicLong streamCancelled  = new AtomicLong(0);
+    private volatile int lastCycleStreamed = 0;
 
     private final Map<String, Long> lastFetchTime = new ConcurrentHashMap<>();
 
@@ -339,6 +420,27 @@ public final class SignalSender {
             Map.entry("1d",  60 * 60_000L)
     );
 
+    // [v96 KLINE-WS 2026-10-19] Optional kline streams for PRIMARY_TF / HTF_FAST /
+    // HTF_SLOW. processPair pulled those three through REST getCached every cycle
+    // for every scanned pair — the dominant klines weight. With KLINE_WS=1 each
+    // pair's combined WS also subscribes <symbol>@kline_<iv>; closed-kline events
+    // extend a KlineStreamSeries and getCached serves it directly. REST is used
+    // only to seed a series and to reseed it after a detected gap.
+    private static final boolean KLINE_WS = "1".equals(System.getenv().getOrDefault("KLINE_WS", "0"));
+    private static final List<String> KLINE_WS_INTERVALS =
+            List.copyOf(new LinkedHashSet<>(List.of(PRIMARY_TF, HTF_FAST, HTF_SLOW)));
+    // kline events arrive every ~250ms while the symbol trades; 90s of silence = dead stream
+    private static final long KLINE_WS_MAX_SILENCE_MS = 90_000L;
+    private final Map<String, KlineStreamSeries> klineSeries = new ConcurrentHashMap<>();
+    // Weight accounting: a stream-served read counts as saved REST weight only when the
+    // TTL cache would have refetched at that moment (tracked by a virtual fetch time).
+    private final Map<String, Long> klineWsVirtualFetch = new ConcurrentHashMap<>();
+    private final AtomicLong klineWsServed      = new AtomicLong(0);
+    private final AtomicLong klineWsWeightSaved = new AtomicLong(0);
+    private final AtomicLong klineWsSeeds       = new AtomicLong(0);
+    private final AtomicLong klineWsGaps        = new AtomicLong(0);
+    private final long       klineWsSinceMs     = System.currentTimeMillis();
+
     private static final class CachedCandles {
         final List<com.bot.TradingCore.Candle> candles;
         final long fetchedAt;
@@ -357,6 +459,66 @@ public final class SignalSender {
     private volatile long         lastVolRefresh   = 0L;
     private static final long     VOL_REFRESH_MS   = 30 * 60_000L;
 
+    // [v97 BULK-WS 2026-10-19] All-market !markPrice@arr + !miniTicker@arr streams.
+    // Replace the premiumIndex (w=10) and ticker/24hr (w=40) polls: funding rate,
+    // next funding time, mark price, last price and 24h quote volume are kept
+    // continuously in MarketSlots. volume24hUSD is republished from the slots every
+    // BULK_VOL_PUBLISH_SEC, and refreshAllFundingRates reads funding from them.
+    // If the stream goes silent for BULK_WS_STALE_MS both fall back to the old
+    // REST polls automatically. BULK_MARKET_WS=0 disables the stream entirely.
+    private static final boolean BULK_MARKET_WS = !"0".equals(System.getenv().getOrDefault("BULK_MARKET_WS", "1"));
+    private static final long     BULK_WS_STALE_MS = 2 * 60_000L;
+    private static final long     BULK_VOL_PUBLISH_SEC = 30;
+    private final MarketSlots     marketSlots = new MarketSlots();
+    private volatile WebSocket    bulkMarketWebSocket = null;
+    private final AtomicLong      bulkFrames = new AtomicLong(0);
+    // OI stays REST (no all-market OI stream) but leaves the cycle thread: symbols are
+    // queued by refreshAllFundingRates and drained OI_BATCH at a time on oiBatcher,
+    // only while the shared weight budget is under half of RL_SAFE_WEIGHT (low priority).
+    // Runs whether or not BULK_MARKET_WS is on. Funding itself never waits for the
+    // batcher; only the OI value does. A head entry older than OI_MAX_WAIT_MS forces one
+    // batch even while weight is busy (up to the full RL_SAFE_WEIGHT), so a sustained
+    // busy scan can't starve OI indefinitely.
+    private static final int      OI_BATCH = 5;
+    private static final long     OI_MAX_WAIT_MS = envLong("OI_MAX_WAIT_SEC", 60) * 1000L;
+    private final Map<String, Long> oiPending = new ConcurrentHashMap<>();   // symbol → queued at
+    private final java.util.Queue<String> oiQueue = new ConcurrentLinkedQueue<>();
+    private final ScheduledExecutorService oiBatcher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "oi-batcher"); t.setDaemon(true); return t;
+    });
+
+    // [v98 L2-BOOK 2026-10-19] Local L2 books from <symbol>@depth@100ms diffs for the
+    // DEPTH_WS_TOP_N most liquid scanned pairs. refreshDepth5Snapshots polled depth
+    // every 120s for ten pairs, so bidDepth5/askDepth5 were mostly stale and OBI
+    // fell back to bookTicker L1. A synced book feeds processBookTicker (depth-5),
+    // checkLiquidity (spread / notional within bps) and BinanceTradeExecutor
+    // (best bid/ask). REST is used only for the sync snapshot (limit=100, weight 5)
+    // and again after a pu/u chain break.
+    private static final boolean DEPTH_WS = !"0".equals(System.getenv().getOrDefault("DEPTH_WS", "1"));
+    private static final int     DEPTH_WS_TOP_N = Integer.parseInt(System.getenv().getOrDefault("DEPTH_WS_TOP_N", "30"));
+    private static final long    DEPTH_BOOK_MAX_AGE_MS   = 5_000L;
+    private static final long    DEPTH_RESYNC_MIN_GAP_MS = 10_000L;
+    // L2 liquidity floor in checkLiquidity. Thresholds are untuned and have no backtest
+    // counterpart, so by default the gate only counts and logs what it would block
+    // (L2_LIQ_GATE=LOG); ON rejects, OFF skips it.
+    private static final String  L2_LIQ_GATE = System.getenv().getOrDefault("L2_LIQ_GATE", "LOG").trim().toUpperCase();
+    private static final double  LIQ_BAND_BPS = envDouble("LIQ_BAND_BPS", 10.0);    // notional band around mid
+    private static final double  L2_MAX_SPREAD_BPS_TOP  = envDouble("L2_MAX_SPREAD_BPS_TOP",  8.0);
+    private static final double  L2_MAX_SPREAD_BPS_ALT  = envDouble("L2_MAX_SPREAD_BPS_ALT",  20.0);
+    private static final double  L2_MAX_SPREAD_BPS_MEME = envDouble("L2_MAX_SPREAD_BPS_MEME", 40.0);
+    private static final double  L2_MIN_BAND_USD_TOP    = envDouble("L2_MIN_BAND_USD_TOP",    50_000.0);
+    private static final double  L2_MIN_BAND_USD_ALT    = envDouble("L2_MIN_BAND_USD_ALT",    10_000.0);
+    private static final double  L2_MIN_BAND_USD_MEME   = envDouble("L2_MIN_BAND_USD_MEME",   3_000.0);
+    private final AtomicLong     l2LiqWouldBlock = new AtomicLong(0);
+    private final Map<String, LocalOrderBook> localBooks = new ConcurrentHashMap<>();
+    private volatile Set<String> depthBookPairs = Set.of();
+    private final Set<String>    depthSyncPending = ConcurrentHashMap.newKeySet();
+    private final Map<String, Long> depthSyncLastMs = new ConcurrentHashMap<>();
+    private final AtomicLong     depthResyncs = new AtomicLong(0);
+    private final ExecutorService depthSyncPool = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "depth-sync"); t.setDaemon(true); return t;
+    });
+
     // Баланс для компаундинга
     // [BUG-FIX] Убран хардкод $1000. Теперь читаем из env ACCOUNT_BALANCE (по умолчанию 100).
     // Установи в Railway: ACCOUNT_BALANCE=500 (или любая сумма которую ты реально торгуешь).
@@ -378,6 +540,7 @@ public final class SignalSender {
     private static final int    BINANCE_WEIGHT_PREMIUM_INDEX = 10;
     private static final int    BINANCE_WEIGHT_OPEN_INTEREST = 1;
     private static final int    BINANCE_WEIGHT_DEPTH10       = 2;
+    private static final int    BINANCE_WEIGHT_DEPTH100      = 5;
     private static final int    BINANCE_WEIGHT_SIGNED_LIGHT  = 1;
     private static final int    BINANCE_WEIGHT_BALANCE       = 5;
 
@@ -412,6 +575,35 @@ public final class SignalSender {
     private volatile boolean nlLoaded = false;
     private volatile boolean nlAnnounced = false; // one-time-per-boot "catcher active" status sent?
 
+    // [v106 NL-WS 2026-10-19] A never-seen USDT symbol on the bulk markPrice/miniTicker
+    // stream is confirmed with one exchangeInfo call (at most once per NL_CONFIRM_MIN_MS)
+    // and armed right away instead of on the next scan cycle. Recording symbols are
+    // SUBSCRIBEd on one dedicated socket (@aggTrade, @bookTicker, @markPrice@1s,
+    // @depth10@500ms): ticks go to the binary TickJournal (the TICK_JOURNAL one when on,
+    // otherwise a private one under NEW_LISTING_TICK_DIR) and 1m rows are built locally
+    // by NewListingTape. REST is left with one kline backfill per window (re-run after a
+    // reconnect gap) and one OI read per cycle; nlRecordOne stays as the fallback while
+    // the stream is down or silent for NL_WS_STALE_MS. NEW_LISTING_WS=0 → old REST path.
+    private static final boolean NL_WS = !"0".equals(System.getenv().getOrDefault("NEW_LISTING_WS", "1"));
+    private static final long    NL_WS_STALE_MS    = 2 * 60_000L;
+    private static final long    NL_CONFIRM_MIN_MS = 60_000L;
+    private static final String  NL_TICK_DIR =
+            System.getenv().getOrDefault("NEW_LISTING_TICK_DIR", "./data/nl_ticks").trim();
+    private final Map<String, NewListingTape> nlTapes = new ConcurrentHashMap<>();
+    // Stream-detected symbols awaiting exchangeInfo; ignored = seen on the stream but not TRADING
+    // (pre-trading / settling) — the per-cycle diff still arms them once they go live.
+    private final Map<String, Long> nlPending = new ConcurrentHashMap<>();
+    private final Set<String> nlStreamIgnored = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean nlConfirmQueued = new AtomicBoolean(false);
+    private volatile long nlLastConfirmMs = 0;
+    private volatile WebSocket nlWebSocket = null;
+    private final AtomicBoolean nlWsConnecting = new AtomicBoolean(false);
+    private volatile com.bot.TickJournal nlJournal = null;
+    private final AtomicInteger nlSubscribeId = new AtomicInteger(100);
+    private final Object nlSendLock = new Object();
+    private final AtomicLong nlWsFrames = new AtomicLong(0), nlWsRows = new AtomicLong(0);
+    private final AtomicLong nlRestFallbacks = new AtomicLong(0), nlStreamDetected = new AtomicLong(0);
+
     // [v86.98] Optional Supabase sink — mirror micro-records to a queryable Postgres DB in
     // ADDITION to ./data (./data stays the source of truth). Off unless both env vars are set,
     // so the bot still works with zero config. Writes via PostgREST with the anon key (the
@@ -437,7 +629,17 @@ public final class SignalSender {
     private static final String LQ_HEADER = "# liq_events v1 | symbol|order_time|side|price|qty|notional|snap_ms";
     private static final int LQ_FLUSH_MAX  = 2000;   // cap rows written per cycle
     private static final int LQ_BUFFER_MAX = 20000;  // backpressure: drop new beyond this
-    private final java.util.Queue<org.json.JSONObject> liqBuffer = new java.util.concurrent.ConcurrentLinkedQueue<>();
+    private final LiqEventRing liqBuffer = new LiqEventRing(LQ_BUFFER_MAX);   // [v105] primitive records
+    // [v101 TICK-JOURNAL] Raw aggTrade / bookTicker / forceOrder events → binary mmap journal
+    // (TICK_JOURNAL=1). offer() is a lock-free ring write; the file I/O runs on its own thread.
+    private final com.bot.TickJournal tickJournal;
+
+    // [v102 REPLAY] Offline instance for TickReplay: no schedulers, no WebSockets, no REST
+    // (sendBinanceRequest returns null), HOT rescans counted but not executed. The tick
+    // path reads time through nowMs() so a replay can drive it with a simulated clock.
+    private final boolean offline;
+    private volatile java.util.function.LongSupplier clock = System::currentTimeMillis;
+    private long nowMs() { return clock.getAsLong(); }
     private volatile boolean lqAnnounced = false;
     private final AtomicLong liqRawCount = new AtomicLong(0); // [v87.2] всего forceOrder-событий получено (до фильтра) — диагностика
     private volatile long    liqLastEventMs = 0;             // [v87.2] время последнего пойманного события
@@ -540,6 +742,7 @@ public final class SignalSender {
     }
 
     private HttpResponse<String> sendBinanceRequest(HttpRequest request, int weight) throws Exception {
+        if (offline) return null;   // [v102] replay never touches the network
         if (!rlAcquire(weight)) return null;
         try {
             HttpResponse<String> resp = http.send(request, HttpResponse.BodyHandlers.ofString());
@@ -595,28 +798,64 @@ public final class SignalSender {
     private final AtomicLong totalFetches   = new AtomicLong(0);
     private final AtomicLong cacheHits      = new AtomicLong(0);
     private final AtomicLong earlySignals   = new AtomicLong(0);
-    private final AtomicLong blockedLiq     = new AtomicLong(0);
-    private final AtomicLong blockedCorr    = new AtomicLong(0);
-    private final AtomicLong blockedStaleRt = new AtomicLong(0);
-    private final AtomicLong blockedProfit  = new AtomicLong(0);
-    private final AtomicLong blockedEarlyConf = new AtomicLong(0);
-    private final AtomicLong blockedOptConf   = new AtomicLong(0);
-    private final AtomicLong blockedVpoc      = new AtomicLong(0);
-    private final AtomicLong blockedFinalConf = new AtomicLong(0);
-    private final AtomicLong blockedIsc       = new AtomicLong(0);
+    // [v112 REJECTS] processPair block counters — striped per reason id (see RejectCounters).
+    // [v66] [DIAG] shows per-cycle deltas via blocks.snapshotAndReset(); lifetime via total().
+    private final RejectCounters blocks = new RejectCounters();
+    private final int blockedLiq       = blocks.id("liq");
+    private final int blockedCorr      = blocks.id("corr");
+    private final int blockedStaleRt   = blocks.id("stale_rt");
+    private final int blockedProfit    = blocks.id("profit");
+    private final int blockedEarlyConf = blocks.id("early");
+    private final int blockedOptConf   = blocks.id("opt");
+    private final int blockedVpoc      = blocks.id("vpoc");
+    private final int blockedFinalConf = blocks.id("final");
+    private final int blockedIsc       = blocks.id("isc");
     private final AtomicLong gicHardHeadwind  = new AtomicLong(0);
-    // [v66] Per-cycle diagnostic snapshots — deltas, not cumulative. Lets [DIAG] log
-    // show what blocked DURING this cycle instead of totals since startup.
-    private long prevLiq = 0, prevCorr = 0, prevStale = 0, prevProfit = 0;
-    private long prevEarlyConf = 0, prevOptConf = 0, prevVpoc = 0, prevFinalConf = 0, prevIsc = 0;
     private final AtomicLong wsMessageCount = new AtomicLong(0);
+    // [v104] Per-stream latency: exchange→receive, receive→processed, processed→signal.
+    private final StreamLatency streamLatency = new StreamLatency();
+    // [v104] Processed time of the tick behind each buffered EARLY_TICK candidate.
+    private final Map<String, Long> earlyTickOriginMs = new ConcurrentHashMap<>();
     private final AtomicLong udsEventsCount = new AtomicLong(0);
     // fetchPool DiscardOldestPolicy counter — non-zero value
     // indicates sustained overload (queue full, old tasks being dropped).
     // Alert if > 0 per scanCycle.
     private final AtomicLong rejectedFetches = new AtomicLong(0);
+    // [v111] Data-quality ratio stale/seen. Since the liquidity and DE pre-filter gates run
+    // before the fetch, both counts cover only pairs that passed them: a pair failing
+    // liquidity is counted as liq, not stale, and a pre-filter reject never reaches seen.
     private final AtomicInteger cyclePairsSeen = new AtomicInteger(0);
     private final AtomicInteger cyclePairsStale = new AtomicInteger(0);
+    // [v111 GATES] processPair gate chain: candle-free gates run before the klines
+    // fetch in measured cost/selectivity order; the rest are timed in place.
+    private final GatePipeline<GateCtx> scanGates = buildScanGates();
+
+    /** Inputs of the candle-free processPair gates. */
+    private static final class GateCtx {
+        final String pair;
+        final com.bot.DecisionEngineMerged.CoinCategory cat;
+        final long now;
+        GateCtx(String pair, com.bot.DecisionEngineMerged.CoinCategory cat, long now) {
+            this.pair = pair; this.cat = cat; this.now = now;
+        }
+    }
+
+    private GatePipeline<GateCtx> buildScanGates() {
+        return new GatePipeline<GateCtx>()
+                .gate("chronic_stale", g -> {
+                    if (!isChronicallyStale(g.pair)) return true;
+                    cyclePairsStale.incrementAndGet();
+                    return false;
+                })
+                .gate("blocklist", g -> !GARBAGE_COIN_BLOCKLIST.contains(g.pair))
+                .gate("hard_blacklist", g -> !isc.isHardBlacklisted(g.pair))
+                .gate("liquidity", g -> {
+                    if (checkLiquidity(g.pair, g.cat)) return true;
+                    blocks.inc(blockedLiq);
+                    return false;
+                })
+                .gate("de_prefilter", g -> decisionEngine.preFilter(g.pair, g.cat, g.now) == null);
+    }
 
     // [v78.1] Chronic stale tracking — пары stale в 3+ из 5 последних минут
     // получают 30-минутный skip. Освобождает scan budget для активных пар.
@@ -725,9 +964,18 @@ public final class SignalSender {
     public SignalSender(com.bot.TelegramBotSender bot,
                         com.bot.GlobalImpulseController sharedGIC,
                         com.bot.InstitutionalSignalCore sharedISC) {
+        this(bot, sharedGIC, sharedISC, false);
+    }
+
+    SignalSender(com.bot.TelegramBotSender bot,
+                 com.bot.GlobalImpulseController sharedGIC,
+                 com.bot.InstitutionalSignalCore sharedISC,
+                 boolean offline) {
         this.bot = bot;
         this.gic = sharedGIC;
         this.isc = sharedISC;
+        this.offline = offline;
+        this.tickJournal = offline ? null : com.bot.TickJournal.fromEnv();
         // OOM FIX — httpIoExecutor.
         // Executors.newFixedThreadPool() uses LinkedBlockingQueue (UNBOUNDED).
         // Under Binance API lag: tasks pile up infinitely → Railway OOM crash.
@@ -789,6 +1037,14 @@ public final class SignalSender {
         this.OBI_THRESHOLD    = envDouble("OBI_THRESHOLD", 0.26);
         this.DELTA_BLOCK_CONF = envDouble("DELTA_BLOCK_CONF", 73.0);
         this.ENABLE_EARLY_TICK = envInt("ENABLE_EARLY_TICK", 1) == 1;
+        // [v100] Coalesced EARLY_TICK: ticks only mark the pair dirty; the chain runs at
+        // most once per EARLY_TICK_EVAL_MS per pair, or at once on a ≥TRIGGER_PCT jump.
+        this.EARLY_TICK_COALESCE    = envInt("EARLY_TICK_COALESCE", 1) == 1;
+        this.EARLY_TICK_EVAL_MS     = Math.max(50L, envLong("EARLY_TICK_EVAL_MS", 250));
+        this.EARLY_TICK_TRIGGER_PCT = envDouble("EARLY_TICK_TRIGGER_PCT", 0.003);
+        // Each slot is evaluated at most once per EARLY_TICK_BAR_MS bar of tick time, by
+        // whichever of the WS thread (jump trigger) and the evaluator claims it first.
+        this.EARLY_TICK_BAR_MS      = Math.max(EARLY_TICK_EVAL_MS, envLong("EARLY_TICK_BAR_MS", EARLY_TICK_EVAL_MS));
         // [PATCH 2026-04-28] MAX_SCAN_PAIRS 25 → 40. Раньше TOP_N=40 в Railway env
         // и MAX_SCAN_PAIRS_PER_CYCLE=25 (хардкод) расходились — бот реально
         // сканил только 25 пар из 40, остальные 15 жрали WS-коннекты вхолостую.
@@ -807,6 +1063,12 @@ public final class SignalSender {
         this.decisionEngine.setPumpHunter(this.pumpHunter);
         this.decisionEngine.setGIC(this.gic);
         this.decisionEngine.setIsc(this.isc); // chain-pause gate uses ISC's chain state
+        if (FP_TICK) {
+            this.decisionEngine.setFootprintSource((sym, barOpen) -> {
+                TickFootprint fp = footprints.get(sym);
+                return fp != null ? fp.bar(barOpen, nowMs()) : null;
+            });
+        }
 
         // [FIX] Pre-load garbage coins into PumpHunter so it skips them entirely.
         // Prevents UAIUSDT/BASUSDT noise events from spamming logs every 90s.
@@ -856,6 +1118,20 @@ public final class SignalSender {
                 }
         );
 
+        if (offline) {
+            System.out.printf("[SignalSender v7.0] OFFLINE (replay) TICK_HISTORY=%d EARLY_TICK=%s%n",
+                    TICK_HISTORY, ENABLE_EARLY_TICK ? "ON" : "OFF");
+            return;
+        }
+
+        // [v104] Latency windows + p99 alerts; /metrics when METRICS_PORT > 0.
+        if ("1".equals(System.getenv().getOrDefault("LAT_ALERT_TG", "0")) && bot != null) {
+            streamLatency.setAlertSink(msg -> bot.sendMessageAsync("⏱ " + msg));
+        }
+        streamLatency.start(envInt("METRICS_PORT", 0), () ->
+                "# TYPE bot_ws_messages_total counter\nbot_ws_messages_total " + wsMessageCount.get() + "\n"
+                        + "# TYPE bot_ws_connections gauge\nbot_ws_connections " + wsMap.size() + "\n");
+
         // User Data Stream
         if (!API_KEY.isBlank()) {
             // [v86.29] UDS (account-event WebSocket) is now OPT-IN (default OFF). On real it
@@ -887,6 +1163,17 @@ public final class SignalSender {
         // [ДЫРА №2] Liquidation WebSocket — глобальный поток, без API ключа
         udsExecutor.schedule(this::connectLiquidationStream, 8, TimeUnit.SECONDS);
 
+        // [v97 BULK-WS] All-market mark-price + mini-ticker stream, volume publisher, OI batcher
+        if (BULK_MARKET_WS) {
+            udsExecutor.schedule(this::connectBulkMarketStream, 4, TimeUnit.SECONDS);
+            wsWatcher.scheduleAtFixedRate(this::publishVolumeFromSlots,
+                    BULK_VOL_PUBLISH_SEC, BULK_VOL_PUBLISH_SEC, TimeUnit.SECONDS);
+        }
+        oiBatcher.scheduleWithFixedDelay(this::drainOiQueue, 5, 2, TimeUnit.SECONDS);
+
+        // [v98 L2-BOOK] Executor reads best bid/ask from the local book when it is live
+        if (DEPTH_WS) com.bot.BinanceTradeExecutor.setLocalBookSource(this::getLocalBestBidAsk);
+
         // WS health check
         wsWatcher.scheduleAtFixedRate(this::checkWsHealth, 30, 30, TimeUnit.SECONDS);
 
@@ -898,6 +1185,23 @@ public final class SignalSender {
         // Drains earlyTickBuffer, sorts candidates by probability (highest first),
         // dispatches TOP-1 per pair. Prevents burst spam of 5+ signals on the same pair.
         wsWatcher.scheduleAtFixedRate(this::flushEarlyTickBuffer, 2, 2, TimeUnit.SECONDS);
+        if (ENABLE_EARLY_TICK && EARLY_TICK_COALESCE) {
+            // [v100] Dirty-pair evaluator. Own thread: the chain may hit the candle cache / REST.
+            earlyTickEvaluator.scheduleWithFixedDelay(this::evaluateDirtyEarlyTicks,
+                    EARLY_TICK_EVAL_MS, EARLY_TICK_EVAL_MS / 2, TimeUnit.MILLISECONDS);
+        }
+
+        // [v96] Kline-WS REST savings report — hourly
+        if (KLINE_WS) {
+            wsWatcher.scheduleAtFixedRate(() -> LOG.info("[KLINE-WS] " + getKlineWsStats()),
+                    60, 60, TimeUnit.MINUTES);
+        }
+
+        // [v116 ENGINE-STATE] Per-symbol engine state wheel: one slot per minute, idle symbols evicted
+        wsWatcher.scheduleAtFixedRate(() -> {
+            try { decisionEngine.gcSymbolState(); }
+            catch (Throwable t) { LOG.warning("[ENGINE-STATE] gc: " + t.getMessage()); }
+        }, 60, 60, TimeUnit.SECONDS);
 
         // HotPair rescan monitor — logs hotPairTotalTriggers every 10 min
         wsWatcher.scheduleAtFixedRate(() -> {
@@ -1012,7 +1316,9 @@ public final class SignalSender {
         if (rlIpBanned) rlIpBanned = false;
 
         if (volume24hUSD.isEmpty() || System.currentTimeMillis() - lastVolRefresh > VOL_REFRESH_MS) {
-            refreshVolume24h();
+            // [v97] Fresh mini-ticker stream → volumes come from the slots, no 40-weight poll.
+            if (isBulkStreamFresh()) publishVolumeFromSlots();
+            else refreshVolume24h();
             lastVolRefresh = System.currentTimeMillis();
         }
 
@@ -1031,8 +1337,11 @@ public final class SignalSender {
         if (System.currentTimeMillis() - lastFundingRefresh > FUNDING_REFRESH_MS) {
             refreshAllFundingRates();
             lastFundingRefresh = System.currentTimeMillis();
-            // Пауза после funding refresh (premiumIndex + 100× OI = ~700 weight)
-            try { Thread.sleep(5000); } catch (InterruptedException ignored) {}
+            // Пауза после funding refresh (premiumIndex + 100× OI = ~700 weight).
+            // [v97] OI now drains on oi-batcher and funding may be streamed — pause only on the REST path.
+            if (!isBulkStreamFresh()) {
+                try { Thread.sleep(5000); } catch (InterruptedException ignored) {}
+            }
         }
 
         correlationGuard.resetCycle();
@@ -1044,20 +1353,66 @@ public final class SignalSender {
             if (btc5m != null && btc5m.size() >= 10) gic.updateFast(btc5m);
         } catch (Exception ignored) {}
 
+        // [v109] Bar-close mode: the cycle keeps the housekeeping above; pairs are
+        // analysed by the scheduler as their bars close.
+        if (BarCloseScheduler.ENABLED && !offline) {
+            barClose.start();
+            return Collections.emptyList();
+        }
+
         int pairBudget = computePairBudget();
         List<String> scanPairs = selectPairsForScan(pairBudget);
-        List<CompletableFuture<com.bot.DecisionEngineMerged.TradeIdea>> futures = new ArrayList<>();
+        // [v110 STREAM-DISPATCH] Completion order instead of waiting on each future in
+        // submit order: an idea ≥ STREAM_DISPATCH_MIN_PROB goes to the Dispatcher the
+        // moment its pair finishes; the rest are returned for the end-of-cycle ranking
+        // in runCycle. Pairs still running at CYCLE_DEADLINE_MS are cancelled. Streaming
+        // stops once MAX_SIGNALS_PER_CYCLE ideas were dispatched (blocked ones don't count);
+        // streamed ideas skip runCycle's best-first ranking and long/short interleave.
+        long cycleStartNs = System.nanoTime();
+        CompletionService<com.bot.DecisionEngineMerged.TradeIdea> completed = new ExecutorCompletionService<>(fetchPool);
+        List<Future<com.bot.DecisionEngineMerged.TradeIdea>> futures = new ArrayList<>(scanPairs.size());
         for (String pair : scanPairs) {
-            futures.add(CompletableFuture.supplyAsync(() -> processPair(pair), fetchPool));
+            try {
+                futures.add(completed.submit(() -> {
+                    com.bot.DecisionEngineMerged.TradeIdea idea = processPair(pair);
+                    cycleCloseToAnalysed.record(sinceLastCloseMs() * 1_000_000L);   // [v109]
+                    return idea;
+                }));
+            } catch (RejectedExecutionException ignored) {}
         }
 
         List<com.bot.DecisionEngineMerged.TradeIdea> result = new ArrayList<>();
-        for (CompletableFuture<com.bot.DecisionEngineMerged.TradeIdea> f : futures) {
+        int streamed = 0, cancelled = 0;   // streamed = handled mid-cycle (dispatched or blocked)
+        long sentBefore = streamDispatched.get();
+        long deadlineNs = cycleStartNs + CYCLE_DEADLINE_MS * 1_000_000L;
+        for (int taken = 0; taken < futures.size(); taken++) {
+            Future<com.bot.DecisionEngineMerged.TradeIdea> f;
             try {
-                com.bot.DecisionEngineMerged.TradeIdea idea = f.get(18, TimeUnit.SECONDS);
-                if (idea != null) result.add(idea);
-            } catch (Exception ignored) {}
+                long waitNs = deadlineNs - System.nanoTime();
+                f = waitNs > 0 ? completed.poll(waitNs, TimeUnit.NANOSECONDS) : null;
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (f == null) break;
+            com.bot.DecisionEngineMerged.TradeIdea idea;
+            try { idea = f.get(); } catch (Exception ignored) { continue; }
+            if (idea == null) continue;
+            cycleIdeaInCycle.record(System.nanoTime() - cycleStartNs);
+            if (STREAM_DISPATCH && idea.probability >= STREAM_DISPATCH_MIN_PROB
+                    && streamDispatched.get() - sentBefore < com.bot.BotMain.MAX_SIGNALS_PER_CYCLE
+                    && dispatchStreamed(idea)) {
+                cycleStreamInCycle.record(System.nanoTime() - cycleStartNs);
+                streamed++;
+                continue;
+            }
+            result.add(idea);
+        }
+        for (Future<com.bot.DecisionEngineMerged.TradeIdea> f : futures) {
+            if (!f.isDone() && f.cancel(true)) cancelled++;
         }
+        lastCycleStreamed = (int) (streamDispatched.get() - sentBefore);
+        streamCancelled.addAndGet(cancelled);
 
         result.sort(Comparator.comparingDouble(
                 (com.bot.DecisionEngineMerged.TradeIdea i) -> i.probability).reversed());
@@ -1068,28 +1423,35 @@ public final class SignalSender {
         // [v66] Per-cycle diagnostic — prints WHY candidates die. Without this, "No signals"
         // is a black hole: you can't tell if 0/27 reached analyze, or 27/27 were rejected
         // silently in upstream gates. Produces one-line summary per cycle with block deltas.
-        long dLiq = blockedLiq.get()       - prevLiq;
-        long dCorr = blockedCorr.get()     - prevCorr;
+        // [v112 REJECTS] One snapshot of all block counters: each increment lands in exactly
+        // one cycle, including those racing with this read (they go to the next one).
+        RejectCounters.Snapshot blk = blocks.snapshotAndReset(System.currentTimeMillis());
+        long dLiq = blk.get(blockedLiq);
+        long dCorr = blk.get(blockedCorr);
         // [v67 FIX] cyclePairsStale is per-cycle (reset at line 960), not cumulative like
-        // blockedLiq/blockedCorr. Using delta arithmetic with prevStale produced negative values.
-        // Read raw cycle value; don't update prevStale below.
+        // blockedLiq/blockedCorr — read the raw cycle value.
         long dStale = cyclePairsStale.get();
-        long dProfit = blockedProfit.get() - prevProfit;
-        long dEarly = blockedEarlyConf.get() - prevEarlyConf;
-        long dOpt = blockedOptConf.get()   - prevOptConf;
-        long dVpoc = blockedVpoc.get()     - prevVpoc;
-        long dFinal = blockedFinalConf.get() - prevFinalConf;
-        long dIsc = blockedIsc.get()       - prevIsc;
-        long droppedInAnalyze = scanPairs.size() - result.size()
+        long dProfit = blk.get(blockedProfit);
+        long dEarly = blk.get(blockedEarlyConf);
+        long dOpt = blk.get(blockedOptConf);
+        long dVpoc = blk.get(blockedVpoc);
+        long dFinal = blk.get(blockedFinalConf);
+        long dIsc = blk.get(blockedIsc);
+        long droppedInAnalyze = scanPairs.size() - result.size() - streamed - cancelled
                 - dLiq - dCorr - dStale - dProfit - dEarly - dOpt - dVpoc - dFinal - dIsc;
-        System.out.printf("[DIAG] scan=%d kept=%d | analyze_null=%d stale=%d liq=%d corr=%d prof=%d early=%d opt=%d vpoc=%d finConf=%d isc=%d%n",
-                scanPairs.size(), result.size(), Math.max(0, droppedInAnalyze),
+        System.out.printf("[DIAG] scan=%d kept=%d streamed=%d cut=%d | analyze_null=%d stale=%d liq=%d corr=%d prof=%d early=%d opt=%d vpoc=%d finConf=%d isc=%d%n",
+                scanPairs.size(), result.size(), streamed, cancelled, Math.max(0, droppedInAnalyze),
                 dStale, dLiq, dCorr, dProfit, dEarly, dOpt, dVpoc, dFinal, dIsc);
         // [v67] Show WHY analyze() returned null — top reject reasons from DecisionEngineMerged.
         String rejectTrace = com.bot.DecisionEngineMerged.getAndResetRejectTrace();
         if (!rejectTrace.isEmpty()) {
             LOG.info("[DIAG-ANALYZE] " + rejectTrace);
         }
+        // [v111 GATES] Per-gate calls / reject% / avg µs this cycle, pre-fetch gates in their current order.
+        String gateTable = scanGates.diagTable();
+        if (!gateTable.isEmpty()) {
+            LOG.info("[DIAG-GATES] " + gateTable);
+        }
         // Print calibrator state every cycle so we see at a glance WHY signals
         // are being blocked (DISABLED / BIAS-RISK / mature, etc.).
         try {
@@ -1099,14 +1461,151 @@ public final class SignalSender {
         } catch (Throwable ignored) {
             // Health method is optional — older DE versions may not expose it.
         }
-        prevLiq = blockedLiq.get(); prevCorr = blockedCorr.get(); // prevStale: no-op — per-cycle
-        prevProfit = blockedProfit.get(); prevEarlyConf = blockedEarlyConf.get();
-        prevOptConf = blockedOptConf.get(); prevVpoc = blockedVpoc.get();
-        prevFinalConf = blockedFinalConf.get(); prevIsc = blockedIsc.get();
 
         return result;
     }
 
+    // ─── [v110 STREAM-DISPATCH] ───────────────────────────────────────
+
+    /**
+     * Dispatches a strong idea mid-cycle, as runCycle would at the end (Dispatcher,
+     * then ISC register / unregister). False = no Dispatcher yet → keep it for the batch.
+     * A blocked idea counts as handled: the batch would only hit the same gate again.
+     * Only dispatched ideas count against the per-cycle cap.
+     */
+    private boolean dispatchStreamed(com.bot.DecisionEngineMerged.TradeIdea idea) {
+        com.bot.BotMain.Dispatcher disp = com.bot.BotMain.Dispatcher.getInstance();
+        if (disp == null) return false;
+        com.bot.BotMain.Dispatcher.Result res = disp.dispatch(idea, "CYCLE_STREAM");
+        if (res.dispatched) {
+            isc.registerSignal(idea);
+            noteCycleSignal();
+            streamDispatched.incrementAndGet();
+        } else {
+            isc.unregisterSignal(idea);
+            streamBlocked.incrementAndGet();
+            LOG.info("[CYCLE-BLOCK] " + idea.symbol + " " + idea.side + ": " + res.reason + " (streamed)");
+        }
+        return true;
+    }
+
+    /** Ideas the last cycle already dispatched mid-cycle (count against runCycle's per-cycle cap). */
+    public int lastCycleStreamed() { return lastCycleStreamed; }
+
+    /** [v110] "ideas … | streamed … dispatched=… blocked=… cancelled=…"; time in cycle in ms. Empty before the first idea. */
+    public String getStreamDispatchStats() {
+        if (cycleIdeaInCycle.count() == 0 && streamCancelled.get() == 0) return "";
+        return String.format("ideas %s | streamed %s dispatched=%d blocked=%d cancelled=%d (bar=%.0f%% deadline=%ds)",
+                msDist(cycleIdeaInCycle), msDist(cycleStreamInCycle), streamDispatched.get(), streamBlocked.get(),
+                streamCancelled.get(), STREAM_DISPATCH_MIN_PROB, CYCLE_DEADLINE_MS / 1000);
+    }
+
+    private static String msDist(LatencyHistogram h) {
+        if (h.count() == 0) return "n=0";
+        return String.format("n=%d p50=%.0fms p99=%.0fms max=%.0fms",
+                h.count(), h.percentile(50) / 1e6, h.percentile(99) / 1e6, h.max() / 1e6);
+    }
+
+    // ─── [v109 BAR-CLOSE] ─────────────────────────────────────────────
+
+    /** Milliseconds since the last PRIMARY_TF close. */
+    private static long sinceLastCloseMs() {
+        long now = System.currentTimeMillis();
+        return now - (now / PRIMARY_TF_MS) * PRIMARY_TF_MS;
+    }
+
+    /** Scan universe at a close; also closes the previous bar's data-quality window. */
+    private List<String> barCloseUniverse() {
+        if (isRlBanned()) return List.of();
+        if (barCloseUniverseSize > 0) refreshCycleQuality(barCloseUniverseSize);
+        cyclePairsSeen.set(0);
+        cyclePairsStale.set(0);
+        List<String> pairs = selectPairsForScan(computePairBudget());
+        barCloseUniverseSize = pairs.size();
+        return pairs;
+    }
+
+    private com.bot.DecisionEngineMerged.TradeIdea analyzeOnClose(String pair, long closeMs) {
+        dropPreCloseCache(pair, closeMs);
+        return processPair(pair);
+    }
+
+    /**
+     * Drops cached REST klines fetched before the close: the 1h TTL is 5 min, so a
+     * series from :58 would otherwise hide the bar that just closed.
+     */
+    private void dropPreCloseCache(String pair, long closeMs) {
+        for (String iv : KLINE_WS_INTERVALS) {
+            long ivMs = klineIntervalMs(iv);
+            if (ivMs <= 0) continue;
+            String key = pair + "_" + iv;
+            CachedCandles c = candleCache.get(key);
+            if (c != null && !c.candles.isEmpty()
+                    && c.candles.get(c.candles.size() - 1).openTime < (closeMs / ivMs) * ivMs) {
+                candleCache.remove(key, c);
+            }
+        }
+    }
+
+    /**
+     * Same path as a cycle-mode idea in BotMain.runCycle: Dispatcher, then ISC, at most
+     * MAX_SIGNALS_PER_CYCLE dispatched per closed bar. Ideas arrive as analyses finish, so
+     * the cap keeps the first ones rather than the best ones of the bar.
+     */
+    private void dispatchOnClose(String pair, long closeMs, com.bot.DecisionEngineMerged.TradeIdea idea) {
+        com.bot.BotMain.Dispatcher disp = com.bot.BotMain.Dispatcher.getInstance();
+        if (disp == null) return;
+        if (!claimBarCloseSlot(closeMs)) {
+            barCloseCapped.incrementAndGet();
+            LOG.info("[BAR-CLOSE-CAP] " + pair + " " + idea.side + ": per-bar cap "
+                    + com.bot.BotMain.MAX_SIGNALS_PER_CYCLE + " reached");
+            return;
+        }
+        com.bot.BotMain.Dispatcher.Result res = disp.dispatch(idea, "BAR_CLOSE");
+        if (res.dispatched) {
+            isc.registerSignal(idea);
+            barClose.noteSignal(closeMs, System.currentTimeMillis());
+        } else {
+            releaseBarCloseSlot(closeMs);
+            isc.unregisterSignal(idea);
+            LOG.info("[BAR-CLOSE-BLOCK] " + pair + " " + idea.side + ": " + res.reason);
+        }
+    }
+
+    /** Takes one of the bar's dispatch slots; a newer close resets the count. */
+    private boolean claimBarCloseSlot(long closeMs) {
+        synchronized (barCloseCapLock) {
+            if (closeMs > barCloseCapMs) { barCloseCapMs = closeMs; barCloseCapSent = 0; }
+            else if (closeMs < barCloseCapMs) return false;   // a late idea from the previous bar
+            if (barCloseCapSent >= com.bot.BotMain.MAX_SIGNALS_PER_CYCLE) return false;
+            barCloseCapSent++;
+            return true;
+        }
+    }
+
+    private void releaseBarCloseSlot(long closeMs) {
+        synchronized (barCloseCapLock) {
+            if (closeMs == barCloseCapMs && barCloseCapSent > 0) barCloseCapSent--;
+        }
+    }
+
+    /** True once ANALYSIS_MODE=BAR_CLOSE has taken over pair analysis from the cycle. */
+    public boolean isBarCloseMode() { return barClose.isRunning(); }
+
+    /** [v109] Cycle mode: a dispatched idea, timed from the last PRIMARY_TF close. */
+    public void noteCycleSignal() { cycleCloseToSignal.record(sinceLastCloseMs() * 1_000_000L); }
+
+    /** [v109] "mode=… close→analysed … | close→signal …" for the active mode; empty until measured. */
+    public String getBarCloseStats() {
+        if (barClose.isRunning()) {
+            String s = barClose.stats();
+            return s.isEmpty() ? "" : "mode=BAR_CLOSE " + s + " capped=" + barCloseCapped.get();
+        }
+        if (cycleCloseToAnalysed.count() == 0) return "";
+        return "mode=CYCLE close→analysed " + BarCloseScheduler.dist(cycleCloseToAnalysed)
+                + " | close→signal " + BarCloseScheduler.dist(cycleCloseToSignal);
+    }
+
     private void refreshCycleQuality(int requestedPairs) {
         int seen = cyclePairsSeen.get();
         int stale = cyclePairsStale.get();
@@ -1152,23 +1651,17 @@ public final class SignalSender {
         return base;
     }
     private List<String> selectPairsForScan(int budget) {
+        // [v108 SCAN-FUNNEL] Whole-universe stage-1 screen on the bulk-stream slots;
+        // only its top-K reach processPair. Legacy top-N-by-volume while the stream
+        // is stale or the sample rings have not yet spanned 5 minutes.
+        if (ScanFunnel.ENABLED) {
+            long now = System.currentTimeMillis();
+            if (isBulkStreamFresh() && scanFunnel.warm(now)) return screenPairsForScan(budget, now);
+            scanFunnel.noteFallback();
+        }
         if (cachedPairs.isEmpty()) return List.of();
         List<String> sorted = new ArrayList<>(cachedPairs);
-        sorted.removeIf(pair -> {
-            if (GARBAGE_COIN_BLOCKLIST.contains(pair)) return true;
-            if (isc.isHardBlacklisted(pair)) return true;
-            if (!passesTradeTier(pair)) return true;   // [v86.36] liquidity-tier filter
-            com.bot.DecisionEngineMerged.AssetType at =
-                    com.bot.DecisionEngineMerged.detectAssetType(pair);
-            if (at != com.bot.DecisionEngineMerged.AssetType.CRYPTO
-                    && at != com.bot.DecisionEngineMerged.AssetType.UNKNOWN) {
-                return true;
-            }
-            for (int i = 0; i < pair.length(); i++) {
-                if (pair.charAt(i) > 127) return true;
-            }
-            return false;
-        });
+        sorted.removeIf(this::excludedFromScan);
         sorted.sort((a, b) -> Double.compare(
                 volume24hUSD.getOrDefault(b, 0.0),
                 volume24hUSD.getOrDefault(a, 0.0)));
@@ -1176,6 +1669,56 @@ public final class SignalSender {
         return new ArrayList<>(sorted.subList(0, budget));
     }
 
+    /** Pair filters shared by both scan paths: blocklists, trade tier, asset type, non-ASCII. */
+    private boolean excludedFromScan(String pair) {
+        if (GARBAGE_COIN_BLOCKLIST.contains(pair)) return true;
+        if (isc.isHardBlacklisted(pair)) return true;
+        if (!passesTradeTier(pair)) return true;   // [v86.36] liquidity-tier filter
+        com.bot.DecisionEngineMerged.AssetType at =
+                com.bot.DecisionEngineMerged.detectAssetType(pair);
+        if (at != com.bot.DecisionEngineMerged.AssetType.CRYPTO
+                && at != com.bot.DecisionEngineMerged.AssetType.UNKNOWN) {
+            return true;
+        }
+        for (int i = 0; i < pair.length(); i++) {
+            if (pair.charAt(i) > 127) return true;
+        }
+        return false;
+    }
+
+    /**
+     * [v108 SCAN-FUNNEL] Stage 1 → stage-2 list. A pick outside the per-pair WS set
+     * is subscribed (at most FUNNEL_PROMOTE_PER_CYCLE per cycle, within
+     * MAX_WS_CONNECTIONS) so its ticks, book and 1m ring are live from the next
+     * cycle; a pick that cannot get a stream is skipped, since its ring would
+     * never advance. Promoted streams are dropped at the next top-N refresh like
+     * any other pair that left the set.
+     */
+    private List<String> screenPairsForScan(int budget, long now) {
+        int[] promotions = {0};
+        List<String> picks = scanFunnel.screen(marketSlots, now, budget, new ScanFunnel.Inputs() {
+            @Override public boolean eligible(String pair) {
+                if (!pair.endsWith("USDT") || excludedFromScan(pair)) return false;
+                if (wsMap.containsKey(pair) || funnelPromoted.contains(pair)) return true;
+                if (promotions[0] >= FUNNEL_PROMOTE_PER_CYCLE
+                        || wsMap.size() + promotions[0] >= MAX_WS_CONNECTIONS) return false;
+                promotions[0]++;
+                return true;
+            }
+            @Override public double obi(String pair) {
+                OrderbookSnapshot ob = orderbookMap.get(pair);
+                return ob != null && now - ob.timestamp < 60_000L ? ob.obi() : Double.NaN;
+            }
+        });
+        for (String pair : picks) {
+            if (!wsMap.containsKey(pair) && funnelPromoted.add(pair)) {
+                connectWsInternal(pair);
+                scanFunnel.notePromoted();
+            }
+        }
+        return picks;
+    }
+
     //  АВТОЗАПУСК WEBSOCKET
 
     private void startWebSocketsForTopPairs(Set<String> pairs) {
@@ -1196,8 +1739,12 @@ public final class SignalSender {
                 catch (Exception ignored) {}
             }
             tickPriceDeque.remove(zombie);
-            tickVolumeDeque.remove(zombie);
+            tickFeatures.remove(zombie);
+            earlyTickSlots.remove(zombie);   // [v100]
+            footprints.remove(zombie);       // [v103]
+            earlyTickOriginMs.remove(zombie); // [v104]
             liveM1Buffer.remove(zombie);
+            m1Holed.remove(zombie);          // [v107]
             deltaBuffer.remove(zombie);
             deltaWindowStart.remove(zombie);
             deltaHistory.remove(zombie);
@@ -1208,21 +1755,21 @@ public final class SignalSender {
             lastTickPrice.remove(zombie);
             microBuilders.remove(zombie);
             orderbookMap.remove(zombie);
-            ofvHistory.remove(zombie); ofvScoreMap.remove(zombie); // [MODULE 2 v33]
+            localBooks.remove(zombie);         // [v98]
+            depthSyncLastMs.remove(zombie);
+            ofvHistory.remove(zombie); // [MODULE 2 v33]
             wsReconnectDelay.remove(zombie);
             // [ДЫРА №1/№2] Очищаем CVD и ликвидации для ротированных пар
             cvdMap.remove(zombie);
             liqHeatmap.remove(zombie);
-            // [HOLE-NEW FIX 2026-05-08] liqTimestamps keyed by "symbol_bucket" —
-            // удаляем все записи начинающиеся с zombie+"_". Без этого map растёт
-            // неограниченно (десятки тыс. записей за месяц uptime).
-            final String zPrefix = zombie + "_";
-            liqTimestamps.keySet().removeIf(k -> k.startsWith(zPrefix));
             // [v90] Clean candle caches for all timeframes (extended for 1h-primary TFs).
             for (String tf : List.of("1m","5m","15m","30m","1h","2h","4h","1d")) {
                 candleCache.remove(zombie + "_" + tf);
+                klineSeries.remove(zombie + "_" + tf);        // [v96]
+                klineWsVirtualFetch.remove(zombie + "_" + tf);
             }
         }
+        funnelPromoted.clear();   // [v108] promoted streams outside the new set were just closed
         if (!zombies.isEmpty()) {
             System.out.printf("[WS] Cleaned %d zombie pairs: %s%n", zombies.size(),
                     zombies.size() <= 5 ? zombies : zombies.size() + " pairs");
@@ -1232,6 +1779,14 @@ public final class SignalSender {
         sorted.sort((a, b) -> Double.compare(
                 volume24hUSD.getOrDefault(b, 0.0),
                 volume24hUSD.getOrDefault(a, 0.0)));
+        if (DEPTH_WS) {
+            // [v98] Depth diffs only for the most liquid pairs. A pair entering the set
+            // gets @depth on its next (re)connect; one leaving it keeps a stale book
+            // that is dropped here and simply no longer consulted.
+            Set<String> depthSet = new HashSet<>(sorted.subList(0, Math.min(DEPTH_WS_TOP_N, sorted.size())));
+            localBooks.keySet().removeIf(p -> !depthSet.contains(p));
+            depthBookPairs = depthSet;
+        }
 
         int connected = 0;
         for (String pair : sorted) {
@@ -1295,16 +1850,16 @@ public final class SignalSender {
 
     private com.bot.DecisionEngineMerged.TradeIdea processPair(String pair) {
         try {
-            // [v78.1] Chronic-stale eviction — skip pairs that consistently fail
-            // staleness guards. Frees up scan budget for active pairs.
-            if (isChronicallyStale(pair)) {
-                cyclePairsStale.incrementAndGet();
-                return null;
-            }
-            // GARBAGE COIN BLOCKLIST — instant reject for known micro-cap / rug tokens
-            if (GARBAGE_COIN_BLOCKLIST.contains(pair)) return null;
-            // Hard blacklist check — symbols with WR < 25% after 20 trades
-            if (isc.isHardBlacklisted(pair)) return null;
+            // [v111 GATES] Candle-free gates before any klines are fetched, in the order
+            // GatePipeline measured as cheapest per reject (see buildScanGates):
+            //   chronic_stale  [v78.1] pairs that keep failing the staleness guards
+            //   blocklist      GARBAGE COIN BLOCKLIST — known micro-cap / rug tokens
+            //   hard_blacklist symbols with WR < 25% after 20 trades
+            //   liquidity      spread / notional (was after the event-coin scan)
+            //   de_prefilter   DE cooldowns / meme / non-crypto (were inside analyze())
+            com.bot.DecisionEngineMerged.CoinCategory cat = categorizePair(pair);
+            if (scanGates.screen(new GateCtx(pair, cat, System.currentTimeMillis())) != null) return null;
+            long g = System.nanoTime();
             // REST для 1m больше не вызывается в основном цикле — только холодный старт.
             // Экономия: ~50 REST запросов/мин × weight=5 = 250 weight/мин.
             List<com.bot.TradingCore.Candle> m1  = getM1FromWs(pair);
@@ -1319,6 +1874,7 @@ public final class SignalSender {
             List<com.bot.TradingCore.Candle> m15 = getPrimaryTfCandles(pair); // [v90]
             List<com.bot.TradingCore.Candle> h1  = getCached(pair, HTF_FAST, KLINES_LIMIT);
             List<com.bot.TradingCore.Candle> h2  = getCached(pair, HTF_SLOW, 120);
+            g = scanGates.record("fetch", g, false);
             // updateLiveM1Buffer больше не нужен — буфер заполняется из processAggTrade()
 
             // [ДЫРА №1] CVD — считаем накопленную дельту из 1m свечей
@@ -1333,7 +1889,10 @@ public final class SignalSender {
             // 4h-primary HTF=1d, so 60 bars = 60 days is too strict; 40 days suffices.
             int primaryMinBars = "15m".equals(PRIMARY_TF) ? 200 : 100;
             int htfMinBars     = "15m".equals(PRIMARY_TF) ? 160 : "4h".equals(PRIMARY_TF) ? 40 : 60;
-            if (m15 == null || m15.size() < primaryMinBars || h1 == null || h1.size() < htfMinBars) {
+            g = System.nanoTime();
+            boolean shortHistory = m15 == null || m15.size() < primaryMinBars || h1 == null || h1.size() < htfMinBars;
+            g = scanGates.record("history", g, shortHistory);
+            if (shortHistory) {
                 cyclePairsStale.incrementAndGet();
                 recordStaleEvent(pair); // [v78.1]
                 return null;
@@ -1346,11 +1905,6 @@ public final class SignalSender {
             long lastBarAge = nowMs - m15.get(m15.size() - 1).closeTime;
             long staleThresholdMs = (long)(PRIMARY_TF_MS * 1.25);
             if ("15m".equals(PRIMARY_TF)) staleThresholdMs = 10 * 60_000L; // legacy
-            if (lastBarAge > staleThresholdMs) {
-                cyclePairsStale.incrementAndGet();
-                recordStaleEvent(pair); // [v78.1]
-                return null;
-            }
             // HTF staleness: skip if last HTF bar > 1.5× HTF period old.
             // [v86.91] 1d arm added — was missing, so 4h-primary (HTF=1d) fell into the
             // 60min else-branch → every pair rejected as stale (CRITICAL).
@@ -1359,14 +1913,15 @@ public final class SignalSender {
                     : "2h".equals(HTF_FAST) ? 2 * 60 * 60_000L
                       : 60 * 60_000L;
             long lastH1Age = nowMs - h1.get(h1.size() - 1).closeTime;
-            if (lastH1Age > (long)(htfBarMs * 1.5)) {
+            boolean staleBars = lastBarAge > staleThresholdMs || lastH1Age > (long)(htfBarMs * 1.5);
+            scanGates.record("stale", g, staleBars);
+            if (staleBars) {
                 cyclePairsStale.incrementAndGet();
                 recordStaleEvent(pair); // [v78.1]
                 return null;
             }
 
-            // Categorize early — needed for event filter and all downstream logic
-            com.bot.DecisionEngineMerged.CoinCategory cat = categorizePair(pair);
+            // Category is resolved before the gates above — needed for event filter and all downstream logic
             String sector = detectSector(pair);
 
             // [v13.0+v34.0] EVENT COIN FILTER — category-aware
@@ -1428,7 +1983,6 @@ public final class SignalSender {
                 }
             }
 
-            if (!checkLiquidity(pair, cat)) { blockedLiq.incrementAndGet(); return null; }
             cyclePairsSeen.incrementAndGet();
 
             Long lastRealtimeTick = lastTickTime.get(pair);
@@ -1455,8 +2009,10 @@ public final class SignalSender {
             double relStrength = computeRelativeStrength(pair, m15);
             decisionEngine.updateRelativeStrength(pair, getSymbolReturn15m(m15), getBtcReturn15m());
 
+            g = System.nanoTime();
             com.bot.DecisionEngineMerged.TradeIdea idea =
                     decisionEngine.analyze(pair, m1, m5, m15, h1, h2, cat);
+            g = scanGates.record("analyze", g, idea == null);
 
             if (idea == null) return null;
 
@@ -1516,8 +2072,10 @@ public final class SignalSender {
             if (earlyGateBoostDown > 0 && earlyGateBoostDown <= 5.0) {
                 earlyMinConf = Math.max(0.0, earlyMinConf - earlyGateBoostDown);
             }
-            if (idea.probability < earlyMinConf) {
-                blockedEarlyConf.incrementAndGet();
+            boolean lowEarly = idea.probability < earlyMinConf;
+            scanGates.record("early_conf", g, lowEarly);   // from analyze(): penalties + ISC/calibrator floor
+            if (lowEarly) {
+                blocks.inc(blockedEarlyConf);
                 return null;
             }
 
@@ -1548,8 +2106,11 @@ public final class SignalSender {
                 idea = rebuildIdea(idea, idea.probability + boost, gicFlags);
             }
 
-            if (!correlationGuard.allow(pair, idea.side, cat, sector)) {
-                blockedCorr.incrementAndGet(); return null;
+            g = System.nanoTime();
+            boolean corrOk = correlationGuard.allow(pair, idea.side, cat, sector);
+            scanGates.record("correlation", g, !corrOk);
+            if (!corrOk) {
+                blocks.inc(blockedCorr); return null;
             }
 
             // PumpHunter удалён — TrendPullback стратегия не использует его теги.
@@ -1598,8 +2159,8 @@ public final class SignalSender {
             //   OFV negative vs direction → active distribution into price → PENALTY
             //
             // Score [-1..+1]: positive = bullish flow velocity, negative = bearish
-            Double ofvScore = ofvScoreMap.get(pair);
-            if (ofvScore != null && Math.abs(ofvScore) >= OFV_SIGNAL_THRESH) {
+            double ofvScore = getOfvScore(pair);
+            if (Math.abs(ofvScore) >= OFV_SIGNAL_THRESH) {
                 boolean ofvBullish = ofvScore > 0;
                 boolean ofvBearish = ofvScore < 0;
                 boolean aligned    = (isLong && ofvBullish) || (!isLong && ofvBearish);
@@ -1665,10 +2226,14 @@ public final class SignalSender {
             if (!idea.flags.contains("VCB_v8") && !idea.flags.contains("TREND_ALIGNED_1H")) {
                 idea = adjustStopForClusters(idea, m15);
             }
+            g = System.nanoTime();
             idea = applyVpocBarrierGuard(idea, m15);
-            if (idea == null) { blockedVpoc.incrementAndGet(); return null; }
+            g = scanGates.record("vpoc", g, idea == null);
+            if (idea == null) { blocks.inc(blockedVpoc); return null; }
 
-            if (!checkMinProfit(idea, cat)) { blockedProfit.incrementAndGet(); return null; }
+            boolean profitOk = checkMinProfit(idea, cat);
+            scanGates.record("min_profit", g, !profitOk);
+            if (!profitOk) { blocks.inc(blockedProfit); return null; }
 
             // Добавляем рекомендованный размер позиции
             double posSize = getPositionSizeUsdt(idea, cat);
@@ -1758,12 +2323,17 @@ public final class SignalSender {
                     ? Math.min(MIN_CONF, _calWarmupFloor)
                     : MIN_CONF;
             double finalMinConf = Math.max(effFinalBase, Math.min(finalIscCap, finalIscRaw));
-            if (idea.probability < finalMinConf) {
-                blockedFinalConf.incrementAndGet();
+            g = System.nanoTime();
+            boolean lowFinal = idea.probability < finalMinConf;
+            g = scanGates.record("final_conf", g, lowFinal);
+            if (lowFinal) {
+                blocks.inc(blockedFinalConf);
                 return null;
             }
-            if (!isc.allowSignal(idea)) {
-                blockedIsc.incrementAndGet();
+            boolean iscOk = isc.allowSignal(idea);
+            g = scanGates.record("isc", g, !iscOk);
+            if (!iscOk) {
+                blocks.inc(blockedIsc);
                 return null;
             }
 
@@ -1796,6 +2366,7 @@ public final class SignalSender {
                     // на гейте с вводящим в заблуждение логом [RR-GATE]. Если стенка прижимает TP2
                     // ниже флора — профит-путь заблокирован, скипаем сразу и с честной причиной.
                     if (newTp2 < 2.00) {  // sync: effMinRR ниже
+                        scanGates.record("ob_wall", g, true);
                         correlationGuard.unregister(pair);
                         System.out.printf("[OB-WALL] %s %s SKIPPED: wall %.1fx blocks TP path (tp2Mult %.2f→%.2f < RR floor 2.00)%n",
                                 pair, idea.side, obstacleDepth / supportDepth, idea.tp2Mult, newTp2);
@@ -1815,6 +2386,7 @@ public final class SignalSender {
                     if (prevMult > 0 && prevMult != 1.0) idea.setExecutorSizeMultiplier(prevMult);
                 }
             }
+            g = scanGates.record("ob_wall", g, false);
 
             double realRR = isc.getAvgRealizedRR(pair);
             if (realRR > 0 && idea.tp3Mult > 0 && realRR < idea.tp3Mult * 0.70) {
@@ -1829,6 +2401,7 @@ public final class SignalSender {
                 // символа не дотягивает до целей при флоре 2.00 → честный скип вместо
                 // ложного [RR-GATE] лога.
                 if (newTp2 < 2.00) {  // sync: effMinRR ниже
+                    scanGates.record("tp_cal", g, true);
                     correlationGuard.unregister(pair);
                     System.out.printf("[TP-CAL] %s %s SKIPPED: realized RR %.2f too weak for targets (tp2Mult %.2f→%.2f < RR floor 2.00)%n",
                             pair, idea.side, realRR, idea.tp2Mult, newTp2);
@@ -1847,6 +2420,7 @@ public final class SignalSender {
                         newTp1, newTp2, newTp3);
                 if (prevMult > 0 && prevMult != 1.0) idea.setExecutorSizeMultiplier(prevMult);
             }
+            g = scanGates.record("tp_cal", g, false);
 
             // [v78.2 CRITICAL FIX] Removed `isc.registerSignal(idea)` from this path.
             // ROOT CAUSE: registering here caused activeSymbols.containsKey(symbol)=true,
@@ -1873,6 +2447,7 @@ public final class SignalSender {
                 if (_gc != null) _trendStrForRR = Math.abs(_gc.impulseStrength);
             } catch (Throwable ignored) {}
             double effMinRR = 2.00;  // [PATCH 2026-05-13] was `(_trendStrForRR<0.30)?2.20:2.00` — synced with CS_TP2_R=2.4 + BotMain FLAT_MARKET_MIN_RR=2.00
+            scanGates.record("rr", g, actualRR < effMinRR);
             if (actualRR < effMinRR) {
                 // [v78.2] No ISC unregister needed — we never registered.
                 // correlationGuard.unregister still called for safety in case
@@ -1929,38 +2504,73 @@ public final class SignalSender {
      *     bar fresh enough for end-of-bar decisions.
      * If lower latency on 1h primary is needed in future, implement an
      * assembleLive1hCandle that gates on (now - barStart) ≥ 30min.
+     *
+     * [v95] That is now LIVE_SPLICE_PRIMARY=1: the forming PRIMARY_TF bar comes
+     * straight from the tick builder (no REST), and is spliced only once
+     * LIVE_SPLICE_MIN_FRACTION (default ½) of the bar has elapsed and the builder
+     * saw the bar from its first tick.
      */
     private List<com.bot.TradingCore.Candle> getPrimaryTfCandles(String pair) {
         if ("15m".equals(PRIMARY_TF)) {
             return getCached15mWithLive(pair);
         }
-        return getCached(pair, PRIMARY_TF, KLINES_LIMIT);
+        List<com.bot.TradingCore.Candle> historical = getCached(pair, PRIMARY_TF, KLINES_LIMIT);
+        if (!LIVE_SPLICE_PRIMARY || historical == null || historical.isEmpty()) return historical;
+        com.bot.TradingCore.Candle live =
+                formingBarFromTicks(pair, PRIMARY_TF_MS, (long) (PRIMARY_TF_MS * LIVE_SPLICE_MIN_FRACTION));
+        if (live == null || !isLiveCandleSafeToSplice(historical, live)) return historical;
+        return spliceLiveBar(historical, live, PRIMARY_TF_MS);
+    }
+
+    /**
+     * [v95] Forming bar of {@code ivMs} from the pair's tick builder, or null if the
+     * builder has not seen the whole bar or less than {@code minElapsedMs} of it passed.
+     */
+    private com.bot.TradingCore.Candle formingBarFromTicks(String pair, long ivMs, long minElapsedMs) {
+        MicroCandleBuilder b = microBuilders.get(pair);
+        if (b == null || !b.isFormingComplete(ivMs)) return null;
+        com.bot.TradingCore.Candle live = b.forming(ivMs);
+        if (live == null) return null;
+        long now = System.currentTimeMillis();
+        if (now - live.openTime < minElapsedMs || now > live.closeTime) return null;
+        return live;
+    }
+
+    /** Replaces or appends the live bar depending on whether its period is already present. */
+    private static List<com.bot.TradingCore.Candle> spliceLiveBar(List<com.bot.TradingCore.Candle> historical,
+                                                                  com.bot.TradingCore.Candle live, long periodMs) {
+        com.bot.TradingCore.Candle lastHistorical = historical.get(historical.size() - 1);
+        long livePeriod = live.openTime / periodMs;
+        long lastPeriod = lastHistorical.openTime / periodMs;
+        if (livePeriod < lastPeriod) return historical;
+        List<com.bot.TradingCore.Candle> result = new ArrayList<>(historical);
+        if (livePeriod == lastPeriod) {
+            result.set(result.size() - 1, live);
+        } else {
+            result.add(live);
+        }
+        return Collections.unmodifiableList(result);
     }
 
     private List<com.bot.TradingCore.Candle> getCached15mWithLive(String pair) {
         List<com.bot.TradingCore.Candle> historical = getCached(pair, "15m", KLINES_LIMIT);
         if (historical == null || historical.isEmpty()) return historical;
 
-        List<com.bot.TradingCore.Candle> m1buf = liveM1Buffer.get(pair);
-        if (m1buf == null || m1buf.isEmpty()) return historical;
-
-        com.bot.TradingCore.Candle liveCurrent = assembleLive15mCandle(m1buf);
+        // [v95] Prefer the tick builder's forming 15m bar (true taker volume, trade
+        // count, includes the still-open minute). Fall back to assembling closed 1m
+        // bars from liveM1Buffer when the builder joined mid-bar.
+        com.bot.TradingCore.Candle liveCurrent = formingBarFromTicks(pair, 15 * 60_000L, 15_000L);
+        if (liveCurrent == null) {
+            CandleRing ring = liveM1Buffer.get(pair);
+            if (ring == null || ring.size() == 0) return historical;
+            liveCurrent = assembleLive15mCandle(ring.snapshot());
+        }
         if (liveCurrent == null) return historical;
 
         // GATE — refuse the splice if the live bar is unsafe to analyze.
         if (!isLiveCandleSafeToSplice(historical, liveCurrent)) return historical;
 
-        com.bot.TradingCore.Candle lastHistorical = historical.get(historical.size() - 1);
-        long livePeriod = liveCurrent.openTime / (15 * 60_000L);
-        long lastPeriod = lastHistorical.openTime / (15 * 60_000L);
-
-        List<com.bot.TradingCore.Candle> result = new ArrayList<>(historical);
-        if (livePeriod == lastPeriod) {
-            result.set(result.size() - 1, liveCurrent);
-        } else if (livePeriod > lastPeriod) {
-            result.add(liveCurrent);
-        }
-        return Collections.unmodifiableList(result);
+        return spliceLiveBar(historical, liveCurrent, 15 * 60_000L);
     }
 
     /**
@@ -2010,33 +2620,38 @@ public final class SignalSender {
      * @return список 5m свечей, последняя — live (текущая незакрытая)
      */
     private List<com.bot.TradingCore.Candle> getM5FromWsOrRest(String pair, int minBars) {
-        List<com.bot.TradingCore.Candle> m1buf = liveM1Buffer.get(pair);
+        CandleRing ring = liveM1Buffer.get(pair);
 
         // Если в буфере меньше 5 баров → нельзя собрать даже 1 пятиминутку
-        if (m1buf == null || m1buf.size() < 5) {
+        if (ring == null || ring.size() < 5) {
             return getCached(pair, "5m", minBars);
         }
 
-        // Группируем 1m → 5m
-        java.util.TreeMap<Long, List<com.bot.TradingCore.Candle>> groups = new java.util.TreeMap<>();
-        for (com.bot.TradingCore.Candle c : m1buf) {
+        // [v94 M1-RING] Группируем 1m → 5m одним проходом: снапшот уже отсортирован
+        // по openTime, поэтому TreeMap + per-group списки не нужны.
+        List<com.bot.TradingCore.Candle> m1buf = ring.snapshot();
+        List<com.bot.TradingCore.Candle> result = new ArrayList<>(m1buf.size() / 5 + 1);
+        long epoch = Long.MIN_VALUE;
+        double open = 0, high = 0, low = 0, close = 0, vol = 0, qvol = 0;
+        for (int i = 0; i < m1buf.size(); i++) {
+            com.bot.TradingCore.Candle c = m1buf.get(i);
             long epoch5m = (c.openTime / 300_000L) * 300_000L;
-            groups.computeIfAbsent(epoch5m, k -> new ArrayList<>()).add(c);
-        }
-
-        List<com.bot.TradingCore.Candle> result = new ArrayList<>(groups.size());
-        for (java.util.Map.Entry<Long, List<com.bot.TradingCore.Candle>> e : groups.entrySet()) {
-            List<com.bot.TradingCore.Candle> bars = e.getValue();
-            double open  = bars.get(0).open;
-            double high  = bars.stream().mapToDouble(b -> b.high).max().orElse(open);
-            double low   = bars.stream().mapToDouble(b -> b.low).min().orElse(open);
-            double close = bars.get(bars.size() - 1).close;
-            double vol   = bars.stream().mapToDouble(b -> b.volume).sum();
-            double qvol  = bars.stream().mapToDouble(b -> b.quoteVolume).sum();
-            result.add(new com.bot.TradingCore.Candle(
-                    e.getKey(), open, high, low, close, vol, qvol,
-                    e.getKey() + 300_000L - 1));
+            if (epoch5m != epoch) {
+                if (epoch != Long.MIN_VALUE) {
+                    result.add(new com.bot.TradingCore.Candle(
+                            epoch, open, high, low, close, vol, qvol, epoch + 300_000L - 1));
+                }
+                epoch = epoch5m;
+                open = c.open; high = c.high; low = c.low; vol = 0; qvol = 0;
+            }
+            high  = Math.max(high, c.high);
+            low   = Math.min(low, c.low);
+            close = c.close;
+            vol  += c.volume;
+            qvol += c.quoteVolume;
         }
+        result.add(new com.bot.TradingCore.Candle(
+                epoch, open, high, low, close, vol, qvol, epoch + 300_000L - 1));
 
         // Если WS-буфер даёт мало баров — допиливаем REST историей снизу
         if (result.size() < minBars) {
@@ -2068,16 +2683,19 @@ public final class SignalSender {
         double volume = 0, qvol = 0;
         int count = 0;
 
-        for (com.bot.TradingCore.Candle c : m1) {
-            if (c.openTime >= current15mStart) {
-                if (Double.isNaN(open)) open = c.open;
-                high   = Math.max(high, c.high);
-                low    = Math.min(low, c.low);
-                close  = c.close;
-                volume += c.volume;
-                qvol   += c.quoteVolume;
-                count++;
-            }
+        // [v94 M1-RING] Only the tail can belong to the current 15m bar — walk back
+        // to its first minute instead of scanning the whole buffer.
+        int first = m1.size();
+        while (first > 0 && m1.get(first - 1).openTime >= current15mStart) first--;
+        for (int i = first; i < m1.size(); i++) {
+            com.bot.TradingCore.Candle c = m1.get(i);
+            if (Double.isNaN(open)) open = c.open;
+            high   = Math.max(high, c.high);
+            low    = Math.min(low, c.low);
+            close  = c.close;
+            volume += c.volume;
+            qvol   += c.quoteVolume;
+            count++;
         }
 
         if (count == 0 || Double.isNaN(open)) return null;
@@ -2092,18 +2710,96 @@ public final class SignalSender {
      * После этого REST для 1m больше не вызывается — только WS-тики.
      */
     public List<com.bot.TradingCore.Candle> getM1FromWs(String pair) {
-        List<com.bot.TradingCore.Candle> buf = liveM1Buffer.get(pair);
-        if (buf != null && buf.size() >= 60) return Collections.unmodifiableList(buf);
+        CandleRing ring = liveM1Buffer.get(pair);
+        if (ring != null && m1Holed.contains(pair)) ring = repairM1(pair, ring);   // [v107]
+        if (ring != null && ring.size() >= 60) return ring.snapshot();
 
         // Холодный старт — разовый REST-посев истории
         List<com.bot.TradingCore.Candle> seed = fetchKlinesDirect(pair, "1m", KLINES_LIMIT);
         if (seed == null || seed.isEmpty()) {
-            return buf != null ? Collections.unmodifiableList(buf) : Collections.emptyList();
+            return ring != null ? ring.snapshot() : Collections.emptyList();
+        }
+        // [v94 M1-RING] REST returns the in-progress minute as its last bar; drop it so
+        // the WS builder's closed bar for that minute is the one that lands in the ring.
+        // The ring keeps the newest LIVE_M1_BUFFER_SIZE bars (the old list held the
+        // whole seed only until the first WS minute trimmed it to the same size).
+        int closed = seed.size();
+        if (seed.get(closed - 1).closeTime > System.currentTimeMillis()) closed--;
+        if (closed <= 0) return ring != null ? ring.snapshot() : Collections.emptyList();
+        CandleRing seeded = CandleRing.seeded(LIVE_M1_BUFFER_SIZE, seed.subList(0, closed));
+        liveM1Buffer.put(pair, seeded);
+        return seeded.snapshot();
+    }
+
+    /**
+     * [v107] Closed WS minute → ring. A bar the builder joined mid-minute (boot,
+     * reconnect) is incomplete and stays out; a skipped minute flags the pair so
+     * the next getM1FromWs fills the hole from REST instead of reseeding.
+     */
+    private void appendM1(String pair, MicroCandleBuilder builder, com.bot.TradingCore.Candle c) {
+        CandleRing ring = liveM1Buffer.computeIfAbsent(pair, k -> new CandleRing(LIVE_M1_BUFFER_SIZE));
+        com.bot.TradingCore.Candle last = ring.last();
+        boolean whole = builder.coversFrom(c.openTime);
+        if (last != null && c.openTime > last.openTime && (!whole || c.openTime > last.openTime + 60_000L)) {
+            m1Holed.add(pair);
+        }
+        if (whole) ring.append(c);
+    }
+
+    /**
+     * [v107] Fills the 1m ring's holes — interior and the tail up to the current
+     * minute — with range fetches. Null when that is not possible (gap longer than
+     * the ring, exchange has no bars) → getM1FromWs falls back to the full seed.
+     */
+    private CandleRing repairM1(String pair, CandleRing ring) {
+        synchronized (cacheLocks.computeIfAbsent(pair + "_m1ring", k -> new Object())) {
+            CandleRing current = liveM1Buffer.get(pair);
+            if (current == null) return null;
+            if (!m1Holed.remove(pair)) return current;   // another reader repaired it meanwhile
+            long formingOpen = (System.currentTimeMillis() / 60_000L) * 60_000L;
+            CandleIntegrity.Result r = candleIntegrity.repair(pair, "1m", 60_000L, current.snapshot(),
+                    current.capacity(), formingOpen);
+            if (!r.complete()) {
+                candleIntegrity.noteFullReseed();
+                liveM1Buffer.remove(pair, current);
+                return null;
+            }
+            if (r.repaired == 0) return current;
+            CandleRing next = current.supersede(r.candles);
+            liveM1Buffer.replace(pair, current, next);
+            return next;
         }
-        liveM1Buffer.put(pair, new ArrayList<>(seed));
-        return Collections.unmodifiableList(seed);
     }
 
+    /** [v108] Stage-1 screener throughput and stage-2 slots saved; empty before the first cycle. */
+    public String getScanFunnelStats() { return scanFunnel.stats(); }
+
+    /** [v112 REJECTS] "pp: reason=x/min … | de: reason=x/min …" over the recent cycles; empty before the first [DIAG]. */
+    public String getRejectRateStats() {
+        String pp = blocks.windowRates(5), de = com.bot.DecisionEngineMerged.rejectRates(5);
+        if (pp.isEmpty() && de.isEmpty()) return "";
+        return "pp: " + (pp.isEmpty() ? "-" : pp) + " | de: " + (de.isEmpty() ? "-" : de);
+    }
+
+    /** [v116] Per-symbol engine state: symbols held, evicted, approximate footprint; empty before the first symbol. */
+    public String getEngineStateStats() { return decisionEngine.symbolStateReport(); }
+
+    /** [v107] Series-repair counters; empty until a hole was seen. */
+    public String getCandleIntegrityStats() {
+        return candleIntegrity.stats();
+    }
+
+    /**
+     * [v107] Verifies an openTime-ascending series (e.g. a paged backtest load) and
+     * fills its holes through the weight-limited REST wrapper. Holes the exchange
+     * cannot fill are logged by CandleIntegrity and left in place.
+     */
+    public List<com.bot.TradingCore.Candle> repairSeries(String symbol, String interval,
+                                                         List<com.bot.TradingCore.Candle> series) {
+        long ivMs = klineIntervalMs(interval);
+        if (ivMs <= 0 || series == null || series.size() < 2) return series;
+        return candleIntegrity.repair(symbol, interval, ivMs, series, Long.MAX_VALUE).candles;
+    }
 
     //  РАЗМЕР ПОЗИЦИИ — Kelly-inspired компаундинг
 
@@ -2505,6 +3201,7 @@ public final class SignalSender {
         int depthPairs = Math.min(activePairs.size(), DEPTH_SNAPSHOT_TOP_N);
         for (int idx = 0; idx < depthPairs; idx++) {
             String pair = activePairs.get(idx);
+            if (isLocalBookLive(pair)) continue; // [v98] diff-depth book already has it
             try {
                 String url = "https://fapi.binance.com/fapi/v1/depth?symbol="
                         + pair + "&limit=10";
@@ -2613,9 +3310,36 @@ public final class SignalSender {
             double maxObi = switch (cat) { case TOP -> 0.85; case ALT -> 0.75; case MEME -> 0.65; };
             if (Math.abs(obs.obi()) > maxObi) return false;
         }
+        // [v98 L2-BOOK] With a live local book: blown-out spreads and books too thin to
+        // absorb a position near mid. A sanity floor, not a liquidity model; see L2_LIQ_GATE.
+        if (!"OFF".equals(L2_LIQ_GATE)) {
+            LocalOrderBook book = localBooks.get(pair);
+            if (book != null && book.isLive(DEPTH_BOOK_MAX_AGE_MS)) {
+                String why = l2LiquidityReason(book, cat);
+                if (why != null) {
+                    if ("ON".equals(L2_LIQ_GATE)) return false;
+                    if (l2LiqWouldBlock.incrementAndGet() % 100 == 1)
+                        LOG.info("[L2-LIQ] would block " + pair + " (" + why + "), total=" + l2LiqWouldBlock.get());
+                }
+            }
+        }
         return true;
     }
 
+    private static String l2LiquidityReason(LocalOrderBook book, com.bot.DecisionEngineMerged.CoinCategory cat) {
+        double maxSpreadBps = switch (cat) {
+            case TOP -> L2_MAX_SPREAD_BPS_TOP; case ALT -> L2_MAX_SPREAD_BPS_ALT; case MEME -> L2_MAX_SPREAD_BPS_MEME;
+        };
+        double spread = book.spreadBps();
+        if (!Double.isNaN(spread) && spread > maxSpreadBps) return String.format("spread %.1fbps", spread);
+        double minBandUsd = switch (cat) {
+            case TOP -> L2_MIN_BAND_USD_TOP; case ALT -> L2_MIN_BAND_USD_ALT; case MEME -> L2_MIN_BAND_USD_MEME;
+        };
+        double thin = Math.min(book.notionalWithinBps(true, LIQ_BAND_BPS),
+                book.notionalWithinBps(false, LIQ_BAND_BPS));
+        return thin < minBandUsd ? String.format("$%.0f within %.0fbps", thin, LIQ_BAND_BPS) : null;
+    }
+
     //  RELATIVE STRENGTH
 
     private double computeRelativeStrength(String pair, List<com.bot.TradingCore.Candle> m15) {
@@ -2923,6 +3647,16 @@ public final class SignalSender {
         long   ttl = CACHE_TTL.getOrDefault(interval, 60_000L);
         totalFetches.incrementAndGet();
 
+        // [v96 KLINE-WS] Stream-maintained series first — zero REST weight.
+        boolean streamed = KLINE_WS && KLINE_WS_INTERVALS.contains(interval) && wsMap.containsKey(symbol);
+        if (streamed) {
+            List<com.bot.TradingCore.Candle> fromWs = readKlineSeries(symbol, interval, key, limit, ttl);
+            if (fromWs != null) {
+                cacheHits.incrementAndGet();
+                return fromWs;
+            }
+        }
+
         // Fast path: без блокировки если кэш свежий
         CachedCandles cached = candleCache.get(key);
         if (cached != null && !cached.isStale(ttl) && !cached.candles.isEmpty()) {
@@ -2945,6 +3679,7 @@ public final class SignalSender {
             if (fresh != null && !fresh.isEmpty()) {
                 candleCache.put(key, new CachedCandles(fresh));
                 lastFetchTime.put(key, System.currentTimeMillis());
+                if (streamed) seedKlineSeries(key, interval, fresh, limit);
                 return fresh;
             }
             // Hard fail OR empty — пробуем отдать старый кеш если он ещё не слишком тухлый
@@ -2963,23 +3698,147 @@ public final class SignalSender {
         return getCached(symbol, interval, limit);
     }
 
+    /** [v96] Serves {@code limit} bars from the kline stream, or null → caller uses REST. */
+    private List<com.bot.TradingCore.Candle> readKlineSeries(String symbol, String interval, String key,
+                                                             int limit, long ttl) {
+        KlineStreamSeries ks = klineSeries.get(key);
+        long now = System.currentTimeMillis();
+        if (ks == null || !ks.isLive(now, KLINE_WS_MAX_SILENCE_MS)) return null;
+        if (ks.holed && !repairKlineSeries(symbol, interval, key, ks)) return null;
+        List<com.bot.TradingCore.Candle> out = ks.read(limit);
+        if (out == null) return null;
+        klineWsServed.incrementAndGet();
+        Long virt = klineWsVirtualFetch.get(key);
+        if (virt == null || now - virt > ttl) {
+            klineWsVirtualFetch.put(key, now);
+            klineWsWeightSaved.addAndGet(BINANCE_WEIGHT_KLINES);
+        }
+        return out;
+    }
+
+    /**
+     * [v107] Fills a holed stream series with range fetches (interior holes and the
+     * tail up to the forming bar). False → series marked broken, getCached reseeds.
+     */
+    private boolean repairKlineSeries(String symbol, String interval, String key, KlineStreamSeries ks) {
+        synchronized (cacheLocks.computeIfAbsent(key, k -> new Object())) {
+            if (!ks.holed) return !ks.broken;   // another reader repaired it meanwhile
+            ks.holed = false;                   // before the snapshot: a new gap re-flags it
+            CandleRing ring = ks.closed;
+            com.bot.TradingCore.Candle f = ks.forming;
+            CandleIntegrity.Result r = candleIntegrity.repair(symbol, interval, ks.ivMs, ring.snapshot(),
+                    ring.capacity(), f != null ? f.openTime : Long.MIN_VALUE);
+            if (!r.complete()) {
+                ks.broken = true;
+                candleIntegrity.noteFullReseed();
+                return false;
+            }
+            if (r.repaired > 0) ks.closed = ring.supersede(r.candles);
+            return true;
+        }
+    }
+
+    /** [v96] (Re)seeds a stream series from a REST response; the REST in-flight bar becomes "forming". */
+    private void seedKlineSeries(String key, String interval, List<com.bot.TradingCore.Candle> rest, int limit) {
+        long ivMs = klineIntervalMs(interval);
+        if (ivMs <= 0) return;
+        int closedCount = rest.size();
+        com.bot.TradingCore.Candle tail = rest.get(closedCount - 1);
+        boolean tailForming = tail.closeTime > System.currentTimeMillis();
+        if (tailForming) closedCount--;
+        KlineStreamSeries ks = new KlineStreamSeries(ivMs, Math.max(limit, KLINES_LIMIT), rest.subList(0, closedCount));
+        if (tailForming) ks.forming = tail;
+        klineSeries.put(key, ks);
+        klineWsVirtualFetch.put(key, System.currentTimeMillis());
+        klineWsSeeds.incrementAndGet();
+    }
+
+    /** [v96] kline event → series update. Unseeded series ignore events until getCached seeds them. */
+    private void processKline(String pair, JSONObject j) {
+        JSONObject k = j.optJSONObject("k");
+        if (k == null) return;
+        if (barClose.isRunning() && k.optBoolean("x", false) && PRIMARY_TF.equals(k.optString("i", ""))) {
+            barClose.onClose(pair, k.getLong("T") + 1);   // [v109] streamed close
+        }
+        KlineStreamSeries ks = klineSeries.get(pair + "_" + k.optString("i", ""));
+        if (ks == null || ks.broken) return;
+        long openT = k.getLong("t");
+        com.bot.TradingCore.Candle c = new com.bot.TradingCore.Candle(openT,
+                Double.parseDouble(k.getString("o")), Double.parseDouble(k.getString("h")),
+                Double.parseDouble(k.getString("l")), Double.parseDouble(k.getString("c")),
+                Double.parseDouble(k.getString("v")), Double.parseDouble(k.optString("q", "0")),
+                k.getLong("T"), k.optInt("n", 0),
+                Double.parseDouble(k.optString("V", "0")), Double.parseDouble(k.optString("Q", "0")));
+        if (!ks.onKline(c, k.optBoolean("x", false), System.currentTimeMillis())) {
+            klineWsGaps.incrementAndGet();
+        }
+    }
+
+    private static long klineIntervalMs(String iv) {
+        switch (iv) {
+            case "1m":  return 60_000L;
+            case "3m":  return 3 * 60_000L;
+            case "5m":  return 5 * 60_000L;
+            case "15m": return 15 * 60_000L;
+            case "30m": return 30 * 60_000L;
+            case "1h":  return 60 * 60_000L;
+            case "2h":  return 2 * 60 * 60_000L;
+            case "4h":  return 4 * 60 * 60_000L;
+            case "6h":  return 6 * 60 * 60_000L;
+            case "8h":  return 8 * 60 * 60_000L;
+            case "12h": return 12 * 60 * 60_000L;
+            case "1d":  return 24 * 60 * 60_000L;
+            default:    return -1L;
+        }
+    }
+
+    /** [v96] "served=… saved=…w (…w/h) seeds=… gaps=… series=…", empty when KLINE_WS is off. */
+    public String getKlineWsStats() {
+        if (!KLINE_WS) return "";
+        double hours = Math.max(1.0 / 60.0, (System.currentTimeMillis() - klineWsSinceMs) / 3_600_000.0);
+        return String.format("served=%d saved=%dw (%.0fw/h) seeds=%d gaps=%d series=%d",
+                klineWsServed.get(), klineWsWeightSaved.get(), klineWsWeightSaved.get() / hours,
+                klineWsSeeds.get(), klineWsGaps.get(), klineSeries.size());
+    }
+
     // Fetch error counter — exposed via stats
     private final AtomicLong klineFetchErrors = new AtomicLong(0);
     public long getKlineFetchErrors() { return klineFetchErrors.get(); }
 
     private List<com.bot.TradingCore.Candle> fetchKlinesDirect(String symbol, String interval, int limit) {
+        return fetchKlinesUrl(symbol, interval,
+                String.format("https://fapi.binance.com/fapi/v1/klines?symbol=%s&interval=%s&limit=%d",
+                        symbol, interval, limit),
+                BINANCE_WEIGHT_KLINES);
+    }
+
+    /**
+     * [v107] Klines with startMs ≤ openTime ≤ endMs — the targeted range fetch used by
+     * CandleIntegrity to fill holes. Weight follows Binance's limit tiers, so a
+     * few-bar repair costs 1 instead of the full-history BINANCE_WEIGHT_KLINES.
+     */
+    private List<com.bot.TradingCore.Candle> fetchKlinesRange(String symbol, String interval,
+                                                              long startMs, long endMs, int limit) {
+        int lim = Math.max(1, Math.min(1500, limit));
+        int weight = lim < 100 ? 1 : lim < 500 ? 2 : lim <= 1000 ? 5 : 10;
+        return fetchKlinesUrl(symbol, interval,
+                String.format("https://fapi.binance.com/fapi/v1/klines?symbol=%s&interval=%s&startTime=%d&endTime=%d&limit=%d",
+                        symbol, interval, startMs, endMs, lim),
+                weight);
+    }
+
+    private List<com.bot.TradingCore.Candle> fetchKlinesUrl(String symbol, String interval, String url, int weight) {
         // Retry with exponential backoff.
         // Return null on HARD failure (so upstream can distinguish "stale" from "empty history").
         // Return empty list ONLY when Binance returned a valid empty JSON array [].
+        if (offline) return null;   // [v102] replay: no REST, and no retry back-off sleeps
         Exception lastEx = null;
         for (int attempt = 0; attempt < 3; attempt++) {
             try {
-                String url = String.format("https://fapi.binance.com/fapi/v1/klines?symbol=%s&interval=%s&limit=%d",
-                        symbol, interval, limit);
                 HttpResponse<String> resp = sendBinanceRequest(
                         HttpRequest.newBuilder().uri(URI.create(url))
                                 .timeout(Duration.ofSeconds(10)).GET().build(),
-                        BINANCE_WEIGHT_KLINES);
+                        weight);
                 if (resp == null) {
                     lastEx = new RuntimeException("sendBinanceRequest returned null (rate-limited?)");
                     Thread.sleep(500L * (1L << attempt));
@@ -3119,12 +3978,22 @@ public final class SignalSender {
             String streamUrl = "wss://fstream.binance.com/stream?streams="
                     + pair.toLowerCase() + "@aggTrade/"
                     + pair.toLowerCase() + "@bookTicker";
+            if (KLINE_WS) {
+                // [v96] + @kline_<iv> for PRIMARY_TF / HTF_FAST / HTF_SLOW on the same connection
+                for (String iv : KLINE_WS_INTERVALS) streamUrl += "/" + pair.toLowerCase() + "@kline_" + iv;
+            }
+            if (DEPTH_WS && depthBookPairs.contains(pair)) {
+                // [v98] + @depth@100ms diffs → LocalOrderBook
+                streamUrl += "/" + pair.toLowerCase() + "@depth@100ms";
+            }
+            final int latGroup = StreamLatency.groupOf(categorizePair(pair));   // [v104]
 
             http.newWebSocketBuilder()
                     .buildAsync(URI.create(streamUrl),
                             new WebSocket.Listener() {
                                 @Override
                                 public CompletionStage<?> onText(WebSocket ws, CharSequence data, boolean last) {
+                                    long recvMs = System.currentTimeMillis(), recvNs = System.nanoTime();
                                     try {
                                         wsMessageCount.incrementAndGet();
                                         JSONObject wrapper = new JSONObject(data.toString());
@@ -3135,10 +4004,23 @@ public final class SignalSender {
                                             return CompletableFuture.completedFuture(null);
                                         }
 
+                                        StreamLatency.Stream kind = null;
                                         if (stream.endsWith("@aggTrade")) {
                                             processAggTrade(pair, j);
+                                            kind = StreamLatency.Stream.AGG_TRADE;
                                         } else if (stream.endsWith("@bookTicker")) {
                                             processBookTicker(pair, j);
+                                            kind = StreamLatency.Stream.BOOK_TICKER;
+                                        } else if (stream.contains("@kline_")) {
+                                            processKline(pair, j);
+                                            kind = StreamLatency.Stream.KLINE;
+                                        } else if (stream.endsWith("@depth@100ms")) {
+                                            processDepthDiff(pair, j);
+                                            kind = StreamLatency.Stream.DEPTH;
+                                        }
+                                        if (kind != null) {
+                                            streamLatency.onFrame(kind, latGroup,
+                                                    j.optLong("E", j.optLong("T", 0L)), recvMs, recvNs);
                                         }
                                     } catch (Exception ignored) {}
                                     ws.request(1); // [BUG-FIX] Java 11 WS backpressure — MUST request next frame
@@ -3174,17 +4056,17 @@ public final class SignalSender {
         if (old != null) {
             try { old.sendClose(WebSocket.NORMAL_CLOSURE, "reconnecting"); } catch (Exception ignored) {}
         }
-        // Gap-fill seed при переподключении WS.
-        // Проблема (из implementation_plan §4.3): при reconnect liveM1Buffer НЕ очищался,
-        // но WS-stream пропустил N тиков → MicroCandleBuilder имеет gap в данных.
-        // Решение: сбрасываем буфер и делаем разовый REST-посев последних 60 баров
-        // (вес=5 на один запрос — минимальная цена за корректность данных).
-        // Это гарантирует что после reconnect бот не торгует на данных с дырой.
-        liveM1Buffer.remove(pair); // сброс буфера — следующий getM1FromWs() сделает seed
-        MicroCandleBuilder staleBuilder = microBuilders.remove(pair);
-        if (staleBuilder != null) {
-            // стартуем свежий builder — старый содержит gap
-        }
+        // Gap-fill при переподключении WS.
+        // WS-stream пропустил N тиков → в in-flight барах builder'а дыра: стартуем свежий
+        // builder (его первый, неполный бар в кольцо не попадает — см. appendM1).
+        // [v107] Кольцо больше НЕ сбрасываем: помечаем пару m1Holed, и следующий
+        // getM1FromWs() докачивает только пропущенные минуты одним range-запросом
+        // (вес 1 вместо полного посева). GAP_REPAIR=0 → старое поведение (сброс + посев).
+        if (CandleIntegrity.ENABLED) m1Holed.add(pair);
+        else liveM1Buffer.remove(pair);
+        microBuilders.remove(pair);
+        LocalOrderBook staleBook = localBooks.get(pair);
+        if (staleBook != null) staleBook.reset(); // [v98] diffs were missed — resync on the next one
 
         long delay = wsReconnectDelay.getOrDefault(pair, WS_INITIAL_DELAY_MS);
         wsWatcher.schedule(() -> connectWsInternal(pair), delay, TimeUnit.MILLISECONDS);
@@ -3195,63 +4077,163 @@ public final class SignalSender {
     private void processBookTicker(String pair, JSONObject j) {
         double bidQty = j.optDouble("B", 0);
         double askQty = j.optDouble("A", 0);
+        if (tickJournal != null) {
+            tickJournal.offer(com.bot.TickJournal.BOOK_TICKER, 0, pair,
+                    j.optLong("T", j.optLong("E", System.currentTimeMillis())),
+                    j.optDouble("b", 0), bidQty, j.optDouble("a", 0), askQty);
+        }
         if (bidQty > 0 || askQty > 0) {
             // Merge with existing depth5 snapshot if available
+            // [v98] A live local book supplies real-time depth-5 instead of the 120s REST poll.
             OrderbookSnapshot existing = orderbookMap.get(pair);
             double bd5 = existing != null ? existing.bidDepth5 : bidQty;
             double ad5 = existing != null ? existing.askDepth5 : askQty;
-            OrderbookSnapshot snap = new OrderbookSnapshot(bidQty, askQty, bd5, ad5, System.currentTimeMillis());
+            LocalOrderBook book = localBooks.get(pair);
+            if (book != null && book.isLive(DEPTH_BOOK_MAX_AGE_MS)) {
+                bd5 = book.depthQty(true, 5);
+                ad5 = book.depthQty(false, 5);
+            }
+            OrderbookSnapshot snap = new OrderbookSnapshot(bidQty, askQty, bd5, ad5, nowMs());
             orderbookMap.put(pair, snap);
 
             // [MODULE 2 v33] COMPUTE ORDER FLOW VELOCITY
-            // Record this OBI tick in the rolling history and derive slope.
-            double currentObi = snap.obi();
-            Deque<double[]> hist = ofvHistory.computeIfAbsent(pair,
-                    k -> new java.util.concurrent.ConcurrentLinkedDeque<>());
-            hist.addLast(new double[]{currentObi, System.currentTimeMillis()});
-            while (hist.size() > OFV_HISTORY_SIZE) hist.removeFirst();
-
-            // Need at least 4 points for a meaningful slope
-            if (hist.size() >= 4) {
-                // Simple linear regression slope: Σ(xi - x̄)(yi - ȳ) / Σ(xi - x̄)²
-                // x = index (0..N-1), y = OBI value
-                double[] pts = hist.stream().mapToDouble(d -> d[0]).toArray();
-                int n = pts.length;
-                double xMean = (n - 1) / 2.0;
-                double yMean = 0;
-                for (double p : pts) yMean += p;
-                yMean /= n;
-                double num = 0, den = 0;
-                for (int i = 0; i < n; i++) {
-                    double dx = i - xMean;
-                    num += dx * (pts[i] - yMean);
-                    den += dx * dx;
-                }
-                double slope = den > 1e-12 ? num / den : 0;
-                ofvScoreMap.put(pair, slope);
-            }
+            // [v93 OFV-O1] O(1) incremental slope over the last OFV_HISTORY_SIZE ticks.
+            // Still needs at least 4 points before a slope is published.
+            ofvHistory.computeIfAbsent(pair, k -> new ObiSlopeWindow(OFV_HISTORY_SIZE, OFV_TIME_WEIGHTED))
+                    .push(snap.obi(), snap.timestamp);
         }
     }
 
-    private void processAggTrade(String pair, JSONObject j) {
-        double price         = Double.parseDouble(j.getString("p"));
-        double qty           = Double.parseDouble(j.getString("q"));
-        long   ts            = j.getLong("T");
-        boolean isBuyerMaker = j.getBoolean("m");
-        double side          = !isBuyerMaker ? qty : -qty;
+    /** [v98] One @depth@100ms diff. Out-of-chain or unsynced → (re)request a snapshot. */
+    private void processDepthDiff(String pair, JSONObject j) {
+        LocalOrderBook book = localBooks.computeIfAbsent(pair, k -> new LocalOrderBook());
+        if (!book.onDiff(j)) requestDepthSnapshot(pair, book);
+    }
 
-        // Standard 60s delta window
-        deltaWindowStart.putIfAbsent(pair, ts);
-        long age = ts - deltaWindowStart.get(pair);
-        if (age > DELTA_WINDOW_MS) {
-            deltaHistory.put(pair, deltaBuffer.getOrDefault(pair, 0.0));
-            deltaBuffer.put(pair, side);
-            deltaWindowStart.put(pair, ts);
-        } else {
-            deltaBuffer.merge(pair, side, Double::sum);
-        }
+    private void requestDepthSnapshot(String pair, LocalOrderBook book) {
+        long now = System.currentTimeMillis();
+        if (now - depthSyncLastMs.getOrDefault(pair, 0L) < DEPTH_RESYNC_MIN_GAP_MS) return;
+        if (!depthSyncPending.add(pair)) return;
+        depthSyncLastMs.put(pair, now);
+        depthSyncPool.execute(() -> {
+            try {
+                if (rlIpBanned || Math.max(rlCurrentWeight.get(), rlServerWeight) > RL_SAFE_WEIGHT) return;
+                HttpRequest req = HttpRequest.newBuilder()
+                        .uri(URI.create("https://fapi.binance.com/fapi/v1/depth?symbol=" + pair + "&limit=100"))
+                        .timeout(Duration.ofSeconds(5))
+                        .GET().build();
+                HttpResponse<String> resp = sendBinanceRequest(req, BINANCE_WEIGHT_DEPTH100);
+                if (resp == null || resp.statusCode() != 200) return;
+                JSONObject o = new JSONObject(resp.body());
+                JSONArray bids = o.optJSONArray("bids"), asks = o.optJSONArray("asks");
+                if (bids == null || asks == null) return;
+                depthResyncs.incrementAndGet();
+                // Buffered diffs that don't chain onto this snapshot leave the book
+                // unsynced; the next diff asks again after DEPTH_RESYNC_MIN_GAP_MS.
+                book.onSnapshot(o.optLong("lastUpdateId", 0), bids, asks);
+            } catch (Exception ignored) {
+                // Non-fatal: next diff re-requests
+            } finally {
+                depthSyncPending.remove(pair);
+            }
+        });
+    }
 
-        // VDA: 10s micro-window acceleration
+    private boolean isLocalBookLive(String pair) {
+        LocalOrderBook book = localBooks.get(pair);
+        return book != null && book.isLive(DEPTH_BOOK_MAX_AGE_MS);
+    }
+
+    /** [v98] {bid, ask} from a live local book, or null. Feeds BinanceTradeExecutor. */
+    public double[] getLocalBestBidAsk(String pair) {
+        LocalOrderBook book = localBooks.get(pair);
+        if (book == null || !book.isLive(DEPTH_BOOK_MAX_AGE_MS)) return null;
+        double bid = book.bestBid(), ask = book.bestAsk();
+        return bid > 0 && ask > bid ? new double[]{bid, ask} : null;
+    }
+
+    /** [v98] Depth-N imbalance from a live local book; NaN when there is none. */
+    public double getLocalBookImbalance(String pair, int levels) {
+        LocalOrderBook book = localBooks.get(pair);
+        return book != null && book.isLive(DEPTH_BOOK_MAX_AGE_MS) ? book.imbalance(levels) : Double.NaN;
+    }
+
+    /** Tick journal counters; empty when TICK_JOURNAL is off. */
+    public String getTickJournalStats() {
+        return tickJournal != null ? tickJournal.stats() : "";
+    }
+
+    /** Short status for the stats log; empty when DEPTH_WS is off. */
+    public String getDepthBookStats() {
+        if (!DEPTH_WS) return "";
+        int live = 0;
+        for (LocalOrderBook b : localBooks.values()) if (b.isLive(DEPTH_BOOK_MAX_AGE_MS)) live++;
+        return String.format("books=%d live=%d resyncs=%d liq-gate=%s would-block=%d",
+                localBooks.size(), live, depthResyncs.get(), L2_LIQ_GATE, l2LiqWouldBlock.get());
+    }
+
+    /** [v104] Last latency window per stream (worst group); empty until frames arrive. */
+    public String getStreamLatencyStats() {
+        return streamLatency.summary();
+    }
+
+    /** Footprint builders and their retained memory; empty when FP_TICK is off. */
+    public String getFootprintStats() {
+        if (!FP_TICK || footprints.isEmpty()) return "";
+        long total = 0, max = 0, bars = 0, coarse = 0, late = 0;
+        for (TickFootprint fp : footprints.values()) {
+            long b = fp.bytes();
+            total += b; max = Math.max(max, b);
+            bars += fp.closedBars(); coarse += fp.coarsenings(); late += fp.lateTrades();
+        }
+        int n = footprints.size();
+        return String.format("symbols=%d mem=%dKB (avg %dKB, max %dKB/symbol) bars=%d coarsened=%d late=%d",
+                n, total >> 10, (total / n) >> 10, max >> 10, bars, coarse, late);
+    }
+
+    // ── [v102] Package-private entry points for TickReplay (same handlers as the WS callbacks) ──
+    void setClock(java.util.function.LongSupplier c) { this.clock = c; }
+    void replayAggTrade(String pair, JSONObject j)   { processAggTrade(pair, j); }
+    void replayBookTicker(String pair, JSONObject j) { processBookTicker(pair, j); }
+    void replayLiquidation(JSONObject event)         { processLiquidationEvent(event); }
+    void replayEvaluateEarlyTicks()                  { if (ENABLE_EARLY_TICK && EARLY_TICK_COALESCE) evaluateDirtyEarlyTicks(); }
+    long hotRescanTriggers()                         { return hotPairTotalTriggers.get(); }
+
+    /** Removes and returns the buffered EARLY_TICK candidates (what flushEarlyTickBuffer would rank). */
+    List<com.bot.DecisionEngineMerged.TradeIdea> drainEarlyTickCandidates() {
+        List<com.bot.DecisionEngineMerged.TradeIdea> out = new ArrayList<>();
+        for (String pair : new ArrayList<>(earlyTickBuffer.keySet())) {
+            com.bot.DecisionEngineMerged.TradeIdea idea = earlyTickBuffer.remove(pair);
+            earlyTickOriginMs.remove(pair);
+            if (idea != null) out.add(idea);
+        }
+        return out;
+    }
+
+    private void processAggTrade(String pair, JSONObject j) {
+        double price         = Double.parseDouble(j.getString("p"));
+        double qty           = Double.parseDouble(j.getString("q"));
+        long   ts            = j.getLong("T");
+        boolean isBuyerMaker = j.getBoolean("m");
+        double side          = !isBuyerMaker ? qty : -qty;
+        int tradeCount = (int) Math.max(1L, j.optLong("l", 0L) - j.optLong("f", 0L) + 1L);
+        if (tickJournal != null) {
+            tickJournal.offer(com.bot.TickJournal.AGG_TRADE, isBuyerMaker ? 1 : 0, pair, ts,
+                    price, qty, tradeCount, 0);
+        }
+
+        // Standard 60s delta window
+        deltaWindowStart.putIfAbsent(pair, ts);
+        long age = ts - deltaWindowStart.get(pair);
+        if (age > DELTA_WINDOW_MS) {
+            deltaHistory.put(pair, deltaBuffer.getOrDefault(pair, 0.0));
+            deltaBuffer.put(pair, side);
+            deltaWindowStart.put(pair, ts);
+        } else {
+            deltaBuffer.merge(pair, side, Double::sum);
+        }
+
+        // VDA: 10s micro-window acceleration
         vdaWindowStart.putIfAbsent(pair, ts);
         long vdaAge = ts - vdaWindowStart.get(pair);
         if (vdaAge > VDA_WINDOW_MS) {
@@ -3291,12 +4273,19 @@ public final class SignalSender {
         }
 
         // Tick history
+        // [v99] Features update in O(1); the price deque is kept for SignalOptimizer and
+        // trimmed off the window's own count (ConcurrentLinkedDeque.size() is O(n)).
+        TickFeatureWindow tf = tickFeatures.computeIfAbsent(pair, k -> new TickFeatureWindow(TICK_HISTORY));
+        boolean tickFull = tf.size() >= TICK_HISTORY;
+        tf.push(price, qty);
         Deque<Double> dq = tickPriceDeque.computeIfAbsent(pair, k -> new java.util.concurrent.ConcurrentLinkedDeque<>());
-        dq.addLast(price); while (dq.size() > TICK_HISTORY) dq.pollFirst();
-        Deque<Double> vq = tickVolumeDeque.computeIfAbsent(pair, k -> new java.util.concurrent.ConcurrentLinkedDeque<>());
-        vq.addLast(qty);   while (vq.size() > TICK_HISTORY) vq.pollFirst();
+        dq.addLast(price); if (tickFull) dq.pollFirst();
         lastTickPrice.put(pair, price);
         lastTickTime.put(pair, ts);
+        if (FP_TICK) {
+            footprints.computeIfAbsent(pair, k -> new TickFootprint(PRIMARY_TF_MS))
+                    .onTrade(ts, price, qty, isBuyerMaker);
+        }
 
         // HOT PAIR RESCAN — detect rapid price acceleration and trigger immediate analysis.
         // Called after tick deques updated so maybeHotRescan() has fresh 30-tick window.
@@ -3304,74 +4293,116 @@ public final class SignalSender {
         maybeHotRescan(pair, price);
 
         // [v36-FIX Дыра1/2] Wire WS tick → liveM1Buffer (1m candle from aggTrade)
-        Optional<com.bot.TradingCore.Candle> closedM1 =
-                microBuilders.computeIfAbsent(pair, k -> new MicroCandleBuilder(60_000))
-                        .addTick(ts, price, qty);
-        closedM1.ifPresent(c -> liveM1Buffer.compute(pair, (k, existing) -> {
-            List<com.bot.TradingCore.Candle> buf =
-                    existing != null ? new ArrayList<>(existing) : new ArrayList<>();
-            buf.add(c);
-            if (buf.size() > LIVE_M1_BUFFER_SIZE) buf.subList(0, buf.size() - LIVE_M1_BUFFER_SIZE).clear();
-            return buf;
-        }));
+        // [v95] Same tick also feeds 1s..4h bars with real quote/taker volume and trade count.
+        MicroCandleBuilder builder =
+                microBuilders.computeIfAbsent(pair, k -> new MicroCandleBuilder(BUILDER_INTERVALS_MS, 60_000L));
+        Optional<com.bot.TradingCore.Candle> closedM1 = builder.addTick(ts, price, qty, isBuyerMaker, tradeCount);
+        closedM1.ifPresent(c -> appendM1(pair, builder, c));
+        if (closedM1.isPresent() && barClose.isRunning()
+                && (closedM1.get().openTime + 60_000L) % PRIMARY_TF_MS == 0) {
+            barClose.onClose(pair, closedM1.get().openTime + 60_000L);   // [v109] tick-built close
+        }
 
         if (ENABLE_EARLY_TICK) {
-            // [v62 FIX] Cheapest filter first: refuse to even compute EARLY_TICK
-            // for blocklisted (non-ASCII / garbage) or soft-blocklisted (3× SL>max)
-            // pairs. Previously these passed through here, got rejected at SL-gate
-            // one second later, and spam-logged. Stop at the source.
-            if (isBlocklisted(pair)) return;
-            Long earlySoftUntil = hotSoftBlocklist.get(pair);
-            if (earlySoftUntil != null) {
-                if (System.currentTimeMillis() < earlySoftUntil) return;
-                hotSoftBlocklist.remove(pair);
-                hotSlFailures.remove(pair);
-            }
-
-            // Soft session gate. Asian session is exactly when meme pumps happen —
-            // hard-blocking would systematically miss the most profitable setups.
-            // Penalty was 12pt — too aggressive, killed valid pre-pump signals
-            // in the only window where they fire on small-cap coins. 6pt is enough
-            // to suppress noise but lets real velocity events through.
-            double sessionWeight = getSessionWeight();
-            double sessionPenalty = sessionWeight < 0.85 ? 6.0 : 0.0;
-
-            com.bot.DecisionEngineMerged.TradeIdea et = generateEarlyTickSignal(pair, price, ts);
-            if (et != null && sessionPenalty > 0) {
-                List<String> thinFlags = new ArrayList<>(et.flags);
-                thinFlags.add("THIN_SESSION_" + String.format("%.2f", sessionWeight));
-                et = rebuildIdea(et, et.probability - sessionPenalty, thinFlags);
-            }
-            if (et != null && filterEarlySignal(et)) {
-                // EARLY_TICK forecast gate — category-aware, asymmetric.
-                // Blocks only when ForecastEngine is *actively* against the trade
-                // by more than the category-specific opposing threshold.
-                boolean fcPasses = com.bot.DecisionEngineMerged.forecastPassesEarlyTickGate(
-                        et.forecast,
-                        et.side == com.bot.TradingCore.Side.LONG,
-                        et.category != null ? et.category : categorizePair(et.symbol));
-                if (!fcPasses) {
-                    return;
+            earlyTickTicks.incrementAndGet();
+            if (!EARLY_TICK_COALESCE) {
+                evaluateEarlyTick(pair, price, ts, nowMs());
+            } else {
+                // [v100] Mark dirty; a jump of EARLY_TICK_TRIGGER_PCT since the last
+                // evaluation is handled right here so squeezes aren't delayed.
+                EarlyTickSlot slot = earlyTickSlots.computeIfAbsent(pair, k -> new EarlyTickSlot());
+                long processedMs = nowMs();
+                if (slot.mark(price, ts, processedMs, EARLY_TICK_TRIGGER_PCT) && slot.claim(processedMs, 0L, EARLY_TICK_BAR_MS)) {
+                    earlyTickImmediate.incrementAndGet();
+                    earlyTickEvals.incrementAndGet();
+                    evaluateEarlyTick(pair, price, ts, processedMs);
                 }
+            }
+        }
+    }
 
-                earlyTickBuffer.merge(pair, et, (existing, candidate) ->
-                        candidate.probability > existing.probability ? candidate : existing);
+    /**
+     * [v100] Runs the EARLY_TICK chain (generate → filter → forecast gate → buffer)
+     * for one pair at {@code price}. Formerly inlined in processAggTrade on every trade.
+     */
+    private void evaluateEarlyTick(String pair, double price, long ts, long processedMs) {
+        // [v62 FIX] Cheapest filter first: refuse to even compute EARLY_TICK
+        // for blocklisted (non-ASCII / garbage) or soft-blocklisted (3× SL>max)
+        // pairs. Previously these passed through here, got rejected at SL-gate
+        // one second later, and spam-logged. Stop at the source.
+        if (isBlocklisted(pair)) return;
+        Long earlySoftUntil = hotSoftBlocklist.get(pair);
+        if (earlySoftUntil != null) {
+            if (nowMs() < earlySoftUntil) return;
+            hotSoftBlocklist.remove(pair);
+            hotSlFailures.remove(pair);
+        }
+
+        // Soft session gate. Asian session is exactly when meme pumps happen —
+        // hard-blocking would systematically miss the most profitable setups.
+        // Penalty was 12pt — too aggressive, killed valid pre-pump signals
+        // in the only window where they fire on small-cap coins. 6pt is enough
+        // to suppress noise but lets real velocity events through.
+        double sessionWeight = getSessionWeight();
+        double sessionPenalty = sessionWeight < 0.85 ? 6.0 : 0.0;
+
+        com.bot.DecisionEngineMerged.TradeIdea et = generateEarlyTickSignal(pair, price, ts);
+        if (et != null && sessionPenalty > 0) {
+            List<String> thinFlags = new ArrayList<>(et.flags);
+            thinFlags.add("THIN_SESSION_" + String.format("%.2f", sessionWeight));
+            et = rebuildIdea(et, et.probability - sessionPenalty, thinFlags);
+        }
+        if (et != null && filterEarlySignal(et)) {
+            // EARLY_TICK forecast gate — category-aware, asymmetric.
+            // Blocks only when ForecastEngine is *actively* against the trade
+            // by more than the category-specific opposing threshold.
+            boolean fcPasses = com.bot.DecisionEngineMerged.forecastPassesEarlyTickGate(
+                    et.forecast,
+                    et.side == com.bot.TradingCore.Side.LONG,
+                    et.category != null ? et.category : categorizePair(et.symbol));
+            if (!fcPasses) {
+                return;
             }
+
+            com.bot.DecisionEngineMerged.TradeIdea kept = earlyTickBuffer.merge(pair, et, (existing, candidate) ->
+                    candidate.probability > existing.probability ? candidate : existing);
+            if (kept == et) earlyTickOriginMs.put(pair, processedMs);   // [v104] proc→signal origin
         }
     }
 
+    /** [v100] Scheduled pass over dirty pairs: at most one evaluation per pair per EARLY_TICK_EVAL_MS. */
+    private void evaluateDirtyEarlyTicks() {
+        try {
+            long now = nowMs();
+            for (Map.Entry<String, EarlyTickSlot> e : earlyTickSlots.entrySet()) {
+                EarlyTickSlot slot = e.getValue();
+                if (!slot.claim(now, EARLY_TICK_EVAL_MS, EARLY_TICK_BAR_MS)) continue;
+                earlyTickEvals.incrementAndGet();
+                evaluateEarlyTick(e.getKey(), slot.price(), slot.ts(), slot.markedMs());
+            }
+        } catch (Throwable t) {
+            LOG.warning("[EARLY-EVAL] " + t.getMessage());
+        }
+    }
+
+    /** Evaluations vs ticks since start; empty when coalescing is off. */
+    public String getEarlyTickEvalStats() {
+        if (!ENABLE_EARLY_TICK || !EARLY_TICK_COALESCE) return "";
+        long ticks = earlyTickTicks.get(), evals = earlyTickEvals.get();
+        return String.format("ticks=%d evals=%d (immediate=%d) avoided=%d (%.1f%%)",
+                ticks, evals, earlyTickImmediate.get(), ticks - evals,
+                ticks > 0 ? 100.0 * (ticks - evals) / ticks : 0.0);
+    }
+
     // [v29+v30+v34] EARLY TICK — rewritten with exhaustion guard + VDA + correct conf floor
     // Category-aware velocity threshold: TOP coins (BTC/ETH) move slower in %
     private com.bot.DecisionEngineMerged.TradeIdea generateEarlyTickSignal(String symbol, double price, long ts) {
-        Deque<Double> dq = tickPriceDeque.get(symbol);
-        Deque<Double> vq = tickVolumeDeque.get(symbol);
-        if (dq == null || dq.size() < 30 || vq == null || vq.size() < 30) return null;
-        List<Double> buf    = new ArrayList<>(dq);
-        List<Double> volBuf = new ArrayList<>(vq);
-        int n = buf.size();
-
-        double move = buf.get(n - 1) - buf.get(n - 22);
-        double avg  = buf.stream().mapToDouble(Double::doubleValue).average().orElse(price);
+        // [v99] Reads the shared TickFeatureWindow — no deque copies, no streams.
+        TickFeatureWindow tf = tickFeatures.get(symbol);
+        if (tf == null || tf.size() < 30) return null;
+
+        double move = tf.moveTicks(21);
+        double avg  = tf.mean();
         double vel  = Math.abs(move) / (avg + 1e-9);
 
         // [v77 LATENCY] Velocity floors halved — catch the impulse 1-2 ticks
@@ -3395,12 +4426,11 @@ public final class SignalSender {
         if (atrV <= 0) atrV = price * 0.005;
 
         // EXHAUSTION GUARD: if already > 2.5×ATR from base → tail, not start
-        double recentBase = up
-                ? buf.subList(Math.max(0, n - 40), n - 1).stream().mapToDouble(Double::doubleValue).min().orElse(price)
-                : buf.subList(Math.max(0, n - 40), n - 1).stream().mapToDouble(Double::doubleValue).max().orElse(price);
+        double priorLow = tf.priorMin(), priorHigh = tf.priorMax(), lastPx = tf.last();
+        double recentBase = up ? priorLow : priorHigh;
         double moveFromBase  = Math.abs(price - recentBase);
-        double tickRangeHigh = buf.subList(Math.max(0, n - 40), n).stream().mapToDouble(Double::doubleValue).max().orElse(price);
-        double tickRangeLow  = buf.subList(Math.max(0, n - 40), n).stream().mapToDouble(Double::doubleValue).min().orElse(price);
+        double tickRangeHigh = Math.max(priorHigh, lastPx);
+        double tickRangeLow  = Math.min(priorLow, lastPx);
         double exhaustThresh = Math.max(atrV, (tickRangeHigh - tickRangeLow) * 0.60);
         // Exhaustion guard lowered 2.5→2.0 — was letting through late entries
         if (moveFromBase > exhaustThresh * 2.0) return null;
@@ -3411,9 +4441,7 @@ public final class SignalSender {
         // At 1.35 the second half must be 35% faster = move already obvious.
         // At 1.15 we catch the acceleration 1-2 ticks earlier.
         double accelThreshold = etCat == com.bot.DecisionEngineMerged.CoinCategory.TOP ? 1.08 : 1.15;
-        double m1 = buf.get(n / 2 - 1) - buf.get(0);
-        double m2 = buf.get(n - 1) - buf.get(n / 2);
-        if (!(Math.abs(m2) > Math.abs(m1) * accelThreshold)) return null;
+        if (!(tf.halfMoveRatio() > accelThreshold)) return null;
 
         // VDA: must not actively disagree
         double vda = vdaScoreMap.getOrDefault(symbol, 0.0);
@@ -3423,16 +4451,12 @@ public final class SignalSender {
         // TOP coins: lower volume spike threshold (institutional flow is steadier)
         // Volume spike threshold lowered for earlier detection.
         double volSpikeThresh = etCat == com.bot.DecisionEngineMerged.CoinCategory.TOP ? 1.08 : 1.18;
-        int vw = Math.min(30, volBuf.size());
-        double avgVol = volBuf.subList(0, vw - 5).stream().mapToDouble(Double::doubleValue).average().orElse(0.001);
-        double recVol = volBuf.subList(vw - 5, vw).stream().mapToDouble(Double::doubleValue).average().orElse(0);
-        if (recVol < avgVol * volSpikeThresh) return null;
+        // [v99] Last 5 ticks vs the 25 before them. The old subList(0, 30) read the
+        // OLDEST 30 of TICK_HISTORY ticks, i.e. a surge that had ended a minute ago.
+        if (tf.volumeSurge() < volSpikeThresh) return null;
 
         // Tick streak
-        int streak = 0;
-        for (int i = n - 1; i >= Math.max(1, n - 5); i--) {
-            if ((buf.get(i) >= buf.get(i - 1)) == up) streak++; else break;
-        }
+        int streak = Math.min(5, tf.streak(up));
         if (streak < 2) return null;
 
         // VOLATILITY-AWARE EARLY_TICK CONFIDENCE GATE
@@ -3454,7 +4478,7 @@ public final class SignalSender {
 
         // EXTREME noise block: хаотичная монета — EARLY_TICK невозможен
         if (noiseScoreV > 4.0 && atrVPct > 0.015) {
-            blockedEarlyConf.incrementAndGet();
+            blocks.inc(blockedEarlyConf);
             return null;
         }
 
@@ -3484,7 +4508,7 @@ public final class SignalSender {
 
         // Final gate: if conf < dynamic floor, drop signal
         if (conf < etConfFloor) {
-            blockedEarlyConf.incrementAndGet();
+            blocks.inc(blockedEarlyConf);
             return null;
         }
 
@@ -3596,26 +4620,25 @@ public final class SignalSender {
         if (isBlocklisted(pair)) return;
         Long softUntil = hotSoftBlocklist.get(pair);
         if (softUntil != null) {
-            if (System.currentTimeMillis() < softUntil) return;
+            if (nowMs() < softUntil) return;
             hotSoftBlocklist.remove(pair);
             hotSlFailures.remove(pair);
         }
 
         // Cooldown: don't rescan same pair more often than HOT_PAIR_COOLDOWN_MS
         Long lastRescan = hotPairLastRescan.get(pair);
-        long now = System.currentTimeMillis();
+        long now = nowMs();
         if (lastRescan != null && now - lastRescan < HOT_PAIR_COOLDOWN_MS) return;
 
         // Max concurrent rescans: protect fetchPool
         if (hotPairActiveCount.get() >= HOT_PAIR_MAX_CONCURRENT) return;
 
         // Measure 30-tick price move
-        Deque<Double> dq = tickPriceDeque.get(pair);
-        if (dq == null || dq.size() < 30) return;
+        // [v99] From the shared TickFeatureWindow instead of copying the deque.
+        TickFeatureWindow tf = tickFeatures.get(pair);
+        if (tf == null || tf.size() < 30) return;
 
-        List<Double> ticks = new ArrayList<>(dq);
-        int sz = ticks.size();
-        double priceBase = ticks.get(Math.max(0, sz - 31));
+        double priceBase = tf.price(Math.max(0, tf.size() - 31));
         if (priceBase <= 0) return;
         double movePct = (price - priceBase) / priceBase;
 
@@ -3646,6 +4669,7 @@ public final class SignalSender {
 
         // Mark rescan to prevent duplicate triggers during this move
         hotPairLastRescan.put(pair, now);
+        if (offline) { hotPairTotalTriggers.incrementAndGet(); return; } // [v102] replay: count only
         hotPairActiveCount.incrementAndGet();
         hotPairTotalTriggers.incrementAndGet();
 
@@ -3705,6 +4729,7 @@ public final class SignalSender {
         // Prevents "5 signals in 3 minutes" flood that happens on reconnect.
         if (System.currentTimeMillis() - wsLastReconnectMs < WS_WARMUP_MS) {
             earlyTickBuffer.clear(); // Discard stale pre-reconnect candidates
+            earlyTickOriginMs.clear();
             return;
         }
 
@@ -3752,6 +4777,7 @@ public final class SignalSender {
         double rrMult = isc.getReducedRiskMultiplier();
 
         for (com.bot.DecisionEngineMerged.TradeIdea et : candidates) {
+            Long originMs = earlyTickOriginMs.remove(et.symbol);   // [v104]
             // Re-check ISC (state may have changed since buffering)
             if (!isc.isSymbolAvailable(et.symbol)) continue;
 
@@ -3868,6 +4894,9 @@ public final class SignalSender {
             com.bot.BotMain.Dispatcher.Result res = disp.dispatch(finalEt, "EARLY_TICK");
             if (res.dispatched) {
                 earlySignals.incrementAndGet();
+                if (originMs != null) {
+                    streamLatency.onSignal(StreamLatency.groupOf(cat), originMs, System.currentTimeMillis());
+                }
                 recordEarlyTickSent(finalEt.symbol);
                 registerApprovedSignalNoTrack(finalEt, finalEt.symbol, cat, sector,
                         System.currentTimeMillis());
@@ -3908,20 +4937,24 @@ public final class SignalSender {
     private void refreshAllFundingRates() {
         if (rlIpBanned) return;
         try {
-            // Bulk funding rates — 1 request for ALL pairs (weight ~10)
-            HttpResponse<String> resp = sendBinanceRequest(
-                    HttpRequest.newBuilder().uri(URI.create("https://fapi.binance.com/fapi/v1/premiumIndex"))
-                            .timeout(Duration.ofSeconds(15)).GET().build(),
-                    BINANCE_WEIGHT_PREMIUM_INDEX);
-            if (resp == null) return;
-            JSONArray arr = new JSONArray(resp.body());
-            Map<String, Double> rates = new HashMap<>(arr.length());
-            for (int i = 0; i < arr.length(); i++) { JSONObject o = arr.getJSONObject(i); rates.put(o.getString("symbol"), o.optDouble("lastFundingRate", 0)); }
-
-            // Apply funding to ALL pairs from bulk response (no extra requests)
-            for (String pair : cachedPairs) {
-                double fr = rates.getOrDefault(pair, 0.0);
-                decisionEngine.updateFundingOI(pair, fr, 0, 0, 0); // funding from bulk, OI below
+            Map<String, Double> rates;
+            if (isBulkStreamFresh()) {
+                // [v97] Funding from the mark-price stream — zero REST weight
+                rates = new HashMap<>(cachedPairs.size() * 2);
+                for (String pair : cachedPairs) {
+                    int slot = marketSlots.find(pair);
+                    if (slot >= 0 && marketSlots.fundingUpdatedMs[slot] > 0) rates.put(pair, marketSlots.fundingRate[slot]);
+                }
+            } else {
+                // Bulk funding rates — 1 request for ALL pairs (weight ~10)
+                HttpResponse<String> resp = sendBinanceRequest(
+                        HttpRequest.newBuilder().uri(URI.create("https://fapi.binance.com/fapi/v1/premiumIndex"))
+                                .timeout(Duration.ofSeconds(15)).GET().build(),
+                        BINANCE_WEIGHT_PREMIUM_INDEX);
+                if (resp == null) return;
+                JSONArray arr = new JSONArray(resp.body());
+                rates = new HashMap<>(arr.length());
+                for (int i = 0; i < arr.length(); i++) { JSONObject o = arr.getJSONObject(i); rates.put(o.getString("symbol"), o.optDouble("lastFundingRate", 0)); }
             }
 
             // FIX: OI only for top 20 by volume (was 100 = 200 requests every 5 min)
@@ -3930,35 +4963,179 @@ public final class SignalSender {
             oiPairs.sort((a, b) -> Double.compare(
                     volume24hUSD.getOrDefault(b, 0.0),
                     volume24hUSD.getOrDefault(a, 0.0)));
-            int oiLimit = Math.min(FUNDING_OI_TOP_N, oiPairs.size());
+            Set<String> oiSet = new HashSet<>(oiPairs.subList(0, Math.min(FUNDING_OI_TOP_N, oiPairs.size())));
 
-            for (int i = 0; i < oiLimit; i++) {
-                if (rlIpBanned) break;
-                try {
-                    fetchAndUpdateOI(oiPairs.get(i), rates.getOrDefault(oiPairs.get(i), 0.0));
-                    if (i % 5 == 4) Thread.sleep(300);
-                }
-                catch (InterruptedException ie) { Thread.currentThread().interrupt(); break; }
-                catch (Exception ignored) {}
+            // Apply funding to ALL pairs (no extra requests), with the last known OI.
+            // [v97] OI pairs are then queued for the batcher, which refreshes only the OI
+            // value (updateOpenInterest) — funding never waits on REST weight.
+            long nowMs = System.currentTimeMillis();
+            for (String pair : cachedPairs) {
+                decisionEngine.updateFundingOI(pair, rates.getOrDefault(pair, 0.0), lastKnownOi(pair), 0, 0);
+                if (oiSet.contains(pair) && oiPending.putIfAbsent(pair, nowMs) == null) oiQueue.add(pair);
             }
         } catch (Exception e) { LOG.warning("[FR] Error: " + e.getMessage()); }
     }
 
-    private void fetchAndUpdateOI(String symbol, double fr) {
+    /** [v97] Funding for {@code symbol}: live stream slot if fresh, else the engine's last REST value. */
+    private double currentFundingRate(String symbol) {
+        int slot = marketSlots.find(symbol);
+        if (slot >= 0 && isBulkStreamFresh() && marketSlots.fundingUpdatedMs[slot] > 0) return marketSlots.fundingRate[slot];
+        com.bot.DecisionEngineMerged.FundingOIData d = decisionEngine.getFundingOI(symbol);
+        return d != null ? d.fundingRate : 0.0;
+    }
+
+    private double lastKnownOi(String symbol) {
+        int slot = marketSlots.find(symbol);
+        return slot >= 0 ? marketSlots.openInterest[slot] : 0.0;
+    }
+
+    /**
+     * [v97] Low-priority OI drain: OI_BATCH symbols per tick, yields while weight is above
+     * half of RL_SAFE_WEIGHT — unless the oldest queued symbol has waited OI_MAX_WAIT_MS.
+     */
+    private void drainOiQueue() {
+        try {
+            if (oiQueue.isEmpty() || rlIpBanned) return;
+            long weight = Math.max(rlCurrentWeight.get(), rlServerWeight);
+            if (weight > RL_SAFE_WEIGHT / 2) {
+                String head = oiQueue.peek();
+                Long queuedAt = head != null ? oiPending.get(head) : null;
+                boolean starved = queuedAt != null && System.currentTimeMillis() - queuedAt >= OI_MAX_WAIT_MS;
+                if (!starved || weight > RL_SAFE_WEIGHT) return;
+            }
+            for (int i = 0; i < OI_BATCH; i++) {
+                String sym = oiQueue.poll();
+                if (sym == null) break;
+                oiPending.remove(sym);
+                fetchAndUpdateOI(sym);
+            }
+        } catch (Throwable t) { LOG.warning("[OI] drain: " + t.getMessage()); }
+    }
+
+    private void fetchAndUpdateOI(String symbol) {
         try {
             // Only current OI, skip expensive oiHist (saves 1 request per pair)
             HttpResponse<String> resp = sendBinanceRequest(
                     HttpRequest.newBuilder().uri(URI.create("https://fapi.binance.com/fapi/v1/openInterest?symbol="+symbol))
                             .timeout(Duration.ofSeconds(6)).GET().build(),
                     BINANCE_WEIGHT_OPEN_INTEREST);
-            if (resp == null) {
-                decisionEngine.updateFundingOI(symbol, fr, 0, 0, 0);
-                return;
-            }
+            if (resp == null) return;   // funding already applied with the last known OI
             JSONObject oiJ = new JSONObject(resp.body());
             double oi = oiJ.optDouble("openInterest", 0);
-            decisionEngine.updateFundingOI(symbol, fr, oi, 0, 0);
-        } catch (Exception e) { decisionEngine.updateFundingOI(symbol, fr, 0, 0, 0); }
+            if (oi <= 0) return;
+            int slot = marketSlots.idOf(symbol);
+            if (slot >= 0) marketSlots.openInterest[slot] = oi;
+            decisionEngine.updateOpenInterest(symbol, oi);
+        } catch (Exception e) { LOG.fine("[OI] " + symbol + ": " + e.getMessage()); }
+    }
+
+    //  [v97] BULK MARKET STREAM (!markPrice@arr + !miniTicker@arr)
+
+    private boolean isBulkStreamFresh() {
+        return BULK_MARKET_WS && System.currentTimeMillis() - marketSlots.lastFrameMs < BULK_WS_STALE_MS;
+    }
+
+    private void connectBulkMarketStream() {
+        try {
+            http.newWebSocketBuilder()
+                    .buildAsync(URI.create("wss://fstream.binance.com/ws"),   // same '!'-in-SUBSCRIBE pattern as the liq stream [v88.1]
+                            new WebSocket.Listener() {
+                                private final StringBuilder buf = new StringBuilder();
+
+                                @Override
+                                public CompletionStage<?> onText(WebSocket ws, CharSequence data, boolean last) {
+                                    buf.append(data);   // array frames are ~60 KB → arrive fragmented
+                                    if (last) {
+                                        long recvMs = System.currentTimeMillis(), recvNs = System.nanoTime();
+                                        try {
+                                            long eventMs = processBulkMarketFrame(buf.toString());
+                                            if (eventMs > 0) streamLatency.onFrame(StreamLatency.Stream.BULK,
+                                                    StreamLatency.MIXED, eventMs, recvMs, recvNs);
+                                        }
+                                        catch (Exception ignored) {}
+                                        buf.setLength(0);
+                                    }
+                                    ws.request(1);
+                                    return CompletableFuture.completedFuture(null);
+                                }
+
+                                @Override
+                                public void onError(WebSocket ws, Throwable err) {
+                                    bulkMarketWebSocket = null;
+                                    udsExecutor.schedule(SignalSender.this::connectBulkMarketStream, 15, TimeUnit.SECONDS);
+                                }
+
+                                @Override
+                                public CompletionStage<?> onClose(WebSocket ws, int code, String reason) {
+                                    bulkMarketWebSocket = null;
+                                    udsExecutor.schedule(SignalSender.this::connectBulkMarketStream, 5, TimeUnit.SECONDS);
+                                    return CompletableFuture.completedFuture(null);
+                                }
+                            })
+                    .thenAccept(ws -> {
+                        bulkMarketWebSocket = ws;
+                        try { ws.sendText("{\"method\":\"SUBSCRIBE\",\"params\":[\"!markPrice@arr\",\"!miniTicker@arr\"],\"id\":2}", true); }
+                        catch (Throwable t) { LOG.warning("[BULK] subscribe send: " + t.getMessage()); }
+                        LOG.info("[BULK] ✅ markPrice/miniTicker stream connected + SUBSCRIBE sent");
+                    })
+                    .exceptionally(ex -> {
+                        LOG.warning("[BULK] Connect failed: " + ex.getMessage());
+                        udsExecutor.schedule(this::connectBulkMarketStream, 30, TimeUnit.SECONDS);
+                        return null;
+                    });
+        } catch (Exception e) {
+            LOG.warning("[BULK] Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * One array frame of markPriceUpdate or 24hrMiniTicker events → slots. Acks/objects are ignored.
+     * Returns the newest event time in the frame (0 if none) for latency accounting.
+     */
+    private long processBulkMarketFrame(String text) {
+        if (text.isEmpty() || text.charAt(0) != '[') return 0L;
+        JSONArray arr = new JSONArray(text);
+        long now = System.currentTimeMillis(), newestEvent = 0L;
+        for (int i = 0; i < arr.length(); i++) {
+            JSONObject o = arr.optJSONObject(i);
+            if (o == null) continue;
+            newestEvent = Math.max(newestEvent, o.optLong("E", 0L));
+            String sym = o.optString("s", "");
+            int slot = marketSlots.idOf(sym);
+            if (slot < 0) continue;
+            if (nlLoaded && NL_WS) nlNoticeSymbol(sym, now);   // [v106] new listing appears here first
+            String e = o.optString("e", "");
+            if ("markPriceUpdate".equals(e)) {
+                marketSlots.markPrice[slot]        = o.optDouble("p", 0);
+                marketSlots.fundingRate[slot]      = o.optDouble("r", 0);
+                marketSlots.nextFundingMs[slot]    = o.optLong("T", 0);
+                marketSlots.fundingUpdatedMs[slot] = now;
+            } else if ("24hrMiniTicker".equals(e)) {
+                marketSlots.lastPrice[slot]        = o.optDouble("c", 0);
+                marketSlots.quoteVolume24h[slot]   = o.optDouble("q", 0);
+                marketSlots.tickerUpdatedMs[slot]  = now;
+                if (ScanFunnel.ENABLED) scanFunnel.sample(slot, now, marketSlots.lastPrice[slot], marketSlots.quoteVolume24h[slot]);   // [v108]
+            }
+        }
+        bulkFrames.incrementAndGet();
+        marketSlots.lastFrameMs = now;
+        return newestEvent;
+    }
+
+    /** [v97] Republishes 24h quote volume from the mini-ticker slots into volume24hUSD. */
+    private void publishVolumeFromSlots() {
+        if (!isBulkStreamFresh()) return;
+        long cutoff = System.currentTimeMillis() - VOL_REFRESH_MS;
+        for (int slot = 0, n = marketSlots.size(); slot < n; slot++) {
+            double v = marketSlots.quoteVolume24h[slot];
+            if (v > 0 && marketSlots.tickerUpdatedMs[slot] > cutoff) volume24hUSD.put(marketSlots.symbol(slot), v);
+        }
+    }
+
+    /** [v97] Next funding settlement (epoch ms) from the mark-price stream, 0 if unknown. */
+    public long getNextFundingTime(String symbol) {
+        int slot = marketSlots.find(symbol);
+        return slot >= 0 ? marketSlots.nextFundingMs[slot] : 0L;
     }
 
     //  REFRESH VOLUME + PAIRS
@@ -4103,8 +5280,10 @@ public final class SignalSender {
      *       onboard time), send a Telegram alert, add it to the known-set.
      *   (2) advance every active recording window: append fresh 1m klines +
      *       (live) funding + L1 spread to ./data, idempotently; retire expired windows.
-     * Never trades, never touches the signal/calibrator path. Runs single-threaded
-     * on mainSched, so the maps need no extra locking.
+     *       [v106] Windows with a live NL stream flush their locally built bars instead.
+     * Never trades, never touches the signal/calibrator path. Runs on mainSched; the
+     * [v106] bulk-stream confirm (udsExecutor) arms through the same nlArmNew, whose
+     * known-set add is atomic, so a symbol is armed and alerted once.
      */
     public void checkNewListings() {
         try {
@@ -4121,52 +5300,18 @@ public final class SignalSender {
             }
 
             long now = System.currentTimeMillis();
-            long recentCut = now - NL_RECORD_HOURS * 3600_000L;
-            // Cold start: first boot with no known-set → seed the whole universe, but only
-            // ARM+ALERT symbols onboarded within the last NL_RECORD_HOURS, so an in-flight
-            // listing isn't silently absorbed on the first deploy (no ~400-symbol alert storm).
-            boolean coldStart = nlKnownSymbols.isEmpty();
-
-            boolean dirty = false;
-            int seeded = 0, armed = 0;
-            for (Map.Entry<String, Long> e : onboard.entrySet()) {
-                String sym = e.getKey();
-                if (nlKnownSymbols.contains(sym)) continue;
-                nlKnownSymbols.add(sym);
-                seeded++;
-                dirty = true;
-                long onboardMs = e.getValue();
-                // Steady state: every not-yet-known symbol is new. Cold start: only the
-                // recently-onboarded ones (older symbols are just the seeded baseline).
-                boolean isNew = !coldStart || (onboardMs > 0 && onboardMs >= recentCut);
-                if (!isNew) continue;
-                // Anchor the window to the real listing time when known → exactly first-N-hours.
-                long until = (onboardMs > 0 ? onboardMs : now) + NL_RECORD_HOURS * 3600_000L;
-                nlRecordingUntil.put(sym, until);
-                armed++;
-                String age = onboardMs > 0
-                        ? String.format("%.1fч назад", (now - onboardMs) / 3600_000.0) : "время неизв.";
-                try {
-                    this.bot.sendMessageAsync(
-                            "🆕 *NEW LISTING* `" + sym + "`\n"
-                          + "onboard " + age + " · запись микроструктуры "
-                          + NL_RECORD_HOURS + "ч → ./data\n"
-                          + "_observation-only, бот не торгует_");
-                } catch (Throwable ignored) {}
-                LOG.info("[NL] NEW LISTING " + sym + " — recording until " + until);
-            }
-            if (coldStart)
-                LOG.info("[NL] cold-start seeded " + seeded + " known symbols, armed " + armed + " recent");
+            boolean dirty = nlArmNew(onboard, now);
 
             // (2) Advance every active recording window (including just-armed ones).
             List<String> done = new ArrayList<>();
             for (Map.Entry<String, Long> e : nlRecordingUntil.entrySet()) {
                 if (now > e.getValue()) { done.add(e.getKey()); continue; }
-                nlRecordOne(e.getKey());
+                nlAdvance(e.getKey(), now);
             }
             for (String sym : done) {
                 nlRecordingUntil.remove(sym);
                 nlSeenRecords.removeIf(key -> key.startsWith(sym + "|"));
+                nlUnwatch(sym);
                 dirty = true;
                 LOG.info("[NL] recording window finished for " + sym);
             }
@@ -4192,6 +5337,51 @@ public final class SignalSender {
         }
     }
 
+    /**
+     * Diff an exchangeInfo snapshot against the known-set: add every unseen symbol and,
+     * when it is genuinely new, arm its recording window, alert and start its stream.
+     * Shared by the per-cycle diff and the bulk-stream confirm. Returns true if the
+     * known-set changed (caller persists).
+     */
+    private boolean nlArmNew(Map<String, Long> onboard, long now) {
+        long recentCut = now - NL_RECORD_HOURS * 3600_000L;
+        // Cold start: first boot with no known-set → seed the whole universe, but only
+        // ARM+ALERT symbols onboarded within the last NL_RECORD_HOURS, so an in-flight
+        // listing isn't silently absorbed on the first deploy (no ~400-symbol alert storm).
+        boolean coldStart = nlKnownSymbols.isEmpty();
+
+        int seeded = 0, armed = 0;
+        for (Map.Entry<String, Long> e : onboard.entrySet()) {
+            String sym = e.getKey();
+            if (!nlKnownSymbols.add(sym)) continue;   // atomic: cycle diff and stream confirm may race
+            seeded++;
+            nlStreamIgnored.remove(sym);
+            long onboardMs = e.getValue();
+            // Steady state: every not-yet-known symbol is new. Cold start: only the
+            // recently-onboarded ones (older symbols are just the seeded baseline).
+            boolean isNew = !coldStart || (onboardMs > 0 && onboardMs >= recentCut);
+            if (!isNew) continue;
+            // Anchor the window to the real listing time when known → exactly first-N-hours.
+            long until = (onboardMs > 0 ? onboardMs : now) + NL_RECORD_HOURS * 3600_000L;
+            nlRecordingUntil.put(sym, until);
+            nlWatch(sym);
+            armed++;
+            String age = onboardMs > 0
+                    ? String.format("%.1fч назад", (now - onboardMs) / 3600_000.0) : "время неизв.";
+            try {
+                this.bot.sendMessageAsync(
+                        "🆕 *NEW LISTING* `" + sym + "`\n"
+                      + "onboard " + age + " · запись микроструктуры "
+                      + NL_RECORD_HOURS + "ч" + (NL_WS ? " (WS-тики)" : "") + " → ./data\n"
+                      + "_observation-only, бот не торгует_");
+            } catch (Throwable ignored) {}
+            LOG.info("[NL] NEW LISTING " + sym + " — recording until " + until);
+        }
+        if (coldStart)
+            LOG.info("[NL] cold-start seeded " + seeded + " known symbols, armed " + armed + " recent");
+        return seeded > 0;
+    }
+
     /** Fetch exchangeInfo → map of TRADING USDT-M symbol → onboardDate(ms). Empty on failure. */
     private Map<String, Long> nlFetchExchangeInfo() {
         Map<String, Long> out = new HashMap<>();
@@ -4264,6 +5454,253 @@ public final class SignalSender {
         }
     }
 
+    // ════════════ [v106] NEW-LISTINGS stream capture ════════════
+
+    /** Bulk-stream hook: queue an unseen USDT-M symbol for one exchangeInfo confirm. */
+    private void nlNoticeSymbol(String sym, long now) {
+        if (nlKnownSymbols.isEmpty() || nlKnownSymbols.contains(sym) || nlStreamIgnored.contains(sym)) return;
+        if (!sym.endsWith("USDT") || sym.indexOf('_') >= 0) return;   // skip dated/quarterly contracts
+        if (nlPending.putIfAbsent(sym, now) == null) {
+            nlStreamDetected.incrementAndGet();
+            LOG.info("[NL] unseen symbol on bulk stream: " + sym + " — confirming via exchangeInfo");
+        }
+        if (nlConfirmQueued.compareAndSet(false, true)) {
+            long wait = Math.max(0L, nlLastConfirmMs + NL_CONFIRM_MIN_MS - now);
+            udsExecutor.schedule(this::nlConfirmPending, wait, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /** One exchangeInfo (weight 1) for everything the bulk stream flagged since the last confirm. */
+    private void nlConfirmPending() {
+        nlConfirmQueued.set(false);
+        if (nlPending.isEmpty()) return;
+        try {
+            nlLastConfirmMs = System.currentTimeMillis();
+            Set<String> asked = new HashSet<>(nlPending.keySet());
+            Map<String, Long> onboard = nlFetchExchangeInfo();
+            if (onboard.size() < NL_SANITY_FLOOR) return;   // keep pending; the next frame re-queues
+            if (nlArmNew(onboard, nlLastConfirmMs)) nlSave();
+            for (String sym : asked) {
+                nlPending.remove(sym);
+                if (!nlKnownSymbols.contains(sym)) nlStreamIgnored.add(sym);
+            }
+        } catch (Throwable t) {
+            LOG.warning("[NL] confirm: " + t.getMessage());
+        }
+    }
+
+    /**
+     * Advance one recording window. With a live NL stream: flush the bars NewListingTape
+     * closed since the last cycle (live=1, microstructure stamped at bar close, OI from
+     * one REST read), then run the one-time kline backfill once the first full stream bar
+     * exists. Otherwise fall back to the REST snapshot (nlRecordOne).
+     */
+    private void nlAdvance(String sym, long now) {
+        NewListingTape tape = NL_WS ? nlTapes.get(sym) : null;
+        if (tape == null) {
+            nlWatch(sym);   // armed on a previous boot → (re)subscribe; REST covers this cycle
+            nlRecordOne(sym);
+            return;
+        }
+        if (!tape.isLive(now, NL_WS_STALE_MS)) {
+            if (tape.lastEventMs > 0) nlRestFallbacks.incrementAndGet();   // not yet streaming ≠ fallback
+            nlRecordOne(sym);
+            return;
+        }
+        List<NewListingTape.Bar> bars = tape.drain();
+        if (!bars.isEmpty()) {
+            double oi = nlFetchOI(sym);
+            long snap = System.currentTimeMillis();
+            List<String> rows = new ArrayList<>();
+            List<String> keys = new ArrayList<>();
+            JSONArray json = new JSONArray();
+            for (NewListingTape.Bar b : bars) {
+                com.bot.TradingCore.Candle c = b.candle;
+                String key = sym + "|" + c.openTime;
+                if (nlSeenRecords.contains(key)) continue;
+                boolean live = b.bid > 0 && b.ask > 0;
+                double oiv = live && (snap - c.closeTime) <= NL_FRESH_MS ? oi : 0.0;
+                rows.add(nlMicroRow(sym, c, b.funding, b.bid, b.ask, b.bidDepth, b.askDepth, oiv, b.snapMs, live));
+                json.put(nlMicroJson(sym, c, b.funding, b.bid, b.ask, b.bidDepth, b.askDepth, oiv, b.snapMs, live));
+                keys.add(key);
+            }
+            if (!rows.isEmpty()) {
+                if (!nlAppendMicro(rows)) { tape.unread(bars); return; }   // retried next cycle
+                nlSeenRecords.addAll(keys);
+                nlWsRows.addAndGet(rows.size());
+                nlPushSupabase(json);
+            }
+        }
+        // Stream rows are written first, so the backfill only adds the bars the stream
+        // never saw (pre-subscription history, the partial first minute, reconnect gaps).
+        if (tape.needsBackfill()) {
+            nlRecordOne(sym);
+            tape.markBackfilled();
+        }
+    }
+
+    /** Start streaming {@code sym}: create its tape and SUBSCRIBE (connecting on first use). */
+    private void nlWatch(String sym) {
+        if (!NL_WS || offline) return;
+        if (nlTapes.putIfAbsent(sym, new NewListingTape()) != null) return;
+        nlEnsureJournal();
+        WebSocket ws = nlWebSocket;
+        if (ws != null) nlSend(ws, "SUBSCRIBE", List.of(sym));
+        else connectNewListingStream();
+    }
+
+    /** Stop streaming {@code sym}; the socket is closed when nothing is left to record. */
+    private void nlUnwatch(String sym) {
+        if (nlTapes.remove(sym) == null) return;
+        WebSocket ws = nlWebSocket;
+        if (ws == null) return;
+        if (nlTapes.isEmpty()) {
+            nlWebSocket = null;
+            try { ws.sendClose(WebSocket.NORMAL_CLOSURE, "no active recordings"); } catch (Exception ignored) {}
+        } else {
+            nlSend(ws, "UNSUBSCRIBE", List.of(sym));
+        }
+    }
+
+    private static List<String> nlStreams(String sym) {
+        String s = sym.toLowerCase();
+        return List.of(s + "@aggTrade", s + "@bookTicker", s + "@markPrice@1s", s + "@depth10@500ms");
+    }
+
+    /** SUBSCRIBE/UNSUBSCRIBE, serialised — java.net.http allows one outstanding sendText. */
+    private void nlSend(WebSocket ws, String method, Collection<String> symbols) {
+        if (symbols.isEmpty()) return;
+        JSONArray params = new JSONArray();
+        for (String sym : symbols) for (String st : nlStreams(sym)) params.put(st);
+        String msg = new JSONObject().put("method", method).put("params", params)
+                .put("id", nlSubscribeId.incrementAndGet()).toString();
+        synchronized (nlSendLock) {
+            try { ws.sendText(msg, true).get(5, TimeUnit.SECONDS); }
+            catch (Exception e) { LOG.warning("[NL-WS] " + method + " " + symbols + ": " + e.getMessage()); }
+        }
+    }
+
+    private void connectNewListingStream() {
+        if (nlTapes.isEmpty() || !nlWsConnecting.compareAndSet(false, true)) return;
+        try {
+            http.newWebSocketBuilder()
+                    .buildAsync(URI.create("wss://fstream.binance.com/ws"),   // subscribe via message, as BULK/liq
+                            new WebSocket.Listener() {
+                                private final StringBuilder buf = new StringBuilder();
+
+                                @Override
+                                public CompletionStage<?> onText(WebSocket ws, CharSequence data, boolean last) {
+                                    buf.append(data);
+                                    if (last) {
+                                        try { processNewListingFrame(buf.toString()); }
+                                        catch (Exception ignored) {}
+                                        buf.setLength(0);
+                                    }
+                                    ws.request(1);
+                                    return CompletableFuture.completedFuture(null);
+                                }
+
+                                @Override
+                                public void onError(WebSocket ws, Throwable err) {
+                                    nlStreamLost(ws, 15);
+                                }
+
+                                @Override
+                                public CompletionStage<?> onClose(WebSocket ws, int code, String reason) {
+                                    nlStreamLost(ws, 5);
+                                    return CompletableFuture.completedFuture(null);
+                                }
+                            })
+                    .thenAccept(ws -> {
+                        nlWebSocket = ws;
+                        nlWsConnecting.set(false);
+                        // Bars in flight across the outage are incomplete → restart them; the
+                        // backfill re-runs and fills the gap from klines.
+                        for (NewListingTape tape : nlTapes.values()) tape.restart();
+                        nlSend(ws, "SUBSCRIBE", new ArrayList<>(nlTapes.keySet()));
+                        LOG.info("[NL-WS] ✅ connected, subscribed " + nlTapes.keySet());
+                    })
+                    .exceptionally(ex -> {
+                        nlWsConnecting.set(false);
+                        LOG.warning("[NL-WS] Connect failed: " + ex.getMessage());
+                        udsExecutor.schedule(this::connectNewListingStream, 30, TimeUnit.SECONDS);
+                        return null;
+                    });
+        } catch (Exception e) {
+            nlWsConnecting.set(false);
+            LOG.warning("[NL-WS] Error: " + e.getMessage());
+        }
+    }
+
+    private void nlStreamLost(WebSocket ws, long retrySec) {
+        if (nlWebSocket == ws) nlWebSocket = null;
+        if (nlWebSocket == null && !nlTapes.isEmpty())
+            udsExecutor.schedule(this::connectNewListingStream, retrySec, TimeUnit.SECONDS);
+    }
+
+    /** One raw-stream event → journal + tape. Subscription acks carry no "s" and are skipped. */
+    private void processNewListingFrame(String text) {
+        if (text.isEmpty() || text.charAt(0) != '{') return;
+        JSONObject j = new JSONObject(text);
+        String sym = j.optString("s", "");
+        NewListingTape tape = nlTapes.get(sym);
+        if (tape == null) return;
+        nlWsFrames.incrementAndGet();
+        long now = System.currentTimeMillis();
+        com.bot.TickJournal jr = nlJournal;
+        // A symbol that is also a top pair is already journaled by its pair stream.
+        boolean pairJournaled = jr == tickJournal && wsMap.containsKey(sym);
+        String e = j.optString("e", "");
+        if ("aggTrade".equals(e)) {
+            double price = Double.parseDouble(j.getString("p"));
+            double qty   = Double.parseDouble(j.getString("q"));
+            long   ts    = j.getLong("T");
+            boolean buyerMaker = j.getBoolean("m");
+            int tradeCount = (int) Math.max(1L, j.optLong("l", 0L) - j.optLong("f", 0L) + 1L);
+            if (jr != null && !pairJournaled)
+                jr.offer(com.bot.TickJournal.AGG_TRADE, buyerMaker ? 1 : 0, sym, ts, price, qty, tradeCount, 0);
+            tape.onTrade(ts, price, qty, buyerMaker, tradeCount, now);
+        } else if ("bookTicker".equals(e)) {
+            double bid = j.optDouble("b", 0), bidQty = j.optDouble("B", 0);
+            double ask = j.optDouble("a", 0), askQty = j.optDouble("A", 0);
+            if (jr != null && !pairJournaled)
+                jr.offer(com.bot.TickJournal.BOOK_TICKER, 0, sym, j.optLong("T", now), bid, bidQty, ask, askQty);
+            tape.onBook(bid, ask, now);
+        } else if ("markPriceUpdate".equals(e)) {
+            double funding = j.optDouble("r", 0);
+            if (jr != null)
+                jr.offer(com.bot.TickJournal.MARK_PRICE, 0, sym, j.optLong("E", now),
+                        j.optDouble("p", 0), funding, j.optDouble("i", 0), j.optLong("T", 0L));
+            tape.onMark(funding, now);
+        } else if ("depthUpdate".equals(e)) {
+            double bd = 0.0, ad = 0.0;
+            JSONArray bids = j.optJSONArray("b"), asks = j.optJSONArray("a");
+            if (bids != null) for (int i = 0; i < bids.length(); i++) bd += Double.parseDouble(bids.getJSONArray(i).getString(1));
+            if (asks != null) for (int i = 0; i < asks.length(); i++) ad += Double.parseDouble(asks.getJSONArray(i).getString(1));
+            tape.onDepth(bd, ad, now);
+        }
+    }
+
+    /** NL ticks share the TICK_JOURNAL journal when it is on; otherwise a private one is opened once. */
+    private synchronized void nlEnsureJournal() {
+        if (nlJournal != null) return;
+        if (tickJournal != null) { nlJournal = tickJournal; return; }
+        try {
+            java.nio.file.Path dir = java.nio.file.Paths.get(NL_TICK_DIR);
+            nlJournal = new com.bot.TickJournal(dir, (int) nlEnvLong("NEW_LISTING_TICK_KEEP_DAYS", 14),
+                    nlEnvLong("NEW_LISTING_TICK_MAX_MB_PER_DAY", 512));
+            LOG.info("[NL] tick journal → " + dir.toAbsolutePath());
+        } catch (Throwable t) { LOG.warning("[NL] tick journal: " + t.getMessage()); }
+    }
+
+    /** [v106] NL stream status for the stats log; empty until the stream has been used. */
+    public String getNewListingStats() {
+        if (!NL_WS || (nlTapes.isEmpty() && nlStreamDetected.get() == 0)) return "";
+        return String.format("ws=%s tapes=%d frames=%d rows=%d restFallbacks=%d streamDetected=%d pending=%d",
+                nlWebSocket != null ? "up" : "down", nlTapes.size(), nlWsFrames.get(), nlWsRows.get(),
+                nlRestFallbacks.get(), nlStreamDetected.get(), nlPending.size());
+    }
+
     /** Build one pipe-delimited micro-record row. Symbols are Binance [A-Z0-9]+ so no escaping needed. */
     private static String nlMicroRow(String sym, com.bot.TradingCore.Candle c,
                                      double funding, double bid, double ask,
@@ -4474,7 +5911,8 @@ public final class SignalSender {
 
     /** [v86.99] Called once per cycle from BotMain.runCycle (gated by BotMain.FUNDING_SNAPSHOT).
      *  Snapshots symbols whose funding is extreme into ./data + Supabase. Observation-only —
-     *  reads the funding cache the 15-min refresh already populates; no extra REST. */
+     *  reads the funding cache the 15-min refresh already populates; no extra REST.
+     *  [v97] funding_rate itself comes from the live mark-price slots when the stream is up. */
     public void snapshotFundingExtremes() {
         try {
             long now = System.currentTimeMillis();
@@ -4487,14 +5925,17 @@ public final class SignalSender {
             for (String sym : cachedPairs) {
                 com.bot.DecisionEngineMerged.FundingOIData d = decisionEngine.getFundingOI(sym);
                 if (d == null) continue;
-                boolean extreme = Math.abs(d.fundingRate) >= FS_EXTREME_THR || d.frPeakWarning || d.frTroughWarning;
+                // [v97] Live funding from the mark-price stream when fresh; momentum fields
+                // (prev/delta/accel/warnings) stay on the engine's refresh cadence.
+                double fr = currentFundingRate(sym);
+                boolean extreme = Math.abs(fr) >= FS_EXTREME_THR || d.frPeakWarning || d.frTroughWarning;
                 if (!extreme) continue;
-                rows.add(sym + "|" + snapMinute + "|" + d.fundingRate + "|" + d.prevFundingRate
+                rows.add(sym + "|" + snapMinute + "|" + fr + "|" + d.prevFundingRate
                         + "|" + d.fundingDelta + "|" + d.frAcceleration + "|" + d.openInterest
                         + "|" + (d.frPeakWarning ? 1 : 0) + "|" + (d.frTroughWarning ? 1 : 0) + "|" + now);
                 json.put(new JSONObject()
                         .put("symbol", sym).put("snap_minute", snapMinute)
-                        .put("funding_rate", d.fundingRate).put("prev_funding_rate", d.prevFundingRate)
+                        .put("funding_rate", fr).put("prev_funding_rate", d.prevFundingRate)
                         .put("funding_delta", d.fundingDelta).put("fr_acceleration", d.frAcceleration)
                         .put("open_interest", d.openInterest)
                         .put("peak_warn", d.frPeakWarning).put("trough_warn", d.frTroughWarning)
@@ -4734,15 +6175,17 @@ public final class SignalSender {
             }
             List<String> rows = new ArrayList<>();
             JSONArray json = new JSONArray();
-            org.json.JSONObject e;
-            int n = 0;
-            while (n < LQ_FLUSH_MAX && (e = liqBuffer.poll()) != null) {
-                n++;
-                rows.add(e.getString("symbol") + "|" + e.getLong("order_time") + "|" + e.optString("side")
-                        + "|" + e.getDouble("price") + "|" + e.getDouble("qty") + "|" + e.getDouble("notional")
-                        + "|" + e.getLong("snap_ms"));
-                json.put(e);
-            }
+            // [v105] Rows/JSON are built only here, from the primitive ring — the WS thread
+            // no longer allocates a JSONObject per captured liquidation.
+            int n = liqBuffer.drain(LQ_FLUSH_MAX, (symbol, orderTime, sell, price, qty, snapMs) -> {
+                String side = sell ? "SELL" : "BUY";
+                double notional = price * qty;
+                rows.add(symbol + "|" + orderTime + "|" + side + "|" + price + "|" + qty + "|" + notional + "|" + snapMs);
+                json.put(new org.json.JSONObject()
+                        .put("symbol", symbol).put("order_time", orderTime).put("side", side)
+                        .put("price", price).put("qty", qty).put("notional", notional)
+                        .put("snap_ms", snapMs));
+            });
             if (!rows.isEmpty()) {
                 appendCsv(LQ_FILE, LQ_HEADER, rows);
                 sbPost("liq_events?on_conflict=symbol,order_time,side,price,qty", json);
@@ -4761,7 +6204,10 @@ public final class SignalSender {
         long raw = liqRawCount.get();
         long last = liqLastEventMs;
         String age = (last == 0) ? "never" : ((System.currentTimeMillis() - last) / 1000L) + "s";
-        return "raw=" + raw + " last=" + age + " buf=" + liqBuffer.size() + " ws=" + (liqWebSocket != null ? "up" : "down");
+        long heatBytes = 0;
+        for (LiquidationHeatmap h : liqHeatmap.values()) heatBytes += h.bytes();
+        return "raw=" + raw + " last=" + age + " buf=" + liqBuffer.size() + " ws=" + (liqWebSocket != null ? "up" : "down")
+                + " heat=" + liqHeatmap.size() + "sym/" + (heatBytes >> 10) + "KB";
     }
 
     // DYNAMIC COIN CATEGORIZATION
@@ -4942,7 +6388,13 @@ public final class SignalSender {
                                 public CompletionStage<?> onText(WebSocket ws, CharSequence data, boolean last) {
                                     buf.append(data);
                                     if (last) {
-                                        try { processLiquidationEvent(new org.json.JSONObject(buf.toString())); }
+                                        long recvMs = System.currentTimeMillis(), recvNs = System.nanoTime();
+                                        try {
+                                            org.json.JSONObject ev = new org.json.JSONObject(buf.toString());
+                                            processLiquidationEvent(ev);
+                                            if (ev.has("o")) streamLatency.onFrame(StreamLatency.Stream.FORCE_ORDER,
+                                                    StreamLatency.MIXED, ev.optLong("E", 0L), recvMs, recvNs);
+                                        }
                                         catch (Exception ignored) {}
                                         buf.setLength(0);
                                     }
@@ -4993,56 +6445,47 @@ public final class SignalSender {
             double qty      = o.optDouble("q", 0);
             String side     = o.optString("S"); // BUY = short был ликвидирован, SELL = long был
             if (avgPrice <= 0 || qty <= 0) return;
+            if (tickJournal != null) {
+                tickJournal.offer(com.bot.TickJournal.LIQUIDATION, "SELL".equals(side) ? 1 : 0, symbol,
+                        o.optLong("T", event.optLong("E", System.currentTimeMillis())), avgPrice, qty, 0, 0);
+            }
 
             double notional = avgPrice * qty;
             if (notional < LIQ_MIN_NOTIONAL) return; // игнорируем мелкие
 
             // [v87.0] Observation-only capture for hypothesis #3 (forced-flow reversion).
             // Buffer here (WS thread); BotMain.runCycle drains+batch-writes via flushLiquidations().
-            if (com.bot.BotMain.LIQ_CAPTURE && liqBuffer.size() < LQ_BUFFER_MAX) {
+            if (com.bot.BotMain.LIQ_CAPTURE) {   // full ring → dropped (backpressure, as before)
                 long lqT = o.optLong("T", event.optLong("E", System.currentTimeMillis()));
-                liqBuffer.add(new org.json.JSONObject()
-                        .put("symbol", symbol).put("order_time", lqT).put("side", side)
-                        .put("price", avgPrice).put("qty", qty).put("notional", notional)
-                        .put("snap_ms", System.currentTimeMillis()));
+                liqBuffer.offer(symbol, lqT, "SELL".equals(side), avgPrice, qty, System.currentTimeMillis());
             }
 
-            // Ценовой bucket: округляем до 0.1% от цены
-            double bucketSize = avgPrice * 0.001;
-            double bucket = Math.round(avgPrice / bucketSize) * bucketSize;
-
-            java.util.NavigableMap<Double, Double> heatmap = liqHeatmap
-                    .computeIfAbsent(symbol, k -> new java.util.concurrent.ConcurrentSkipListMap<>());
-            heatmap.merge(bucket, notional, Double::sum);
-            liqTimestamps.put(symbol + "_" + bucket, System.currentTimeMillis());
-
-            // Удаляем протухшие уровни (> 30 минут)
-            long now = System.currentTimeMillis();
-            heatmap.entrySet().removeIf(e ->
-                    now - liqTimestamps.getOrDefault(symbol + "_" + e.getKey(), 0L) > LIQ_DECAY_MS);
+            // [v105] Bucket width is fixed per symbol at (re)anchor from the 15m ATR (0 → 0.1% of price).
+            long now = nowMs();
+            liqHeatmap.computeIfAbsent(symbol, k -> new LiquidationHeatmap(LIQ_HALF_LIFE_MS))
+                    .add(avgPrice, notional, now, getAtr(symbol));
         } catch (Exception ignored) {}
     }
 
     /**
      * Возвращает "магнетизм" ликвидаций около текущей цены.
      * 0.0 = нет значимых ликвидаций рядом.
-     * 1.0 = крупный скопившийся пул (>$5M) в пределах 1×ATR.
+     * 1.0 = крупный скопившийся пул (≥ LIQ_SCORE_NORM_USD затухающего объёма) в пределах 1.5×ATR.
      * Если цена движется К этому уровню → усиливает сигнал.
      * Если цена движется ОТ него → ослабляет.
      */
     public double getLiquidationScore(String pair, double price, double atr,
                                       com.bot.TradingCore.Side side) {
-        java.util.NavigableMap<Double, Double> heatmap = liqHeatmap.get(pair);
-        if (heatmap == null || heatmap.isEmpty()) return 0.0;
+        LiquidationHeatmap heatmap = liqHeatmap.get(pair);
+        if (heatmap == null) return 0.0;
         double range = atr * 1.5;
-        double liqAbove = heatmap.subMap(price, price + range)
-                .values().stream().mapToDouble(Double::doubleValue).sum();
-        double liqBelow = heatmap.subMap(price - range, price)
-                .values().stream().mapToDouble(Double::doubleValue).sum();
+        long now = nowMs();
+        double liqAbove = heatmap.sum(price, price + range, now);   // [v105] O(log n) each
+        double liqBelow = heatmap.sum(price - range, price, now);
         // LONG сигнал усиливается если ликвидации SHORT выше (цена пойдёт их собирать)
         // SHORT сигнал усиливается если ликвидации LONG ниже
         double relevant = (side == com.bot.TradingCore.Side.LONG) ? liqAbove : liqBelow;
-        return clamp(relevant / 5_000_000.0, 0.0, 1.0); // нормализуем на $5M
+        return clamp(relevant / LIQ_SCORE_NORM_USD, 0.0, 1.0);
     }
 
     private void logCycleStats() {
@@ -5051,10 +6494,10 @@ public final class SignalSender {
             // Include rejectedFetches count — non-zero means fetchPool is overloaded.
             long rejected = rejectedFetches.get();
             System.out.printf("[Stats] cache=%.1f%% early=%d liq=%d corr=%d stale=%d profit=%d e=%d opt=%d vpoc=%d fin=%d isc=%d rej=%d q=+%.0f ws=%.0f%% msgs=%d bal=$%.2f%n",
-                    100.0*hits/total, earlySignals.get(), blockedLiq.get(), blockedCorr.get(),
-                    blockedStaleRt.get(), blockedProfit.get(), blockedEarlyConf.get(),
-                    blockedOptConf.get(), blockedVpoc.get(), blockedFinalConf.get(),
-                    blockedIsc.get(), rejected, cycleQualityPenalty, lastCycleWsCoverage * 100.0,
+                    100.0*hits/total, earlySignals.get(), blocks.total(blockedLiq), blocks.total(blockedCorr),
+                    blocks.total(blockedStaleRt), blocks.total(blockedProfit), blocks.total(blockedEarlyConf),
+                    blocks.total(blockedOptConf), blocks.total(blockedVpoc), blocks.total(blockedFinalConf),
+                    blocks.total(blockedIsc), rejected, cycleQualityPenalty, lastCycleWsCoverage * 100.0,
                     wsMessageCount.get(), accountBalance);
 
             // Alert loudly when tasks are being dropped — indicates
@@ -5136,8 +6579,8 @@ public final class SignalSender {
     }
     /** [MODULE 2 v33] Returns OFV score for a pair: >0 bullish flow, <0 bearish. 0 if no data. */
     public double getOfvScore(String pair) {
-        Double s = ofvScoreMap.get(pair);
-        return s != null ? s : 0.0;
+        ObiSlopeWindow w = ofvHistory.get(pair);
+        return w != null ? w.slope() : 0.0;
     }
     public List<String> getScanUniverseSnapshot(int limit) {
         List<String> sorted = new ArrayList<>(cachedPairs);
@@ -5163,9 +6606,9 @@ public final class SignalSender {
     }
     public String getRejectionStats() {
         return String.format("rej[liq=%d corr=%d stale=%d profit=%d e=%d opt=%d vpoc=%d final=%d isc=%d gic=%d q=+%.0f]",
-                blockedLiq.get(), blockedCorr.get(), blockedStaleRt.get(), blockedProfit.get(),
-                blockedEarlyConf.get(), blockedOptConf.get(), blockedVpoc.get(),
-                blockedFinalConf.get(), blockedIsc.get(), gicHardHeadwind.get(), cycleQualityPenalty);
+                blocks.total(blockedLiq), blocks.total(blockedCorr), blocks.total(blockedStaleRt), blocks.total(blockedProfit),
+                blocks.total(blockedEarlyConf), blocks.total(blockedOptConf), blocks.total(blockedVpoc),
+                blocks.total(blockedFinalConf), blocks.total(blockedIsc), gicHardHeadwind.get(), cycleQualityPenalty);
     }
 
     public com.bot.DecisionEngineMerged getDecisionEngine() { return decisionEngine; }
@@ -5187,9 +6630,9 @@ public final class SignalSender {
     public String getProcessPairBreakdown() {
         return String.format(
                 "liq:%d corr:%d early:%d opt:%d vpoc:%d final:%d isc:%d",
-                blockedLiq.get(), blockedCorr.get(),
-                blockedEarlyConf.get(), blockedOptConf.get(), blockedVpoc.get(),
-                blockedFinalConf.get(), blockedIsc.get());
+                blocks.total(blockedLiq), blocks.total(blockedCorr),
+                blocks.total(blockedEarlyConf), blocks.total(blockedOptConf), blocks.total(blockedVpoc),
+                blocks.total(blockedFinalConf), blocks.total(blockedIsc));
     }
 
     //  STATIC MATH UTILS
@@ -5263,6 +6706,166 @@ public final class SignalSender {
 
     //  INNER CLASSES
 
+    /**
+     * [v98 L2-BOOK] Local order book kept from {@code <symbol>@depth@100ms} diffs.
+     *
+     * Levels live in flat sorted primitive arrays, no per-level objects. Bids
+     * are stored under key = −price so both sides use the same ascending
+     * insert/remove code (binary search + arraycopy). Depth is capped at
+     * MAX_LEVELS: a new level beyond the worst kept one is ignored, otherwise
+     * the worst level is evicted.
+     *
+     * Sync follows the Binance futures procedure: diffs are buffered until a
+     * REST snapshot arrives; diffs with u &lt; lastUpdateId are dropped; the first
+     * applied diff must straddle it (U ≤ lastUpdateId ≤ u); after that every
+     * diff's pu must equal the previous u. Any break flips the book back to
+     * unsynced and the owner fetches a new snapshot.
+     */
+    static final class LocalOrderBook {
+        static final int MAX_LEVELS   = 1000;
+        static final int MAX_BUFFERED = 2000;   // ~200s of 100ms diffs while a snapshot is pending
+        private final double[] bidKey = new double[MAX_LEVELS], bidQty = new double[MAX_LEVELS];
+        private final double[] askKey = new double[MAX_LEVELS], askQty = new double[MAX_LEVELS];
+        private int nBids = 0, nAsks = 0;
+        private final ArrayDeque<JSONObject> pending = new ArrayDeque<>();
+        private long lastU = -1, snapshotId = -1;
+        private boolean synced = false, expectFirst = false;
+        private volatile long lastApplyMs = 0;
+
+        /** Applies (or buffers) one diff. Returns false if the book needs a fresh snapshot. */
+        synchronized boolean onDiff(JSONObject d) {
+            if (!synced) {
+                if (pending.size() >= MAX_BUFFERED) pending.pollFirst();
+                pending.addLast(d);
+                return false;
+            }
+            if (!applyChained(d)) { desync(); pending.addLast(d); return false; }
+            return true;
+        }
+
+        /** Loads a REST snapshot and replays buffered diffs; false if they don't chain onto it. */
+        synchronized boolean onSnapshot(long lastUpdateId, JSONArray bids, JSONArray asks) {
+            nBids = nAsks = 0;
+            for (int i = 0; i < bids.length(); i++) {
+                JSONArray l = bids.getJSONArray(i);
+                set(true, Double.parseDouble(l.getString(0)), Double.parseDouble(l.getString(1)));
+            }
+            for (int i = 0; i < asks.length(); i++) {
+                JSONArray l = asks.getJSONArray(i);
+                set(false, Double.parseDouble(l.getString(0)), Double.parseDouble(l.getString(1)));
+            }
+            snapshotId = lastUpdateId;
+            lastU = lastUpdateId;
+            expectFirst = true;
+            synced = true;
+            while (!pending.isEmpty()) {
+                if (!applyChained(pending.pollFirst())) { desync(); return false; }
+            }
+            lastApplyMs = System.currentTimeMillis();
+            return true;
+        }
+
+        synchronized void reset() { desync(); pending.clear(); }
+
+        private void desync() { synced = false; expectFirst = false; nBids = nAsks = 0; }
+
+        private boolean applyChained(JSONObject d) {
+            long U = d.optLong("U", 0), u = d.optLong("u", 0), pu = d.optLong("pu", -1);
+            if (u < snapshotId) return true;                       // older than the snapshot
+            if (expectFirst) {
+                if (U > snapshotId) return false;                  // missed the straddling diff
+                expectFirst = false;
+            } else if (pu != lastU) {
+                return false;
+            }
+            applyLevels(true, d.optJSONArray("b"));
+            applyLevels(false, d.optJSONArray("a"));
+            lastU = u;
+            lastApplyMs = System.currentTimeMillis();
+            return true;
+        }
+
+        private void applyLevels(boolean bid, JSONArray levels) {
+            if (levels == null) return;
+            for (int i = 0; i < levels.length(); i++) {
+                JSONArray l = levels.getJSONArray(i);
+                set(bid, Double.parseDouble(l.getString(0)), Double.parseDouble(l.getString(1)));
+            }
+        }
+
+        private void set(boolean bid, double price, double qty) {
+            double[] keys = bid ? bidKey : askKey, qtys = bid ? bidQty : askQty;
+            int n = bid ? nBids : nAsks;
+            double key = bid ? -price : price;
+            int idx = Arrays.binarySearch(keys, 0, n, key);
+            if (idx >= 0) {
+                if (qty > 0) { qtys[idx] = qty; return; }
+                System.arraycopy(keys, idx + 1, keys, idx, n - idx - 1);
+                System.arraycopy(qtys, idx + 1, qtys, idx, n - idx - 1);
+                n--;
+            } else {
+                if (qty <= 0) return;
+                int ins = -idx - 1;
+                if (n == MAX_LEVELS) {
+                    if (ins >= MAX_LEVELS) return;                 // beyond the worst kept level
+                    n--;                                            // evict the worst level
+                }
+                System.arraycopy(keys, ins, keys, ins + 1, n - ins);
+                System.arraycopy(qtys, ins, qtys, ins + 1, n - ins);
+                keys[ins] = key; qtys[ins] = qty;
+                n++;
+            }
+            if (bid) nBids = n; else nAsks = n;
+        }
+
+        synchronized boolean isSynced() { return synced && !expectFirst && nBids > 0 && nAsks > 0; }
+
+        /** Synced and updated within {@code maxAgeMs}. */
+        boolean isLive(long maxAgeMs) {
+            return isSynced() && System.currentTimeMillis() - lastApplyMs < maxAgeMs;
+        }
+
+        synchronized double bestBid() { return nBids > 0 ? -bidKey[0] : 0; }
+        synchronized double bestAsk() { return nAsks > 0 ? askKey[0] : 0; }
+
+        /** Sum of quantity over the best {@code levels} levels of one side. */
+        synchronized double depthQty(boolean bid, int levels) {
+            double[] q = bid ? bidQty : askQty;
+            int n = Math.min(levels, bid ? nBids : nAsks);
+            double s = 0;
+            for (int i = 0; i < n; i++) s += q[i];
+            return s;
+        }
+
+        /** (bid − ask) / (bid + ask) over the best {@code levels} levels, [-1..+1]. */
+        synchronized double imbalance(int levels) {
+            double b = depthQty(true, levels), a = depthQty(false, levels);
+            return (b - a) / (b + a + 1e-12);
+        }
+
+        synchronized double spreadBps() {
+            if (nBids == 0 || nAsks == 0) return Double.NaN;
+            double bid = -bidKey[0], ask = askKey[0], mid = (bid + ask) / 2.0;
+            return mid > 0 ? (ask - bid) / mid * 10_000.0 : Double.NaN;
+        }
+
+        /** Quote notional resting on one side within {@code bps} of mid. */
+        synchronized double notionalWithinBps(boolean bid, double bps) {
+            if (nBids == 0 || nAsks == 0) return 0;
+            double mid = (askKey[0] - bidKey[0]) / 2.0;
+            double[] keys = bid ? bidKey : askKey, qtys = bid ? bidQty : askQty;
+            int n = bid ? nBids : nAsks;
+            double limit = bid ? mid * (1 - bps / 10_000.0) : mid * (1 + bps / 10_000.0);
+            double s = 0;
+            for (int i = 0; i < n; i++) {
+                double px = bid ? -keys[i] : keys[i];
+                if (bid ? px < limit : px > limit) break;
+                s += px * qtys[i];
+            }
+            return s;
+        }
+    }
+
     // PATCH #9: Multi-level OrderbookSnapshot replacing single bid/ask.
     // OLD: orderbookMap stored ONE level (bookTicker = best bid/ask only).
     //      OBI = (bidQty - askQty) / (bidQty + askQty) — just the spread, not real depth.
@@ -5296,19 +6899,886 @@ public final class SignalSender {
         public boolean isFresh() { return System.currentTimeMillis() - timestamp < 30_000; }
     }
 
+    /**
+     * [v105 LIQ-HEAT] Per-symbol liquidation heatmap over BUCKETS fixed-width price
+     * buckets centred on the first liquidation. Width = LIQ_BUCKET_ATR × 15m ATR,
+     * clamped to [LIQ_BUCKET_MIN_BPS, LIQ_BUCKET_MAX_BPS] of price (0.1% when ATR
+     * is unknown). A print outside the window recentres it: old buckets are re-binned
+     * by their centre and anything that falls off is dropped — memory stays at two
+     * double[BUCKETS] per symbol.
+     *
+     * Decay is forward-decayed: a print of notional N at time t is stored as
+     * N·e^{λ(t−t0)} and totals are read back × e^{−λ(now−t0)}, so time decay costs
+     * nothing per update. When the exponent passes 40 the values are rescaled and
+     * t0 moves to now. Range totals come from a Fenwick tree: O(log BUCKETS).
+     */
+    static final class LiquidationHeatmap {
+        static final int    BUCKETS        = (int) Math.max(32, Math.min(4096, envLong("LIQ_BUCKETS", 256)));
+        static final double BUCKET_ATR     = envDouble("LIQ_BUCKET_ATR", 0.10);
+        static final double BUCKET_MIN_BPS = envDouble("LIQ_BUCKET_MIN_BPS", 5.0);
+        static final double BUCKET_MAX_BPS = envDouble("LIQ_BUCKET_MAX_BPS", 50.0);
+        private static final double MAX_EXP = 40.0;
+
+        private final double lambda;                           // per ms
+        private final double[] vals = new double[BUCKETS];     // forward-decayed notional per bucket
+        private final double[] tree = new double[BUCKETS + 1]; // Fenwick over vals (1-based)
+        private double lo, width;
+        private long t0;
+        private boolean empty = true;
+        private long events = 0, recenters = 0;
+
+        LiquidationHeatmap(double halfLifeMs) {
+            this.lambda = Math.log(2) / Math.max(1.0, halfLifeMs);
+        }
+
+        synchronized void add(double price, double notional, long now, double atr) {
+            if (!(price > 0) || !(notional > 0)) return;
+            if (empty) { anchor(price, atr); t0 = now; empty = false; }
+            int i = index(price);
+            if (i < 0 || i >= BUCKETS) { recenter(price, atr); i = index(price); }
+            if (lambda * (now - t0) > MAX_EXP) rescale(now);
+            double w = notional * Math.exp(lambda * (now - t0));
+            vals[i] += w;
+            for (int k = i + 1; k <= BUCKETS; k += k & -k) tree[k] += w;
+            events++;
+        }
+
+        /** Decayed notional in buckets whose centre lies in [from, to). */
+        synchronized double sum(double from, double to, long now) {
+            if (empty || !(to > from)) return 0.0;
+            int a = Math.max(0, (int) Math.ceil((from - lo) / width - 0.5));
+            int b = Math.min(BUCKETS - 1, (int) Math.ceil((to - lo) / width - 0.5) - 1);
+            if (a > b) return 0.0;
+            return Math.max(0.0, (prefix(b) - prefix(a - 1)) * Math.exp(-lambda * (now - t0)));
+        }
+
+        synchronized long events()    { return events; }
+        synchronized long recenters() { return recenters; }
+        long bytes() { return 16L * BUCKETS + 96L; }
+
+        private int index(double price) {
+            return (int) Math.floor((price - lo) / width);
+        }
+
+        private double prefix(int i) {
+            double s = 0;
+            for (int k = i + 1; k > 0; k -= k & -k) s += tree[k];
+            return s;
+        }
+
+        private void anchor(double price, double atr) {
+            double minW = price * BUCKET_MIN_BPS / 10_000.0, maxW = price * BUCKET_MAX_BPS / 10_000.0;
+            width = atr > 0 ? clamp(atr * BUCKET_ATR, minW, maxW) : price * 0.001;
+            lo = price - width * (BUCKETS / 2);
+        }
+
+        private void recenter(double price, double atr) {
+            double oldLo = lo, oldW = width;
+            double[] old = vals.clone();
+            anchor(price, atr);
+            java.util.Arrays.fill(vals, 0.0);
+            for (int j = 0; j < BUCKETS; j++) {
+                if (old[j] == 0.0) continue;
+                int k = index(oldLo + (j + 0.5) * oldW);
+                if (k >= 0 && k < BUCKETS) vals[k] += old[j];
+            }
+            rebuild();
+            recenters++;
+        }
+
+        private void rescale(long now) {
+            double f = Math.exp(-lambda * (now - t0));
+            for (int j = 0; j < BUCKETS; j++) vals[j] *= f;
+            t0 = now;
+            rebuild();
+        }
+
+        private void rebuild() {
+            java.util.Arrays.fill(tree, 0.0);
+            for (int j = 0; j < BUCKETS; j++) {
+                tree[j + 1] += vals[j];
+                int parent = (j + 1) + ((j + 1) & -(j + 1));
+                if (parent <= BUCKETS) tree[parent] += tree[j + 1];
+            }
+        }
+    }
+
+    /**
+     * [v105] Bounded ring of captured liquidations as parallel primitive arrays
+     * (symbol ref + 5 scalars), replacing a queue of per-event JSONObjects. The WS
+     * thread offers, the cycle thread drains; both are short critical sections.
+     */
+    static final class LiqEventRing {
+        interface Visitor { void visit(String symbol, long orderTime, boolean sell, double price, double qty, long snapMs); }
+
+        private final String[]  symbol;
+        private final long[]    orderTime, snapMs;
+        private final double[]  price, qty;
+        private final boolean[] sell;
+        private int head = 0, size = 0;
+
+        LiqEventRing(int capacity) {
+            symbol = new String[capacity]; orderTime = new long[capacity]; snapMs = new long[capacity];
+            price = new double[capacity];  qty = new double[capacity];     sell = new boolean[capacity];
+        }
+
+        /** False (event dropped) when full. */
+        synchronized boolean offer(String sym, long t, boolean isSell, double p, double q, long snap) {
+            if (size == symbol.length) return false;
+            int i = (head + size) % symbol.length;
+            symbol[i] = sym; orderTime[i] = t; sell[i] = isSell; price[i] = p; qty[i] = q; snapMs[i] = snap;
+            size++;
+            return true;
+        }
+
+        /** Removes up to {@code max} oldest events, oldest first; returns how many. */
+        synchronized int drain(int max, Visitor v) {
+            int n = Math.min(max, size);
+            for (int k = 0; k < n; k++) {
+                v.visit(symbol[head], orderTime[head], sell[head], price[head], qty[head], snapMs[head]);
+                symbol[head] = null;
+                head = (head + 1) % symbol.length;
+            }
+            size -= n;
+            return n;
+        }
+
+        synchronized int size()       { return size; }
+        synchronized boolean isEmpty() { return size == 0; }
+    }
+
+    /**
+     * [v102] Lock-free log-linear latency histogram (nanoseconds). 8 sub-buckets per
+     * power of two → ≤12.5% relative error on percentiles; 512 counters, no
+     * allocation on record(). Shared by TickReplay's per-stage report.
+     */
+    static final class LatencyHistogram {
+        private static final int SUB_BITS = 3, SUB = 1 << SUB_BITS;
+        private final AtomicLongArray counts = new AtomicLongArray(64 * SUB);
+        private final AtomicLong total = new AtomicLong(0);
+        private final AtomicLong sum   = new AtomicLong(0);
+        private final AtomicLong max   = new AtomicLong(0);
+
+        void record(long nanos) {
+            long v = Math.max(0, nanos);
+            counts.incrementAndGet(index(v));
+            total.incrementAndGet();
+            sum.addAndGet(v);
+            long m;
+            while (v > (m = max.get()) && !max.compareAndSet(m, v)) { /* retry */ }
+        }
+
+        private static int index(long v) {
+            if (v < SUB) return (int) v;
+            int e = 63 - Long.numberOfLeadingZeros(v);
+            return (e - SUB_BITS + 1) * SUB + (int) ((v >>> (e - SUB_BITS)) & (SUB - 1));
+        }
+
+        /** Upper bound of bucket {@code i}. */
+        private static long upper(int i) {
+            if (i < SUB) return i;
+            int e = i / SUB + SUB_BITS - 1, sub = i % SUB;
+            return ((long) (SUB + sub + 1) << (e - SUB_BITS)) - 1;
+        }
+
+        long count() { return total.get(); }
+        long max()   { return max.get(); }
+        long sumNanos() { return sum.get(); }
+        double meanNanos() { long n = total.get(); return n > 0 ? (double) sum.get() / n : 0; }
+
+        /** Approximate percentile, p in [0..100]. */
+        long percentile(double p) {
+            long n = total.get();
+            if (n == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(n * p / 100.0)), seen = 0;
+            for (int i = 0; i < counts.length(); i++) {
+                seen += counts.get(i);
+                if (seen >= rank) return Math.min(upper(i), max.get());
+            }
+            return max.get();
+        }
+
+        void reset() {
+            for (int i = 0; i < counts.length(); i++) counts.set(i, 0);
+            total.set(0); sum.set(0); max.set(0);
+        }
+
+        /** "n=… p50=…µs p99=…µs max=…µs". */
+        String summary() {
+            return String.format("n=%d p50=%.1fµs p99=%.1fµs max=%.1fµs",
+                    count(), percentile(50) / 1e3, percentile(99) / 1e3, max() / 1e3);
+        }
+    }
+
+    /**
+     * [v100] Per-pair dirty flag for coalesced EARLY_TICK evaluation. The WS thread
+     * marks the latest price/ts; whoever claims the slot (evaluator or a large-move
+     * trigger) clears the flag and owns that evaluation. A claim also takes the slot's
+     * bar (tick ts / barMs): once a bar is claimed, neither path evaluates it again, and
+     * a tick still dirty at that point waits for the next bar.
+     */
+    static final class EarlyTickSlot {
+        private double price, lastEvalPrice;
+        private long ts, markedMs, lastEvalMs;
+        private long lastEvalBar = Long.MIN_VALUE;
+        private boolean dirty;
+
+        /** Records the tick (processed at {@code now}); true if it moved ≥ triggerPct from the last evaluated price. */
+        synchronized boolean mark(double p, long t, long now, double triggerPct) {
+            price = p; ts = t; markedMs = now; dirty = true;
+            return lastEvalPrice > 0 && Math.abs(p - lastEvalPrice) / lastEvalPrice >= triggerPct;
+        }
+
+        /**
+         * Claims a dirty slot if at least {@code minGapMs} passed since the last evaluation
+         * and its bar ({@code ts / barMs}) hasn't been evaluated yet.
+         */
+        synchronized boolean claim(long now, long minGapMs, long barMs) {
+            if (!dirty || now - lastEvalMs < minGapMs) return false;
+            long bar = Math.floorDiv(ts, barMs);
+            if (bar <= lastEvalBar) return false;
+            dirty = false; lastEvalMs = now; lastEvalPrice = price; lastEvalBar = bar;
+            return true;
+        }
+
+        synchronized double price() { return price; }
+        synchronized long ts() { return ts; }
+        synchronized long markedMs() { return markedMs; }
+    }
+
+    /**
+     * [v99 TICK-FEAT] Per-symbol rolling tick features, O(1) per trade, no copies.
+     *
+     * Replaces the per-trade {@code new ArrayList<>(deque)} + stream passes in
+     * generateEarlyTickSignal and maybeHotRescan. Holds the last {@code cap}
+     * prices in a primitive ring (random access by age), plus:
+     *   - running Σprice over the ring (mean);
+     *   - monotonic min/max queues over the EXTREMA_SPAN ticks before the
+     *     latest one (exhaustion base and tick range);
+     *   - Σqty over the last 5 and last 30 ticks (volume surge ratio);
+     *   - up/down run lengths (tick streak).
+     * Running sums are rebuilt from the rings every RESYNC_EVERY pushes.
+     * One writer per pair (its WS thread); readers may come from other threads,
+     * hence the synchronized accessors.
+     */
+    static final class TickFeatureWindow {
+        static final int EXTREMA_SPAN = 39;   // ticks n-40..n-2, matches the old subList
+        static final int VOL_RECENT   = 5;
+        static final int VOL_SPAN     = 30;
+        private static final int RESYNC_EVERY = 4096;
+        private static final int VOL_RING = 32;       // ≥ VOL_SPAN
+
+        private final int cap;
+        private final double[] px;                    // price
+        private int head = 0, n = 0;                  // head = next write slot
+        private long seq = 0;                         // total pushes
+        private double sumPx = 0;
+        private final double[] volRing = new double[VOL_RING];
+        private double vol5 = 0, vol30 = 0;
+        private int runUp = 0, runDown = 0;
+        private int sinceResync = 0;
+        // monotonic queues: seq + value, ring-indexed by (i & QMASK)
+        private static final int QCAP = 64, QMASK = QCAP - 1;
+        private final long[] minSeq = new long[QCAP], maxSeq = new long[QCAP];
+        private final double[] minVal = new double[QCAP], maxVal = new double[QCAP];
+        private int minH = 0, minT = 0, maxH = 0, maxT = 0;
+
+        TickFeatureWindow(int cap) {
+            this.cap = Math.max(2, cap);
+            px = new double[this.cap];
+        }
+
+        synchronized void push(double price, double qty) {
+            if (n > 0) {
+                // the previous latest tick joins the extrema span
+                double prev = at(n - 1);
+                long prevSeq = seq - 1;
+                while (minT > minH && minVal[(minT - 1) & QMASK] >= prev) minT--;
+                minSeq[minT & QMASK] = prevSeq; minVal[minT & QMASK] = prev; minT++;
+                while (maxT > maxH && maxVal[(maxT - 1) & QMASK] <= prev) maxT--;
+                maxSeq[maxT & QMASK] = prevSeq; maxVal[maxT & QMASK] = prev; maxT++;
+                long oldest = Math.max(prevSeq - EXTREMA_SPAN + 1, seq - n);
+                while (minH < minT && minSeq[minH & QMASK] < oldest) minH++;
+                while (maxH < maxT && maxSeq[maxH & QMASK] < oldest) maxH++;
+                if (price >= prev) { runUp++; runDown = 0; } else { runDown++; runUp = 0; }
+            }
+            if (n == cap) {
+                sumPx -= px[head];
+            } else {
+                n++;
+            }
+            px[head] = price;
+            sumPx += price;
+            head = (head + 1) % cap;
+
+            int vi = (int) (seq % VOL_RING);
+            vol5 += qty; vol30 += qty;
+            if (seq >= VOL_RECENT) vol5 -= volRing[(int) ((seq - VOL_RECENT) % VOL_RING)];
+            if (seq >= VOL_SPAN)   vol30 -= volRing[(int) ((seq - VOL_SPAN) % VOL_RING)];
+            volRing[vi] = qty;
+            seq++;
+
+            if (++sinceResync >= RESYNC_EVERY) resync();
+        }
+
+        private void resync() {
+            sinceResync = 0;
+            double a = 0;
+            for (int i = 0; i < n; i++) a += px[idx(i)];
+            sumPx = a;
+            double v5 = 0, v30 = 0;
+            for (int i = 1; i <= Math.min(VOL_SPAN, seq); i++) {
+                double q = volRing[(int) ((seq - i) % VOL_RING)];
+                v30 += q; if (i <= VOL_RECENT) v5 += q;
+            }
+            vol5 = v5; vol30 = v30;
+        }
+
+        private int idx(int i) { return (head - n + i + cap) % cap; }
+
+        /** Price i ticks after the oldest held tick (0 = oldest, size()-1 = latest). */
+        private double at(int i) { return px[idx(i)]; }
+
+        synchronized int size() { return n; }
+        synchronized double price(int i) { return at(i); }
+        synchronized double last() { return n > 0 ? at(n - 1) : 0; }
+
+        /** latest − price {@code ticks} ticks earlier (clamped to the oldest held tick). */
+        synchronized double moveTicks(int ticks) {
+            return n < 2 ? 0 : at(n - 1) - at(Math.max(0, n - 1 - ticks));
+        }
+
+        synchronized double mean() { return n > 0 ? sumPx / n : 0; }
+
+        /** Second half move / first half move, by absolute size (old m2/m1 split). */
+        synchronized double halfMoveRatio() {
+            if (n < 4) return 0;
+            double m1 = at(n / 2 - 1) - at(0), m2 = at(n - 1) - at(n / 2);
+            return Math.abs(m2) / (Math.abs(m1) + 1e-18);
+        }
+
+        /** Min / max over the EXTREMA_SPAN ticks before the latest; latest if none. */
+        synchronized double priorMin() { return minH < minT ? minVal[minH & QMASK] : last(); }
+        synchronized double priorMax() { return maxH < maxT ? maxVal[maxH & QMASK] : last(); }
+
+        /** avg qty of the last VOL_RECENT ticks / avg of the VOL_SPAN−VOL_RECENT before them. */
+        synchronized double volumeSurge() {
+            if (seq < VOL_SPAN) return 0;
+            double base = (vol30 - vol5) / (VOL_SPAN - VOL_RECENT);
+            return base > 0 ? (vol5 / VOL_RECENT) / base : 0;
+        }
+
+        /** Consecutive ticks in one direction ending at the latest (up counts ties). */
+        synchronized int streak(boolean up) { return up ? runUp : runDown; }
+    }
+
+    /**
+     * [v93 OFV-O1] Fixed-window OBI slope with O(1) update and zero allocation.
+     *
+     * Index mode keeps Σy and Σxy with x = position inside the window (oldest = 0).
+     * Evicting the oldest point re-bases every x by −1, which is simply
+     * Σxy −= Σy (after y0 is removed) — no pass over the window is needed.
+     * Slope = (Σxy − x̄·Σy) / Σ(x−x̄)², with Σ(x−x̄)² = n(n²−1)/12: identical to the
+     * old full regression on x = 0..n−1.
+     *
+     * Time mode regresses y on event time (ms relative to a base that moves
+     * forward on every resync so Σt² stays small) via Σt, Σt², Σty; the slope is
+     * reported per OFV_NOMINAL_TICK_MS.
+     *
+     * Sums are rebuilt exactly from the ring every RESYNC_EVERY pushes to stop
+     * floating-point drift. One writer per pair (its WS thread); push() is
+     * synchronized only to stay safe across a reconnect overlap.
+     */
+    static final class ObiSlopeWindow {
+        private static final int RESYNC_EVERY = 4096;
+        private static final int MIN_POINTS   = 4;
+        private final double[] ys;
+        private final double[] ts;
+        private final boolean  timeWeighted;
+        private int head = 0, n = 0, sinceResync = 0;
+        private double sy, sxy, st, stt, sty;
+        private long tBase = Long.MIN_VALUE;
+        private volatile double slope = 0.0;
+
+        ObiSlopeWindow(int size, boolean timeWeighted) {
+            this.ys = new double[size];
+            this.ts = new double[size];
+            this.timeWeighted = timeWeighted;
+        }
+
+        synchronized void push(double y, long tsMs) {
+            if (tBase == Long.MIN_VALUE) tBase = tsMs;
+            double t = tsMs - tBase;
+            int cap = ys.length;
+            if (n == cap) {
+                double y0 = ys[head], t0 = ts[head];
+                sy  -= y0;
+                sxy -= sy;                          // remaining x's shift down by one
+                st  -= t0; stt -= t0 * t0; sty -= t0 * y0;
+                ys[head] = y; ts[head] = t;
+                head = (head + 1) % cap;
+                sxy += (double) (cap - 1) * y;
+            } else {
+                int k = (head + n) % cap;
+                ys[k] = y; ts[k] = t;
+                sxy += (double) n * y;
+                n++;
+            }
+            sy += y; st += t; stt += t * t; sty += t * y;
+            if (++sinceResync >= RESYNC_EVERY) resync();
+            if (n >= MIN_POINTS) slope = timeWeighted ? timeSlope() : indexSlope();
+        }
+
+        private double indexSlope() {
+            double xMean = (n - 1) / 2.0;
+            double den = n * ((double) n * n - 1) / 12.0;
+            return den > 1e-12 ? (sxy - xMean * sy) / den : 0;
+        }
+
+        private double timeSlope() {
+            double den = n * stt - st * st;
+            if (den <= 1e-9) return indexSlope(); // burst with identical timestamps
+            return (n * sty - st * sy) / den * OFV_NOMINAL_TICK_MS;
+        }
+
+        /** Rebuilds every running sum from the ring and re-bases time to the oldest point. */
+        private void resync() {
+            int cap = ys.length;
+            double shift = n > 0 ? ts[head] : 0;
+            tBase += (long) shift;
+            sy = sxy = st = stt = sty = 0;
+            for (int i = 0; i < n; i++) {
+                int k = (head + i) % cap;
+                ts[k] -= shift;
+                double y = ys[k], t = ts[k];
+                sy += y; sxy += i * y; st += t; stt += t * t; sty += t * y;
+            }
+            sinceResync = 0;
+        }
+
+        double slope() { return slope; }
+    }
+
+    /**
+     * [v94 M1-RING] Fixed-capacity candle ring with zero-copy snapshot views.
+     *
+     * Appending is O(1): the candle goes into slot (seq % slots.length) and the
+     * volatile writeSeq is bumped, which publishes it to readers. snapshot()
+     * returns an immutable RandomAccess view over the last `capacity` candles as
+     * of that moment; it is cached until the next append, so every reader of the
+     * same minute shares one view object.
+     *
+     * The backing array has SLACK spare slots beyond `capacity`, so a view stays
+     * valid for SLACK further appends (an hour of 1m bars) — far longer than any
+     * processPair holds it. A view that is lapped anyway fails loudly with
+     * ConcurrentModificationException instead of returning a newer bar.
+     *
+     * Bars must arrive in openTime order; an append that is not strictly newer
+     * than the last bar is dropped (e.g. the minute a REST seed already holds).
+     *
+     * [v107] A repaired series cannot be spliced into the middle of a ring, so
+     * supersede() builds a successor ring and forwards later appends to it —
+     * a writer that still holds this ring loses nothing.
+     */
+    static final class CandleRing {
+        private static final int SLACK = 64;
+        private final com.bot.TradingCore.Candle[] slots;
+        private final int capacity;
+        private volatile long writeSeq = 0;  // total candles ever appended
+        private volatile View cached = null;
+        private CandleRing successor;        // guarded by this
+
+        CandleRing(int capacity) {
+            this.capacity = capacity;
+            this.slots = new com.bot.TradingCore.Candle[capacity + SLACK];
+        }
+
+        /** Ring pre-filled with the newest `capacity` bars of {@code seed}. */
+        static CandleRing seeded(int capacity, List<com.bot.TradingCore.Candle> seed) {
+            CandleRing r = new CandleRing(capacity);
+            for (int i = Math.max(0, seed.size() - capacity); i < seed.size(); i++) r.append(seed.get(i));
+            return r;
+        }
+
+        synchronized boolean append(com.bot.TradingCore.Candle c) {
+            if (successor != null) return successor.append(c);
+            long seq = writeSeq;
+            if (seq > 0 && c.openTime <= slots[(int) ((seq - 1) % slots.length)].openTime) return false;
+            slots[(int) (seq % slots.length)] = c;
+            writeSeq = seq + 1;
+            return true;
+        }
+
+        /**
+         * Successor ring holding {@code bars} (ascending) plus anything appended here
+         * after their last bar; from now on appends to this ring go to the successor.
+         */
+        synchronized CandleRing supersede(List<com.bot.TradingCore.Candle> bars) {
+            if (successor != null) return successor.supersede(bars);
+            List<com.bot.TradingCore.Candle> all = new ArrayList<>(bars);
+            long lastOpen = bars.isEmpty() ? Long.MIN_VALUE : bars.get(bars.size() - 1).openTime;
+            for (com.bot.TradingCore.Candle c : snapshot()) if (c.openTime > lastOpen) all.add(c);
+            successor = seeded(capacity, all);
+            return successor;
+        }
+
+        int capacity() { return capacity; }
+
+        int size() { return (int) Math.min(writeSeq, capacity); }
+
+        com.bot.TradingCore.Candle last() {
+            long seq = writeSeq;
+            return seq == 0 ? null : slots[(int) ((seq - 1) % slots.length)];
+        }
+
+        List<com.bot.TradingCore.Candle> snapshot() {
+            long end = writeSeq;
+            View v = cached;
+            if (v != null && v.end == end) return v;
+            int n = (int) Math.min(end, capacity);
+            v = new View(end - n, n, end);
+            cached = v;
+            return v;
+        }
+
+        private final class View extends AbstractList<com.bot.TradingCore.Candle> implements RandomAccess {
+            private final long from, end;
+            private final int n;
+            View(long from, int n, long end) { this.from = from; this.n = n; this.end = end; }
+            @Override public int size() { return n; }
+            @Override public com.bot.TradingCore.Candle get(int i) {
+                Objects.checkIndex(i, n);
+                long seq = from + i;
+                com.bot.TradingCore.Candle c = slots[(int) (seq % slots.length)];
+                if (writeSeq - seq >= slots.length)
+                    throw new ConcurrentModificationException("candle ring lapped a live snapshot");
+                return c;
+            }
+        }
+    }
+
+    /**
+     * [v96 KLINE-WS] One symbol×interval series maintained from {@code @kline_<iv>}
+     * events. Closed bars go into a CandleRing (O(1) append, zero-copy reads);
+     * the in-flight bar is kept separately and appended to reads so callers see
+     * the same "last bar is live" shape as a REST klines response.
+     *
+     * The series is trusted only while it is contiguous and the stream is alive:
+     * a bar that skips an interval (missed events during a reconnect) marks it
+     * holed, and the next read fills the missing bars with one range fetch
+     * (CandleIntegrity) [v107]. Only if that fails — or GAP_REPAIR=0 — is it
+     * marked broken, and getCached then reseeds it from REST.
+     */
+    static final class KlineStreamSeries {
+        final long ivMs;
+        volatile CandleRing closed;   // [v107] swapped for its successor after a repair
+        volatile com.bot.TradingCore.Candle forming;
+        volatile long lastEventMs;
+        volatile boolean broken;
+        volatile boolean holed;
+
+        KlineStreamSeries(long ivMs, int capacity, List<com.bot.TradingCore.Candle> seed) {
+            this.ivMs = ivMs;
+            this.closed = CandleRing.seeded(capacity, seed);
+            this.lastEventMs = System.currentTimeMillis();
+        }
+
+        /** Applies one kline event; returns false if it revealed a gap. */
+        boolean onKline(com.bot.TradingCore.Candle k, boolean isClosed, long nowMs) {
+            lastEventMs = nowMs;
+            CandleRing ring = closed;
+            com.bot.TradingCore.Candle last = ring.last();
+            // A forming bar past last+ivMs also means closes were missed (tail hole).
+            boolean gap = last != null && k.openTime > last.openTime + ivMs;
+            if (gap && !CandleIntegrity.ENABLED) { broken = true; return false; }
+            if (gap) holed = true;
+            if (!isClosed) { forming = k; return !gap; }
+            ring.append(k);   // duplicates / older bars are dropped by the ring
+            com.bot.TradingCore.Candle f = forming;
+            if (f != null && f.openTime <= k.openTime) forming = null;
+            return !gap;
+        }
+
+        boolean isLive(long nowMs, long maxSilenceMs) {
+            return !broken && nowMs - lastEventMs <= maxSilenceMs;
+        }
+
+        /** Newest {@code limit} bars (closed + forming), or null if the series holds fewer. */
+        List<com.bot.TradingCore.Candle> read(int limit) {
+            List<com.bot.TradingCore.Candle> base = closed.snapshot();
+            com.bot.TradingCore.Candle f = forming;
+            boolean withForming = f != null && (base.isEmpty() || f.openTime > base.get(base.size() - 1).openTime);
+            int total = base.size() + (withForming ? 1 : 0);
+            if (total < limit) return null;
+            List<com.bot.TradingCore.Candle> view = withForming ? new AppendedView(base, f) : base;
+            return total == limit ? view : view.subList(total - limit, total);
+        }
+
+        private static final class AppendedView extends AbstractList<com.bot.TradingCore.Candle> implements RandomAccess {
+            private final List<com.bot.TradingCore.Candle> base;
+            private final com.bot.TradingCore.Candle tail;
+            AppendedView(List<com.bot.TradingCore.Candle> base, com.bot.TradingCore.Candle tail) { this.base = base; this.tail = tail; }
+            @Override public int size() { return base.size() + 1; }
+            @Override public com.bot.TradingCore.Candle get(int i) { return i == base.size() ? tail : base.get(i); }
+        }
+    }
+
+    /**
+     * [v97 BULK-WS] Per-symbol primitive slots fed by !markPrice@arr / !miniTicker@arr.
+     *
+     * Fixed capacity (the USDT-M universe is ~500 symbols) so arrays never grow
+     * and a slot id, once handed out, is stable for the process lifetime. Each
+     * field has a single writer: the bulk-stream thread for mark/funding/ticker,
+     * the OI batcher for openInterest. The volatile lastFrameMs write after every
+     * frame publishes the plain array stores to readers.
+     */
+    static final class MarketSlots {
+        static final int CAPACITY = 2048;
+        private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+        private final String[] symbols      = new String[CAPACITY];
+        final double[] markPrice            = new double[CAPACITY];
+        final double[] fundingRate          = new double[CAPACITY];
+        final long[]   nextFundingMs        = new long[CAPACITY];
+        final long[]   fundingUpdatedMs     = new long[CAPACITY];
+        final double[] lastPrice            = new double[CAPACITY];
+        final double[] quoteVolume24h       = new double[CAPACITY];
+        final long[]   tickerUpdatedMs      = new long[CAPACITY];
+        final double[] openInterest         = new double[CAPACITY];
+        private volatile int count = 0;
+        volatile long lastFrameMs = 0;
+
+        /** Slot of {@code sym}, registering it on first sight; -1 when full. */
+        int idOf(String sym) {
+            Integer id = ids.get(sym);
+            return id != null ? id : register(sym);
+        }
+
+        /** Slot of {@code sym} or -1 if never seen. */
+        int find(String sym) {
+            Integer id = ids.get(sym);
+            return id != null ? id : -1;
+        }
+
+        private synchronized int register(String sym) {
+            Integer id = ids.get(sym);
+            if (id != null) return id;
+            if (count >= CAPACITY) return -1;
+            int slot = count;
+            symbols[slot] = sym;
+            ids.put(sym, slot);
+            count = slot + 1;
+            return slot;
+        }
+
+        int size() { return count; }
+        String symbol(int slot) { return symbols[slot]; }
+    }
+
+    /**
+     * [v106 NL-WS] Tick-built 1m bars for one new-listing recording.
+     *
+     * aggTrades go through a single-interval MicroCandleBuilder; bookTicker, depth10
+     * and markPrice only refresh the latest quote, L10 sums and funding. Each closed
+     * bar is stamped with that microstructure at close (a field older than
+     * QUOTE_MAX_AGE_MS is written as 0, never carried forward) and queued for the
+     * cycle thread. The first bar after a (re)subscribe started mid-minute and is
+     * dropped; the kline backfill then covers it, so needsBackfill() turns true only
+     * once a full stream bar exists.
+     */
+    static final class NewListingTape {
+        static final long BAR_MS = 60_000L;
+        static final long QUOTE_MAX_AGE_MS = 60_000L;
+        static final int  MAX_PENDING = 1440;   // a day of bars if the cycle thread stalls
+
+        static final class Bar {
+            final com.bot.TradingCore.Candle candle;
+            final double funding, bid, ask, bidDepth, askDepth;
+            final long snapMs;
+            Bar(com.bot.TradingCore.Candle candle, double funding, double bid, double ask,
+                double bidDepth, double askDepth, long snapMs) {
+                this.candle = candle; this.funding = funding; this.bid = bid; this.ask = ask;
+                this.bidDepth = bidDepth; this.askDepth = askDepth; this.snapMs = snapMs;
+            }
+        }
+
+        private MicroCandleBuilder bars = new MicroCandleBuilder(new long[]{BAR_MS}, BAR_MS);
+        private final ArrayDeque<Bar> closed = new ArrayDeque<>();
+        private double bid, ask, bidDepth, askDepth, funding;
+        private long bookMs, depthMs, markMs, firstBarOpen = -1;
+        private boolean fullBar, backfilled;
+        private volatile long lastEventMs;
+
+        synchronized void onTrade(long ts, double price, double qty, boolean buyerMaker, int tradeCount, long now) {
+            lastEventMs = now;
+            if (firstBarOpen < 0) firstBarOpen = (ts / BAR_MS) * BAR_MS;
+            Optional<com.bot.TradingCore.Candle> c = bars.addTick(ts, price, qty, buyerMaker, tradeCount);
+            if (c.isEmpty() || c.get().openTime == firstBarOpen) return;
+            fullBar = true;
+            boolean book = now - bookMs <= QUOTE_MAX_AGE_MS, depth = now - depthMs <= QUOTE_MAX_AGE_MS;
+            closed.add(new Bar(c.get(), now - markMs <= QUOTE_MAX_AGE_MS ? funding : 0.0,
+                    book ? bid : 0.0, book ? ask : 0.0, depth ? bidDepth : 0.0, depth ? askDepth : 0.0, now));
+            if (closed.size() > MAX_PENDING) closed.poll();
+        }
+
+        synchronized void onBook(double bid, double ask, long now) {
+            this.bid = bid; this.ask = ask; bookMs = now; lastEventMs = now;
+        }
+
+        synchronized void onDepth(double bidDepth, double askDepth, long now) {
+            this.bidDepth = bidDepth; this.askDepth = askDepth; depthMs = now; lastEventMs = now;
+        }
+
+        synchronized void onMark(double funding, long now) {
+            this.funding = funding; markMs = now; lastEventMs = now;
+        }
+
+        /** Closed bars since the last drain, oldest first. */
+        synchronized List<Bar> drain() {
+            List<Bar> out = new ArrayList<>(closed);
+            closed.clear();
+            return out;
+        }
+
+        /** Puts back bars whose write failed, ahead of anything closed meanwhile. */
+        synchronized void unread(List<Bar> failed) {
+            for (int i = failed.size() - 1; i >= 0; i--) closed.addFirst(failed.get(i));
+        }
+
+        /** After a stream gap: drop the in-flight bar and request a fresh backfill. */
+        synchronized void restart() {
+            bars = new MicroCandleBuilder(new long[]{BAR_MS}, BAR_MS);
+            firstBarOpen = -1;
+            fullBar = false;
+            backfilled = false;
+        }
+
+        synchronized boolean needsBackfill() { return fullBar && !backfilled; }
+        synchronized void markBackfilled()   { backfilled = true; }
+
+        /** markPrice@1s keeps this fresh even when a listing has no trades. */
+        boolean isLive(long now, long staleMs) { return now - lastEventMs <= staleMs; }
+    }
+
+    /**
+     * [v95 MULTI-TF BUILDER] Tick-driven bars for several intervals at once.
+     *
+     * Pre-v95 this built 1m bars only, set quoteVolume = volume and left
+     * numberOfTrades / takerBuy* at zero, so every WS-built 1m bar looked like
+     * 100% sell flow to computeAndStoreCVD. Now one aggTrade updates every
+     * configured interval (default 1s/5s/1m/5m/15m/1h/4h, plus PRIMARY_TF) in
+     * flat primitive arrays: O(intervals) per tick, no allocation unless a bar
+     * of the emit interval closes.
+     *
+     * addTick returns the closed bar of the emit interval (1m → liveM1Buffer).
+     * forming()/lastClosed() expose the in-flight and last finished bar of any
+     * interval. A forming bar is "complete" only if the builder was already
+     * running when that bar opened — a builder created mid-bar (boot, reconnect)
+     * has missed its first ticks and must not be spliced as if it were whole.
+     *
+     * Written by the pair's WS thread, read by analysis threads → synchronized.
+     */
     public static final class MicroCandleBuilder {
-        private final int intervalMs;
-        private long bucketStart=-1;
-        private double open=Double.NaN, high=Double.NEGATIVE_INFINITY, low=Double.POSITIVE_INFINITY, close=Double.NaN;
-        private double volume=0; private long closeTime=-1;
-        public MicroCandleBuilder(int intervalMs) { this.intervalMs=intervalMs; }
-        public Optional<com.bot.TradingCore.Candle> addTick(long ts, double price, double qty) {
-            long bucket = (ts/intervalMs)*intervalMs;
-            if (bucketStart==-1) { bucketStart=bucket; open=high=low=close=price; volume=qty; closeTime=bucket+intervalMs-1; return Optional.empty(); }
-            if (bucket==bucketStart) { high=Math.max(high,price); low=Math.min(low,price); close=price; volume+=qty; return Optional.empty(); }
-            com.bot.TradingCore.Candle c = new com.bot.TradingCore.Candle(bucketStart,open,high,low,close,volume,volume,closeTime);
-            bucketStart=bucket; open=high=low=close=price; volume=qty; closeTime=bucket+intervalMs-1;
-            return Optional.of(c);
+        static final long[] DEFAULT_INTERVALS_MS = {
+                1_000L, 5_000L, 60_000L, 5 * 60_000L, 15 * 60_000L, 60 * 60_000L, 4 * 60 * 60_000L };
+
+        private final long[]   intervalMs;
+        private final int      emitIdx;
+        private final long[]   bucketStart;
+        private final double[] open, high, low, close, volume, quoteVolume, takerBase, takerQuote;
+        private final int[]    trades;
+        private final com.bot.TradingCore.Candle[] lastClosed;
+        private long firstTickMs = -1;
+
+        public MicroCandleBuilder(long[] intervalsMs, long emitIntervalMs) {
+            int n = intervalsMs.length;
+            this.intervalMs  = intervalsMs.clone();
+            int e = -1;
+            for (int i = 0; i < n; i++) if (intervalsMs[i] == emitIntervalMs) e = i;
+            if (e < 0) throw new IllegalArgumentException("emit interval not configured: " + emitIntervalMs);
+            this.emitIdx     = e;
+            this.bucketStart = new long[n];
+            Arrays.fill(bucketStart, -1L);
+            this.open = new double[n]; this.high = new double[n]; this.low = new double[n]; this.close = new double[n];
+            this.volume = new double[n]; this.quoteVolume = new double[n];
+            this.takerBase = new double[n]; this.takerQuote = new double[n];
+            this.trades = new int[n];
+            this.lastClosed = new com.bot.TradingCore.Candle[n];
+        }
+
+        /** Default interval set plus {@code extraMs} (e.g. PRIMARY_TF) if it is not already in it. */
+        static long[] intervalsWith(long extraMs) {
+            for (long iv : DEFAULT_INTERVALS_MS) if (iv == extraMs) return DEFAULT_INTERVALS_MS;
+            long[] out = Arrays.copyOf(DEFAULT_INTERVALS_MS, DEFAULT_INTERVALS_MS.length + 1);
+            out[out.length - 1] = extraMs;
+            return out;
+        }
+
+        /**
+         * @param buyerMaker aggTrade "m" — true means the taker sold
+         * @param tradeCount exchange trades folded into this aggTrade (l − f + 1)
+         */
+        public synchronized Optional<com.bot.TradingCore.Candle> addTick(long ts, double price, double qty,
+                                                                         boolean buyerMaker, int tradeCount) {
+            if (firstTickMs < 0) firstTickMs = ts;
+            double quote = price * qty;
+            com.bot.TradingCore.Candle emitted = null;
+            for (int i = 0; i < intervalMs.length; i++) {
+                long bucket = (ts / intervalMs[i]) * intervalMs[i];
+                if (bucketStart[i] != -1 && bucket > bucketStart[i]) {
+                    lastClosed[i] = toCandle(i);
+                    if (i == emitIdx) emitted = lastClosed[i];
+                    bucketStart[i] = -1;
+                }
+                if (bucketStart[i] == -1) {
+                    bucketStart[i] = bucket;
+                    open[i] = high[i] = low[i] = price;
+                    volume[i] = quoteVolume[i] = takerBase[i] = takerQuote[i] = 0;
+                    trades[i] = 0;
+                }
+                // Late ticks (bucket < current start) fold into the current bar.
+                if (price > high[i]) high[i] = price;
+                if (price < low[i])  low[i]  = price;
+                close[i] = price;
+                volume[i] += qty;
+                quoteVolume[i] += quote;
+                trades[i] += tradeCount;
+                if (!buyerMaker) { takerBase[i] += qty; takerQuote[i] += quote; }
+            }
+            return emitted != null ? Optional.of(emitted) : Optional.empty();
+        }
+
+        private com.bot.TradingCore.Candle toCandle(int i) {
+            long s = bucketStart[i];
+            return new com.bot.TradingCore.Candle(s, open[i], high[i], low[i], close[i],
+                    volume[i], quoteVolume[i], s + intervalMs[i] - 1,
+                    trades[i], takerBase[i], takerQuote[i]);
+        }
+
+        private int indexOf(long ivMs) {
+            for (int i = 0; i < intervalMs.length; i++) if (intervalMs[i] == ivMs) return i;
+            return -1;
+        }
+
+        /** In-flight bar of the interval, or null if the interval is not built or has no ticks yet. */
+        public synchronized com.bot.TradingCore.Candle forming(long ivMs) {
+            int i = indexOf(ivMs);
+            return i < 0 || bucketStart[i] == -1 ? null : toCandle(i);
+        }
+
+        /** True if every tick of the in-flight bar went through this builder. */
+        public synchronized boolean isFormingComplete(long ivMs) {
+            int i = indexOf(ivMs);
+            return i >= 0 && bucketStart[i] != -1 && firstTickMs <= bucketStart[i];
+        }
+
+        /** True if the builder was already running at {@code openTime} (a bar from then on is whole). */
+        public synchronized boolean coversFrom(long openTime) {
+            return firstTickMs >= 0 && firstTickMs <= openTime;
+        }
+
+        public synchronized com.bot.TradingCore.Candle lastClosed(long ivMs) {
+            int i = indexOf(ivMs);
+            return i < 0 ? null : lastClosed[i];
         }
     }
 
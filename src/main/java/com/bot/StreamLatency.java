@@ -0,0 +1,295 @@
+package com.bot;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * StreamLatency v1.0 — end-to-end market-data latency per WS stream.
+ *
+ * ┌─────────────────────────────────────────────────────────────────────┐
+ * │  exch_recv   : event time Binance (E, иначе T) → локальный приём    │
+ * │                кадра (биржа + сеть; мс, часы хоста)                 │
+ * │  recv_proc   : приём кадра → обработчик отработал (парсинг JSON +   │
+ * │                processAggTrade/…; наш WS-поток, nanoTime)           │
+ * │  proc_signal : обработка тика, запустившего EARLY_TICK → сигнал     │
+ * │                ушёл в Dispatcher (коалесинг, буфер, гейты)           │
+ * └─────────────────────────────────────────────────────────────────────┘
+ *
+ * Every (stage, stream, group) cell is a fixed-bucket lock-free
+ * {@link SignalSender.LatencyHistogram}; recording is a few atomic adds, no
+ * allocation. Groups: TOP / ALT / MEME (CoinCategory of the pair) and MIXED for
+ * all-market streams (forceOrder, bulk markPrice/miniTicker).
+ *
+ * Windows: every LAT_WINDOW_SEC the cells are snapshotted (p50/p99/max/n) and
+ * reset. A window breaches when p99 exceeds the stage limit, or exceeds
+ * LAT_ALERT_FACTOR × the cell's baseline (EWMA of healthy windows) while above a
+ * quarter of the limit. Two breaching windows in a row → "[LATENCY-ALERT]"
+ * (per cell, at most once per LAT_ALERT_COOLDOWN_MIN); recovery is logged too.
+ *
+ * Host clock behind Binance makes exch_recv negative: such samples are
+ * recorded as 0 and counted (clock_skew_negative) — check NTP if it grows.
+ *
+ * Exposure: {@link #summary()} for [STATS] and, with METRICS_PORT &gt; 0, a
+ * Prometheus text endpoint at http://host:METRICS_PORT/metrics.
+ *
+ * Параметры:
+ *   LAT_WINDOW_SEC          — окно перцентилей (default 60)
+ *   LAT_P99_EXCH_MS         — лимит p99 exch_recv (default 1500)
+ *   LAT_P99_PROC_MS         — лимит p99 recv_proc (default 50)
+ *   LAT_P99_SIGNAL_MS       — лимит p99 proc_signal (default 5000)
+ *   LAT_ALERT_FACTOR        — деградация относительно baseline (default 3.0)
+ *   LAT_ALERT_MIN_SAMPLES   — минимум сэмплов в окне (default 50)
+ *   LAT_ALERT_COOLDOWN_MIN  — пауза между алертами одной ячейки (default 15)
+ *   METRICS_PORT            — порт /metrics (default 0 = выкл)
+ */
+public final class StreamLatency {
+
+    private static final Logger LOG = Logger.getLogger("StreamLatency");
+
+    public enum Stream {
+        AGG_TRADE("aggTrade"), BOOK_TICKER("bookTicker"), KLINE("kline"),
+        DEPTH("depth"), FORCE_ORDER("forceOrder"), BULK("bulk");
+        final String label;
+        Stream(String label) { this.label = label; }
+    }
+
+    public enum Stage {
+        EXCH_RECV("exch_recv", envLong("LAT_P99_EXCH_MS", 1500)),
+        RECV_PROC("recv_proc", envLong("LAT_P99_PROC_MS", 50)),
+        PROC_SIGNAL("proc_signal", envLong("LAT_P99_SIGNAL_MS", 5000));
+        final String label;
+        final long limitNanos;
+        Stage(String label, long limitMs) { this.label = label; this.limitNanos = limitMs * 1_000_000L; }
+    }
+
+    public static final int TOP = 0, ALT = 1, MEME = 2, MIXED = 3;
+    private static final String[] GROUPS = {"TOP", "ALT", "MEME", "MIXED"};
+
+    private static final long   WINDOW_SEC      = Math.max(5, envLong("LAT_WINDOW_SEC", 60));
+    private static final double ALERT_FACTOR    = Math.max(1.5, envDouble("LAT_ALERT_FACTOR", 3.0));
+    private static final long   ALERT_MIN_N     = Math.max(1, envLong("LAT_ALERT_MIN_SAMPLES", 50));
+    private static final long   ALERT_COOLDOWN  = envLong("LAT_ALERT_COOLDOWN_MIN", 15) * 60_000L;
+
+    /** One (stage, stream, group) cell: live window + last closed-window snapshot. */
+    private static final class Cell {
+        final SignalSender.LatencyHistogram window = new SignalSender.LatencyHistogram();
+        volatile long p50, p99, max, n, total, sumNanos;   // total/sumNanos cumulative
+        double  baseline;        // EWMA of healthy-window p99, nanos
+        int     breachStreak;
+        boolean alerting;
+        long    lastAlertMs;
+    }
+
+    private final Cell[][][] cells = new Cell[Stage.values().length][Stream.values().length][GROUPS.length];
+    private final AtomicLong skewNegative = new AtomicLong(0);
+    private final AtomicLong alerts       = new AtomicLong(0);
+    private volatile Consumer<String> alertSink = null;
+    private ScheduledExecutorService rotator;
+    private HttpServer server;
+
+    public StreamLatency() {
+        for (Cell[][] st : cells) for (Cell[] sr : st) for (int g = 0; g < sr.length; g++) sr[g] = new Cell();
+    }
+
+    public static int groupOf(DecisionEngineMerged.CoinCategory cat) {
+        if (cat == null) return MIXED;
+        return switch (cat) { case TOP -> TOP; case ALT -> ALT; case MEME -> MEME; };
+    }
+
+    // ─── Hot path ─────────────────────────────────────────────────────
+
+    /**
+     * One WS frame handled. {@code eventMs} = exchange E/T (≤0 = unknown, only the
+     * local stage is recorded); {@code recvMs}/{@code recvNanos} taken on frame arrival.
+     */
+    public void onFrame(Stream s, int group, long eventMs, long recvMs, long recvNanos) {
+        Cell[] row = cells[Stage.RECV_PROC.ordinal()][s.ordinal()];
+        row[group].window.record(System.nanoTime() - recvNanos);
+        if (eventMs > 0) {
+            long d = recvMs - eventMs;
+            if (d < 0) { skewNegative.incrementAndGet(); d = 0; }
+            cells[Stage.EXCH_RECV.ordinal()][s.ordinal()][group].window.record(d * 1_000_000L);
+        }
+    }
+
+    /** A tick-triggered signal was dispatched; {@code processedMs} = when its tick was processed. */
+    public void onSignal(int group, long processedMs, long nowMs) {
+        cells[Stage.PROC_SIGNAL.ordinal()][Stream.AGG_TRADE.ordinal()][group].window
+                .record(Math.max(0, nowMs - processedMs) * 1_000_000L);
+    }
+
+    // ─── Windows + alerts ─────────────────────────────────────────────
+
+    public synchronized void start(int metricsPort, Supplier<String> extraMetrics) {
+        if (rotator == null) {
+            rotator = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "stream-latency"); t.setDaemon(true); return t;
+            });
+            rotator.scheduleAtFixedRate(() -> {
+                try { rotate(System.currentTimeMillis()); }
+                catch (Throwable t) { LOG.warning("[LATENCY] rotate: " + t.getMessage()); }
+            }, WINDOW_SEC, WINDOW_SEC, TimeUnit.SECONDS);
+        }
+        if (metricsPort > 0 && server == null) {
+            try {
+                server = HttpServer.create(new InetSocketAddress(metricsPort), 0);
+                server.createContext("/metrics", ex -> {
+                    byte[] body = (prometheus() + (extraMetrics != null ? extraMetrics.get() : ""))
+                            .getBytes(StandardCharsets.UTF_8);
+                    ex.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+                    ex.sendResponseHeaders(200, body.length);
+                    try (OutputStream os = ex.getResponseBody()) { os.write(body); }
+                });
+                server.setExecutor(Executors.newSingleThreadExecutor(r -> {
+                    Thread t = new Thread(r, "metrics-http"); t.setDaemon(true); return t;
+                }));
+                server.start();
+                LOG.info("[LATENCY] /metrics on :" + metricsPort);
+            } catch (Exception e) {
+                LOG.warning("[LATENCY] metrics endpoint :" + metricsPort + " failed: " + e.getMessage());
+            }
+        }
+    }
+
+    public void setAlertSink(Consumer<String> sink) { this.alertSink = sink; }
+
+    /** Closes the current window of every cell and evaluates p99 alerts. */
+    synchronized void rotate(long nowMs) {
+        for (Stage st : Stage.values()) {
+            for (Stream s : Stream.values()) {
+                for (int g = 0; g < GROUPS.length; g++) {
+                    Cell c = cells[st.ordinal()][s.ordinal()][g];
+                    long n = c.window.count();
+                    if (n == 0) { c.n = 0; continue; }
+                    long p99 = c.window.percentile(99);
+                    c.p50 = c.window.percentile(50);
+                    c.p99 = p99;
+                    c.max = c.window.max();
+                    c.n = n;
+                    c.total += n;
+                    c.sumNanos += c.window.sumNanos();
+                    c.window.reset();
+                    if (n >= ALERT_MIN_N) evaluate(st, s, g, c, p99, nowMs);
+                }
+            }
+        }
+    }
+
+    private void evaluate(Stage st, Stream s, int g, Cell c, long p99, long nowMs) {
+        boolean breach = p99 > st.limitNanos
+                || (c.baseline > 0 && p99 > c.baseline * ALERT_FACTOR && p99 > st.limitNanos / 4);
+        if (!breach) {
+            c.baseline = c.baseline <= 0 ? p99 : c.baseline * 0.9 + p99 * 0.1;
+            c.breachStreak = 0;
+            if (c.alerting) {
+                c.alerting = false;
+                LOG.info(String.format("[LATENCY-OK] %s %s %s p99=%s", st.label, s.label, GROUPS[g], fmt(p99)));
+            }
+            return;
+        }
+        if (++c.breachStreak < 2 || nowMs - c.lastAlertMs < ALERT_COOLDOWN) return;
+        c.alerting = true;
+        c.lastAlertMs = nowMs;
+        alerts.incrementAndGet();
+        String msg = String.format("[LATENCY-ALERT] %s %s %s p99=%s (limit %s, baseline %s, n=%d)",
+                st.label, s.label, GROUPS[g], fmt(p99), fmt(st.limitNanos),
+                c.baseline > 0 ? fmt((long) c.baseline) : "—", c.n);
+        LOG.warning(msg);
+        Consumer<String> sink = alertSink;
+        if (sink != null) {
+            try { sink.accept(msg); } catch (Exception ignored) {}
+        }
+    }
+
+    // ─── Exposure ─────────────────────────────────────────────────────
+
+    /** Last closed window, worst group per stream: "aggTrade exch p50/p99=…/… proc p99=… | … ". */
+    public String summary() {
+        StringBuilder sb = new StringBuilder();
+        for (Stream s : Stream.values()) {
+            Cell ex = worst(Stage.EXCH_RECV, s), pr = worst(Stage.RECV_PROC, s);
+            if (ex == null && pr == null) continue;
+            if (sb.length() > 0) sb.append(" | ");
+            sb.append(s.label);
+            if (ex != null) sb.append(" exch p50/p99=").append(fmt(ex.p50)).append('/').append(fmt(ex.p99));
+            if (pr != null) sb.append(" proc p99=").append(fmt(pr.p99));
+        }
+        Cell sig = worst(Stage.PROC_SIGNAL, Stream.AGG_TRADE);
+        if (sig != null) sb.append(" | signal p50/p99=").append(fmt(sig.p50)).append('/').append(fmt(sig.p99));
+        if (sb.length() == 0) return "";
+        sb.append(" | skew<0=").append(skewNegative.get()).append(" alerts=").append(alerts.get());
+        return sb.toString();
+    }
+
+    private Cell worst(Stage st, Stream s) {
+        Cell w = null;
+        for (Cell c : cells[st.ordinal()][s.ordinal()]) if (c.n > 0 && (w == null || c.p99 > w.p99)) w = c;
+        return w;
+    }
+
+    /** Prometheus text format: per-cell quantiles of the last window, cumulative _sum/_count. */
+    public String prometheus() {
+        StringBuilder sb = new StringBuilder(4096);
+        sb.append("# HELP bot_md_latency_seconds Market-data latency per stage/stream/group (last window).\n")
+          .append("# TYPE bot_md_latency_seconds summary\n");
+        for (Stage st : Stage.values()) {
+            for (Stream s : Stream.values()) {
+                for (int g = 0; g < GROUPS.length; g++) {
+                    Cell c = cells[st.ordinal()][s.ordinal()][g];
+                    if (c.total == 0) continue;
+                    String lbl = "stage=\"" + st.label + "\",stream=\"" + s.label + "\",group=\"" + GROUPS[g] + "\"";
+                    sb.append("bot_md_latency_seconds{").append(lbl).append(",quantile=\"0.5\"} ").append(c.p50 / 1e9).append('\n');
+                    sb.append("bot_md_latency_seconds{").append(lbl).append(",quantile=\"0.99\"} ").append(c.p99 / 1e9).append('\n');
+                    sb.append("bot_md_latency_seconds_sum{").append(lbl).append("} ").append(c.sumNanos / 1e9).append('\n');
+                    sb.append("bot_md_latency_seconds_count{").append(lbl).append("} ").append(c.total).append('\n');
+                }
+            }
+        }
+        sb.append("# HELP bot_md_latency_max_seconds Market-data latency max per stage/stream/group (last window).\n")
+          .append("# TYPE bot_md_latency_max_seconds gauge\n");
+        for (Stage st : Stage.values()) {
+            for (Stream s : Stream.values()) {
+                for (int g = 0; g < GROUPS.length; g++) {
+                    Cell c = cells[st.ordinal()][s.ordinal()][g];
+                    if (c.total == 0) continue;
+                    sb.append("bot_md_latency_max_seconds{stage=\"").append(st.label).append("\",stream=\"")
+                      .append(s.label).append("\",group=\"").append(GROUPS[g]).append("\"} ")
+                      .append(c.max / 1e9).append('\n');
+                }
+            }
+        }
+        sb.append("# TYPE bot_md_clock_skew_negative_total counter\n")
+          .append("bot_md_clock_skew_negative_total ").append(skewNegative.get()).append('\n');
+        sb.append("# TYPE bot_md_latency_alerts_total counter\n")
+          .append("bot_md_latency_alerts_total ").append(alerts.get()).append('\n');
+        return sb.toString();
+    }
+
+    private static String fmt(long nanos) {
+        if (nanos >= 1_000_000_000L) return String.format("%.2fs", nanos / 1e9);
+        if (nanos >= 1_000_000L)     return String.format("%.0fms", nanos / 1e6);
+        return String.format("%.0fµs", nanos / 1e3);
+    }
+
+    // ─── Env ──────────────────────────────────────────────────────────
+
+    private static long envLong(String k, long d) {
+        try { return Long.parseLong(System.getenv().getOrDefault(k, String.valueOf(d)).trim()); }
+        catch (Exception e) { return d; }
+    }
+
+    private static double envDouble(String k, double d) {
+        try { return Double.parseDouble(System.getenv().getOrDefault(k, String.valueOf(d)).trim()); }
+        catch (Exception e) { return d; }
+    }
+}
@@ -0,0 +1,363 @@
+package com.bot;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * SymbolEngineState v1.0 — all per-symbol DecisionEngine state in one object.
+ *
+ * ┌─────────────────────────────────────────────────────────────────────┐
+ * │  Table.get(sym)  → состояние по символу (создаётся, id интернируется)│
+ * │  Table.peek(sym) → только чтение, null если символа нет             │
+ * │  состояние: кулдауны/скипы (long ms), пороги, счётчики — примитивы; │
+ * │             VD / CVD / RS / FR / calib / направления — кольца        │
+ * │             фиксированного размера                                  │
+ * │  Table.tick(now) → тайм-колесо: SLOTS × TICK_MS, один проход слота  │
+ * │             на тик; простоявший IDLE символ без штрафов выселяется │
+ * │  Table.report()  → символы / пик / выселено / ~память               │
+ * └─────────────────────────────────────────────────────────────────────┘
+ *
+ * Replaces the symbol-keyed maps of DecisionEngineMerged, each of which had
+ * its own cleanup rule (lazy TTL sweep for post-exit cooldowns, TTL on the
+ * FR history, none at all for the rest). Histories are fixed-size rings, so
+ * a symbol's footprint is constant. The only growth is the number of
+ * symbols, and the wheel bounds that by evicting symbols nobody touched for
+ * IDLE (default 48h — longer than any cooldown it could be holding).
+ *
+ * Every state sits in exactly one wheel slot, at its idle deadline. When
+ * the slot comes round, a state touched since is re-slotted at its new
+ * deadline; one that is still idle is removed. Touching never reschedules,
+ * so get() stays a map lookup plus a CAS on touchedMs.
+ *
+ * Eviction claims the state by CAS-ing the touchedMs it judged idle to
+ * EVICTED, then unmaps it under the table lock. A get() racing with it
+ * either touches first (the CAS fails, the state stays) or sees EVICTED and
+ * takes the lock, by which time the symbol is unmapped and is created anew.
+ * So get() never hands out a state that is about to disappear.
+ *
+ * Learned penalties are not idle state: a symbol with a loss streak, a
+ * per-symbol min confidence or calibration results is never evicted (these
+ * were kept forever before the table, and a restart-free bot would
+ * otherwise forget a symbol's penalty after two quiet days). Only symbols
+ * with a resolved signal are pinned, so the set stays small.
+ *
+ * Timestamps: cooldown fields hold whatever clock the caller passes
+ * (simulated bar time in backtests); touchedMs is always wall-clock.
+ *
+ * Параметры:
+ *   SYMBOL_STATE_IDLE_H — часов без обращений до выселения символа (default 48)
+ */
+public final class SymbolEngineState {
+
+    static final int  VD_HIST   = 50;     // |volume delta| readings
+    static final int  CVD_HIST  = 10;     // normalized CVD readings
+    static final int  RS_HIST   = 20;     // relative strength vs BTC
+    static final int  DIR_HIST  = 3;      // confirmed signal sides
+    static final int  CALIB_WIN = 120;    // signal results for the per-symbol threshold
+    static final int  FR_HIST   = 12;     // ~1h of funding snapshots at 5-min refresh
+    static final long FR_TTL_MS = 2 * 60 * 60_000L;
+
+    public final String symbol;
+    public final int id;
+    volatile long touchedMs;             // EVICTED once Table.tick claimed the state
+
+    static final long EVICTED = Long.MIN_VALUE;
+    private static final AtomicLongFieldUpdater<SymbolEngineState> TOUCHED =
+            AtomicLongFieldUpdater.newUpdater(SymbolEngineState.class, "touchedMs");
+
+    // ─── Cooldowns / skips (ms; 0 = none) ─────────────────────────────
+    volatile long lastSignalMs;          // cross-strategy cooldown: any strategy fired
+    volatile long postPumpUntil, postDumpUntil;
+    private final long[] sideSignalMs = new long[2];   // confirmed signal, by Side ordinal
+    private final long[] postExitMs   = new long[2];   // position exit, by Side ordinal
+
+    // ─── Scalars ──────────────────────────────────────────────────────
+    volatile double lastSigPrice = Double.NaN;
+    volatile double minConf = Double.NaN;               // NaN = global min confidence
+    volatile double volumeDelta, cvd, vda;
+    volatile DecisionEngineMerged.FundingOIData funding;
+    volatile FeatureVector features;
+    private int consecutiveLosses;
+    private int signalCount;
+
+    // ─── Histories ────────────────────────────────────────────────────
+    private final Ring vdHist  = new Ring(VD_HIST);
+    private final Ring cvdHist = new Ring(CVD_HIST);
+    private final Ring rsHist  = new Ring(RS_HIST);
+    private final Ring frHist  = new Ring(FR_HIST), frTs = new Ring(FR_HIST);
+    private final int[] dirs = new int[DIR_HIST];
+    private int dirHead, dirN;
+    private final boolean[] calib = new boolean[CALIB_WIN];
+    private int calibHead, calibN, calibHits;
+
+    private SymbolEngineState(String symbol, int id, long now) {
+        this.symbol = symbol;
+        this.id = id;
+        this.touchedMs = now;
+    }
+
+    // ─── Cooldowns ────────────────────────────────────────────────────
+
+    public synchronized long sideSignalMs(com.bot.TradingCore.Side side) { return sideSignalMs[side.ordinal()]; }
+    public synchronized long postExitMs(com.bot.TradingCore.Side side)   { return postExitMs[side.ordinal()]; }
+
+    /** Records a confirmed signal: side cooldown, direction history, count. */
+    public synchronized void registerSignal(com.bot.TradingCore.Side side, long now) {
+        sideSignalMs[side.ordinal()] = now;
+        dirs[dirHead] = side.ordinal();
+        dirHead = (dirHead + 1) % DIR_HIST;
+        if (dirN < DIR_HIST) dirN++;
+        signalCount++;
+    }
+
+    public synchronized void markPostExit(com.bot.TradingCore.Side side, long now) { postExitMs[side.ordinal()] = now; }
+    public synchronized void clearPostExit(com.bot.TradingCore.Side side)          { postExitMs[side.ordinal()] = 0; }
+
+    /** False when the last two confirmed sides were {@code side} then the opposite (A→B→A flip). */
+    public synchronized boolean flipAllowed(com.bot.TradingCore.Side side) {
+        if (dirN < 2) return true;
+        int last = dirs[(dirHead + DIR_HIST - 1) % DIR_HIST];
+        int prev = dirs[(dirHead + DIR_HIST - 2) % DIR_HIST];
+        return !(last != side.ordinal() && prev == side.ordinal());
+    }
+
+    public synchronized int signalCount() { return signalCount; }
+
+    // ─── Loss streak / per-symbol threshold ───────────────────────────
+
+    public synchronized int addLoss()    { return ++consecutiveLosses; }
+    public synchronized void resetLosses() { consecutiveLosses = 0; }
+
+    /** Applies {@code f} to minConf (NaN = unset) atomically w.r.t. other updates of this symbol. */
+    public synchronized void updateMinConf(java.util.function.DoubleUnaryOperator f) {
+        minConf = f.applyAsDouble(minConf);
+    }
+
+    /** True while the symbol holds a loss streak, its own min confidence or calibration results. */
+    synchronized boolean pinned() {
+        return consecutiveLosses > 0 || !Double.isNaN(minConf) || calibN > 0;
+    }
+
+    /** Adds a signal result; returns the window hit rate, or NaN below {@code minN} results. */
+    public synchronized double addCalib(boolean correct, int minN) {
+        if (calibN == CALIB_WIN) { if (calib[calibHead]) calibHits--; } else calibN++;
+        calib[calibHead] = correct;
+        if (correct) calibHits++;
+        calibHead = (calibHead + 1) % CALIB_WIN;
+        return calibN < minN ? Double.NaN : (double) calibHits / calibN;
+    }
+
+    // ─── Flow histories ───────────────────────────────────────────────
+
+    public synchronized void addVolumeDelta(double delta) {
+        volumeDelta = delta;
+        vdHist.add(Math.abs(delta));
+    }
+
+    /** |current| / mean(|history|); 0 without a reading, 1 below 5 readings. */
+    public synchronized double volumeDeltaRatio() {
+        if (volumeDelta == 0) return 0.0;
+        if (vdHist.size() < 5) return 1.0;
+        double avg = vdHist.mean();
+        return avg < 1e-9 ? 1.0 : Math.abs(volumeDelta) / avg;
+    }
+
+    public synchronized void addCvd(double v) {
+        cvd = v;
+        cvdHist.add(v);
+    }
+
+    /** True if the last {@code minBars} CVD readings all agree with {@code bullish} (beyond ±0.05). */
+    public synchronized boolean cvdPersistent(boolean bullish, int minBars) {
+        int n = cvdHist.size();
+        if (n < minBars) return false;
+        for (int i = n - minBars; i < n; i++) {
+            double v = cvdHist.get(i);
+            if (bullish  && v <= 0.05) return false;
+            if (!bullish && v >= -0.05) return false;
+        }
+        return true;
+    }
+
+    public synchronized void addRelStrength(double rs) { rsHist.add(rs); }
+
+    /** Mean relative strength; 0.5 without history. */
+    public synchronized double relStrength() { return rsHist.size() == 0 ? 0.5 : rsHist.mean(); }
+
+    public synchronized void addFunding(double fr, long now) {
+        frHist.add(fr);
+        frTs.add(now);
+        expire(now);
+    }
+
+    // ─── Expiry ───────────────────────────────────────────────────────
+
+    /** Drops FR snapshots older than FR_TTL_MS (oldest first, so a prefix). */
+    synchronized void expire(long now) {
+        int drop = 0;
+        while (drop < frTs.size() && frTs.get(drop) < now - FR_TTL_MS) drop++;
+        frHist.dropOldest(drop);
+        frTs.dropOldest(drop);
+    }
+
+    static long approxBytes() {
+        return 256L + 8L * (VD_HIST + CVD_HIST + RS_HIST + 2 * FR_HIST + 4) + 4L * DIR_HIST + CALIB_WIN + 5 * 32L;
+    }
+
+    // ─── Ring ─────────────────────────────────────────────────────────
+
+    /** Fixed-capacity FIFO of doubles; index 0 = oldest. Guarded by the owning state. */
+    private static final class Ring {
+        private final double[] buf;
+        private int head, size;                           // head = index of the oldest
+        Ring(int cap) { buf = new double[cap]; }
+        int size() { return size; }
+        double get(int i) { return buf[(head + i) % buf.length]; }
+        void add(double v) {
+            if (size < buf.length) { buf[(head + size) % buf.length] = v; size++; }
+            else { buf[head] = v; head = (head + 1) % buf.length; }
+        }
+        void dropOldest(int n) {
+            n = Math.min(n, size);
+            head = (head + n) % buf.length;
+            size -= n;
+        }
+        double mean() {
+            double s = 0;
+            for (int i = 0; i < size; i++) s += get(i);
+            return s / size;
+        }
+    }
+
+    // ═════════════════════════════════════════════════════════════════
+    //  TABLE — symbol → state, interned ids, time-wheel eviction
+    // ═════════════════════════════════════════════════════════════════
+
+    public static final class Table {
+
+        static final long TICK_MS = 60_000L;
+        static final int  SLOTS   = 64;
+        static final long IDLE_MS = Math.max(1, envLong("SYMBOL_STATE_IDLE_H", 48)) * 3_600_000L;
+
+        private final ConcurrentHashMap<String, SymbolEngineState> bySymbol = new ConcurrentHashMap<>();
+
+        // Guarded by this
+        private SymbolEngineState[] byId = new SymbolEngineState[64];
+        private int[] freeIds = new int[16];
+        private int freeN, nextId, peak;
+        private final int[][] slots = new int[SLOTS][];
+        private final int[] slotN = new int[SLOTS];
+        private long cursor = -1;
+
+        private final AtomicLong created = new AtomicLong(), evicted = new AtomicLong();
+
+        /** State of {@code symbol}, created on first use; marks it touched. Never an evicted state. */
+        public SymbolEngineState get(String symbol) {
+            long now = System.currentTimeMillis();
+            SymbolEngineState s = bySymbol.get(symbol);
+            while (true) {
+                if (s == null) s = create(symbol, now);
+                long t = s.touchedMs;
+                if (t != EVICTED && (t >= now || TOUCHED.compareAndSet(s, t, now) || s.touchedMs != EVICTED)) {
+                    return s;
+                }
+                s = create(symbol, now);                 // lost to tick(): unmapped once we hold the lock
+            }
+        }
+
+        /** State of {@code symbol} or null; does not create or touch (may be an idle state being evicted). */
+        public SymbolEngineState peek(String symbol) {
+            return bySymbol.get(symbol);
+        }
+
+        public int size() { return bySymbol.size(); }
+
+        private synchronized SymbolEngineState create(String symbol, long now) {
+            SymbolEngineState s = bySymbol.get(symbol);
+            if (s != null) return s;
+            int id = freeN > 0 ? freeIds[--freeN] : nextId++;
+            if (id >= byId.length) byId = Arrays.copyOf(byId, byId.length * 2);
+            s = new SymbolEngineState(symbol, id, now);
+            byId[id] = s;
+            schedule(id, now + IDLE_MS);
+            bySymbol.put(symbol, s);
+            created.incrementAndGet();
+            peak = Math.max(peak, bySymbol.size());
+            return s;
+        }
+
+        private void schedule(int id, long deadline) {
+            int slot = (int) Math.floorMod(deadline / TICK_MS, (long) SLOTS);
+            int[] ids = slots[slot];
+            if (ids == null) ids = slots[slot] = new int[8];
+            else if (slotN[slot] == ids.length) ids = slots[slot] = Arrays.copyOf(ids, ids.length * 2);
+            ids[slotN[slot]++] = id;
+        }
+
+        /**
+         * Advances the wheel to {@code now}: each slot passed is visited once. Idle, unpinned
+         * states are claimed (CAS touchedMs → EVICTED, fails if touched meanwhile) and removed;
+         * the rest are re-slotted at their deadline and expired. Returns states evicted.
+         */
+        public synchronized int tick(long now) {
+            long t = now / TICK_MS;
+            if (cursor < 0) cursor = t - 1;
+            long steps = Math.min(SLOTS, t - cursor);
+            int gone = 0;
+            for (long k = 1; k <= steps; k++) {
+                int slot = (int) Math.floorMod(cursor + k, (long) SLOTS);
+                int[] ids = slots[slot];
+                int n = slotN[slot];
+                if (n == 0) continue;
+                slots[slot] = null;
+                slotN[slot] = 0;
+                for (int i = 0; i < n; i++) {
+                    SymbolEngineState s = byId[ids[i]];
+                    if (s == null) continue;
+                    long touched = s.touchedMs, deadline = touched + IDLE_MS;
+                    if (deadline <= now) {
+                        if (!s.pinned() && TOUCHED.compareAndSet(s, touched, EVICTED)) {
+                            bySymbol.remove(s.symbol, s);
+                            byId[s.id] = null;
+                            if (freeN == freeIds.length) freeIds = Arrays.copyOf(freeIds, freeN * 2);
+                            freeIds[freeN++] = s.id;
+                            gone++;
+                            continue;
+                        }
+                        deadline = now + IDLE_MS;        // pinned, or touched since the read
+                    }
+                    s.expire(now);
+                    schedule(s.id, deadline);
+                }
+            }
+            cursor = Math.max(cursor, t);
+            if (gone > 0) evicted.addAndGet(gone);
+            return gone;
+        }
+
+        /** "symbols=… pinned=… peak=… created=… evicted=… features=… ~…KB (idle …h, wheel …×…s)"; empty when unused. */
+        public String report() {
+            long c = created.get();
+            if (c == 0) return "";
+            int n = 0, fv = 0, pinned = 0;
+            for (SymbolEngineState s : bySymbol.values()) {
+                n++;
+                if (s.features != null) fv++;
+                if (s.pinned()) pinned++;
+            }
+            int pk;
+            synchronized (this) { pk = peak; }
+            return String.format("symbols=%d pinned=%d peak=%d created=%d evicted=%d features=%d ~%dKB (idle %dh, wheel %d×%ds)",
+                    n, pinned, pk, c, evicted.get(), fv, n * approxBytes() / 1024,
+                    IDLE_MS / 3_600_000L, SLOTS, TICK_MS / 1000);
+        }
+    }
+
+    private static long envLong(String k, long d) {
+        String v = System.getenv(k);
+        if (v == null || v.isBlank()) return d;
+        try { return Long.parseLong(v.trim()); } catch (Exception e) { return d; }
+    }
+}
@@ -0,0 +1,331 @@
+package com.bot;
+
+/**
+ * TickFootprint v1.0 — real footprint bars built from aggTrade ticks
+ * (price-level aggressive buy/sell volume per candle).
+ *
+ * ┌─────────────────────────────────────────────────────────────────────┐
+ * │  TradingCore.footprintSeries оценивает buy/sell по положению close  │
+ * │  в баре. Здесь — фактические объёмы агрессора по ценовым уровням:   │
+ * │    onTrade()  → float-гистограмма формирующегося бара (без аллокаций)│
+ * │    roll       → неизменяемый Bar: delta, POC, delta-at-price,       │
+ * │                 stacked imbalances, absorption на экстремумах       │
+ * │  Память на символ ограничена: MAX_LEVELS уровней × (1 + KEEP_BARS). │
+ * └─────────────────────────────────────────────────────────────────────┘
+ *
+ * Levels: bucket = "nice" step (1/2/5 × 10^k) nearest to FP_BUCKET_BPS of the
+ * bar's first price, fixed for the bar. If the bar spans more than MAX_LEVELS
+ * buckets, the histogram coarsens (bucket × 2, adjacent levels merged), so a
+ * bar never grows past MAX_LEVELS and no volume is dropped.
+ *
+ * Stacked imbalance (diagonal, as on footprint charts): level i is a BUY
+ * imbalance when buy[i] ≥ FP_IMB_RATIO × sell[i−1], a SELL imbalance when
+ * sell[i] ≥ FP_IMB_RATIO × buy[i+1]; the bar reports the longest run of each.
+ *
+ * Absorption: aggressive volume on one side concentrated in the FP_EDGE_LEVELS
+ * levels at a bar extreme (≥ FP_ABSORB_SHARE of bar volume, net in that
+ * direction) while the bar closes back below/above those levels — a passive
+ * wall took the flow and price did not follow.
+ *   absorbHigh — buyers lifted into the high and were absorbed (bearish at the top)
+ *   absorbLow  — sellers hit into the low and were absorbed  (bullish at the bottom)
+ *
+ * A bar is marked {@code partial} unless it directly follows a closed bar of
+ * this builder (the first bar after creation starts mid-bar); consumers should
+ * ignore partial bars. Trades for an already finalised bar are counted and dropped.
+ *
+ * Параметры:
+ *   FP_BUCKET_BPS    — шаг уровня в bps от цены (default 5)
+ *   FP_MAX_LEVELS    — максимум уровней в баре (default 96)
+ *   FP_KEEP_BARS     — закрытых баров на символ (default 6)
+ *   FP_IMB_RATIO     — порог диагонального imbalance (default 3.0)
+ *   FP_EDGE_LEVELS   — уровней у экстремума для absorption (default 2)
+ *   FP_ABSORB_SHARE  — доля объёма бара у экстремума (default 0.20)
+ */
+public final class TickFootprint {
+
+    static final double BUCKET_BPS    = Math.max(0.1, envDouble("FP_BUCKET_BPS", 5.0));
+    static final int    MAX_LEVELS    = (int) Math.max(16, Math.min(1024, envLong("FP_MAX_LEVELS", 96)));
+    static final int    KEEP_BARS     = (int) Math.max(2, Math.min(64, envLong("FP_KEEP_BARS", 6)));
+    static final double IMB_RATIO     = Math.max(1.0, envDouble("FP_IMB_RATIO", 3.0));
+    static final int    EDGE_LEVELS   = (int) Math.max(1, envLong("FP_EDGE_LEVELS", 2));
+    static final double ABSORB_SHARE  = envDouble("FP_ABSORB_SHARE", 0.20);
+
+    /** Fixed per-builder overhead (object headers, fields, ring array), bytes. */
+    private static final long BUILDER_OVERHEAD = 160L + 8L * KEEP_BARS;
+
+    private final long barMs;
+
+    // ─── Forming bar ──────────────────────────────────────────────────
+    private final float[] buy     = new float[MAX_LEVELS];
+    private final float[] sell    = new float[MAX_LEVELS];
+    private final float[] scratchB = new float[MAX_LEVELS];
+    private final float[] scratchS = new float[MAX_LEVELS];
+    private long   openTime = -1;
+    private double tick;
+    private long   base;              // absolute bucket index of slot 0
+    private long   loB, hiB;          // absolute bucket range in use (inclusive)
+    private double open, high, low, close;
+    private long   trades;
+    private boolean partial = true;   // first bar after creation starts mid-bar
+    private long   lastClosedOpen = -1;
+    private int    coarsened;
+
+    // ─── Closed bars (ring, newest at head−1) ─────────────────────────
+    private final Bar[] ring = new Bar[KEEP_BARS];
+    private int  ringHead = 0;
+    private long closedBars = 0, coarsenTotal = 0, lateTrades = 0;
+
+    public TickFootprint(long barMs) {
+        this.barMs = barMs;
+    }
+
+    // ─── Feed ─────────────────────────────────────────────────────────
+
+    /** One aggTrade. {@code buyerMaker=true} → the aggressor sold. */
+    public synchronized void onTrade(long ts, double price, double qty, boolean buyerMaker) {
+        if (!(price > 0) || !(qty > 0)) return;
+        long barOpen = ts - Math.floorMod(ts, barMs);
+        if (barOpen <= lastClosedOpen) { lateTrades++; return; }   // bar already finalised
+        if (trades > 0 && barOpen > openTime) closeForming();
+        else if (trades > 0 && barOpen < openTime) barOpen = openTime;
+        if (trades == 0) {
+            partial = lastClosedOpen < 0 || barOpen != lastClosedOpen + barMs;
+            startBar(barOpen, price);
+        }
+
+        long b = bucketOf(price);
+        while (b < base || b >= base + MAX_LEVELS) {
+            long nlo = Math.min(loB, b), nhi = Math.max(hiB, b);
+            if (nhi - nlo + 1 <= MAX_LEVELS) {
+                rebase(nlo - (MAX_LEVELS - (nhi - nlo + 1)) / 2);
+            } else {
+                coarsen();
+                b = bucketOf(price);
+            }
+        }
+        int i = (int) (b - base);
+        if (buyerMaker) sell[i] += (float) qty; else buy[i] += (float) qty;
+        if (b < loB) loB = b;
+        if (b > hiB) hiB = b;
+        if (price > high) high = price;
+        if (price < low)  low  = price;
+        close = price;
+        trades++;
+    }
+
+    /**
+     * Closed bar opened at {@code barOpenTime}, or null if it is not (or no longer)
+     * held. Finalises the forming bar first when {@code nowMs} is past its end, so a
+     * scan right after the close does not wait for the next trade.
+     */
+    public synchronized Bar bar(long barOpenTime, long nowMs) {
+        if (trades > 0 && nowMs >= openTime + barMs) closeForming();
+        for (int k = 1; k <= KEEP_BARS; k++) {
+            Bar bar = ring[Math.floorMod(ringHead - k, KEEP_BARS)];
+            if (bar == null) break;
+            if (bar.openTime == barOpenTime) return bar;
+            if (bar.openTime < barOpenTime) break;
+        }
+        return null;
+    }
+
+    public long barMs() { return barMs; }
+
+    /** Retained memory of this builder, bytes (histograms + closed bars). */
+    public synchronized long bytes() {
+        long total = BUILDER_OVERHEAD + 4L * 4L * (MAX_LEVELS + 4);
+        for (Bar b : ring) if (b != null) total += b.bytes();
+        return total;
+    }
+
+    public synchronized long closedBars()   { return closedBars; }
+    public synchronized long coarsenings()  { return coarsenTotal; }
+    public synchronized long lateTrades()   { return lateTrades; }
+
+    // ─── Internals ────────────────────────────────────────────────────
+
+    private long bucketOf(double price) {
+        return (long) Math.floor(price / tick);
+    }
+
+    private void startBar(long barOpen, double price) {
+        openTime = barOpen;
+        tick = niceStep(price * BUCKET_BPS / 10_000.0);
+        long b = bucketOf(price);
+        base = b - MAX_LEVELS / 2;
+        loB = hiB = b;
+        open = high = low = close = price;
+        trades = 0;
+        coarsened = 0;
+    }
+
+    /** Moves levels so that slot 0 holds absolute bucket {@code newBase}. */
+    private void rebase(long newBase) {
+        int from  = (int) (loB - base);
+        int to    = (int) (loB - newBase);
+        int count = (int) (hiB - loB + 1);
+        System.arraycopy(buy,  from, scratchB, 0, count);
+        System.arraycopy(sell, from, scratchS, 0, count);
+        java.util.Arrays.fill(buy, 0f);
+        java.util.Arrays.fill(sell, 0f);
+        System.arraycopy(scratchB, 0, buy,  to, count);
+        System.arraycopy(scratchS, 0, sell, to, count);
+        base = newBase;
+    }
+
+    /** Doubles the bucket: level x merges into floor(x/2). */
+    private void coarsen() {
+        java.util.Arrays.fill(scratchB, 0f);
+        java.util.Arrays.fill(scratchS, 0f);
+        long nLo = Math.floorDiv(loB, 2), nHi = Math.floorDiv(hiB, 2);
+        long nBase = nLo - (MAX_LEVELS - (nHi - nLo + 1)) / 2;
+        for (long x = loB; x <= hiB; x++) {
+            int src = (int) (x - base);
+            int dst = (int) (Math.floorDiv(x, 2) - nBase);
+            scratchB[dst] += buy[src];
+            scratchS[dst] += sell[src];
+        }
+        System.arraycopy(scratchB, 0, buy,  0, MAX_LEVELS);
+        System.arraycopy(scratchS, 0, sell, 0, MAX_LEVELS);
+        tick *= 2;
+        base = nBase; loB = nLo; hiB = nHi;
+        coarsened++;
+        coarsenTotal++;
+    }
+
+    private void closeForming() {
+        if (trades > 0) {
+            int from = (int) (loB - base), n = (int) (hiB - loB + 1);
+            float[] b = java.util.Arrays.copyOfRange(buy,  from, from + n);
+            float[] s = java.util.Arrays.copyOfRange(sell, from, from + n);
+            ring[ringHead] = new Bar(openTime, barMs, tick, loB, b, s,
+                    open, high, low, close, trades, partial, coarsened);
+            ringHead = (ringHead + 1) % KEEP_BARS;
+            lastClosedOpen = openTime;
+            closedBars++;
+        }
+        java.util.Arrays.fill(buy, 0f);
+        java.util.Arrays.fill(sell, 0f);
+        trades = 0;
+    }
+
+    /** Nearest 1/2/5 × 10^k step to {@code raw}. */
+    static double niceStep(double raw) {
+        if (!(raw > 0)) return 1e-8;
+        double mag = Math.pow(10, Math.floor(Math.log10(raw)));
+        double f = raw / mag;
+        double m = f < 1.5 ? 1 : f < 3.5 ? 2 : f < 7.5 ? 5 : 10;
+        return m * mag;
+    }
+
+    // ─── Closed bar ───────────────────────────────────────────────────
+
+    /** Immutable footprint of one closed bar. Level i covers [priceAt(i), priceAt(i) + tick). */
+    public static final class Bar {
+        public final long    openTime, barMs;
+        public final double  tick;
+        public final long    baseBucket;
+        private final float[] buy, sell;
+        public final double  open, high, low, close;
+        public final long    trades;
+        public final boolean partial;
+        public final int     coarsened;
+
+        public final double  buyVolume, sellVolume;
+        public final int     pocLevel;
+        public final int     stackedBuy, stackedSell;        // longest diagonal-imbalance runs
+        public final int     stackedBuyTop, stackedSellBottom; // level index of the run's far end
+        public final double  edgeDeltaHigh, edgeDeltaLow;    // delta in the EDGE_LEVELS at each extreme
+        public final boolean absorbHigh, absorbLow;
+
+        Bar(long openTime, long barMs, double tick, long baseBucket, float[] buy, float[] sell,
+            double open, double high, double low, double close, long trades,
+            boolean partial, int coarsened) {
+            this.openTime = openTime; this.barMs = barMs; this.tick = tick; this.baseBucket = baseBucket;
+            this.buy = buy; this.sell = sell;
+            this.open = open; this.high = high; this.low = low; this.close = close;
+            this.trades = trades; this.partial = partial; this.coarsened = coarsened;
+
+            int n = buy.length;
+            double bv = 0, sv = 0, pocVol = -1;
+            int poc = 0;
+            for (int i = 0; i < n; i++) {
+                bv += buy[i]; sv += sell[i];
+                double v = buy[i] + sell[i];
+                if (v > pocVol) { pocVol = v; poc = i; }
+            }
+            this.buyVolume = bv; this.sellVolume = sv; this.pocLevel = poc;
+
+            int runB = 0, bestB = 0, bestBTop = -1;
+            for (int i = 1; i < n; i++) {
+                if (buy[i] > 0 && buy[i] >= IMB_RATIO * sell[i - 1]) {
+                    if (++runB > bestB) { bestB = runB; bestBTop = i; }
+                } else runB = 0;
+            }
+            int runS = 0, bestS = 0, bestSBot = -1;
+            for (int i = n - 2; i >= 0; i--) {
+                if (sell[i] > 0 && sell[i] >= IMB_RATIO * buy[i + 1]) {
+                    if (++runS > bestS) { bestS = runS; bestSBot = i; }
+                } else runS = 0;
+            }
+            this.stackedBuy = bestB; this.stackedBuyTop = bestBTop;
+            this.stackedSell = bestS; this.stackedSellBottom = bestSBot;
+
+            double total = bv + sv;
+            boolean wide = n >= 2 * EDGE_LEVELS + 1 && total > 0;
+            double hiBuy = 0, hiSell = 0, loBuy = 0, loSell = 0;
+            int e = Math.min(EDGE_LEVELS, n);
+            for (int k = 0; k < e; k++) {
+                hiBuy += buy[n - 1 - k]; hiSell += sell[n - 1 - k];
+                loBuy += buy[k];         loSell += sell[k];
+            }
+            this.edgeDeltaHigh = hiBuy - hiSell;
+            this.edgeDeltaLow  = loBuy - loSell;
+            double hiEdgeFloor = (baseBucket + n - e) * tick;   // lowest price of the top edge
+            double loEdgeCeil  = (baseBucket + e) * tick;       // highest price of the bottom edge
+            this.absorbHigh = wide && hiBuy >= ABSORB_SHARE * total && edgeDeltaHigh > 0 && close < hiEdgeFloor;
+            this.absorbLow  = wide && loSell >= ABSORB_SHARE * total && edgeDeltaLow < 0 && close >= loEdgeCeil;
+        }
+
+        public int    levels()             { return buy.length; }
+        public double priceAt(int level)   { return (baseBucket + level) * tick; }
+        public double buyAt(int level)     { return buy[level]; }
+        public double sellAt(int level)    { return sell[level]; }
+        public double volume()             { return buyVolume + sellVolume; }
+        public double delta()              { return buyVolume - sellVolume; }
+        /** Aggressive buy share [0..1]; 0.5 for an empty bar. */
+        public double buyRatio()           { double v = volume(); return v > 0 ? buyVolume / v : 0.5; }
+        public double pocPrice()           { return priceAt(pocLevel) + tick / 2; }
+
+        /** Delta traded at the level containing {@code price}; 0 outside the bar. */
+        public double deltaAt(double price) {
+            long i = (long) Math.floor(price / tick) - baseBucket;
+            return i < 0 || i >= buy.length ? 0 : buy[(int) i] - sell[(int) i];
+        }
+
+        /** POC position inside the bar range: 0 = at the low, 1 = at the high. */
+        public double pocPosition() {
+            double r = high - low;
+            return r > 0 ? Math.max(0, Math.min(1, (pocPrice() - low) / r)) : 0.5;
+        }
+
+        long bytes() { return 128L + 2L * (16L + 4L * buy.length); }
+
+        @Override public String toString() {
+            return String.format("FP[d=%.0f,poc=%.6g,stk=%d/%d%s%s]", delta(), pocPrice(),
+                    stackedBuy, stackedSell, absorbHigh ? ",absH" : "", absorbLow ? ",absL" : "");
+        }
+    }
+
+    // ─── Env ──────────────────────────────────────────────────────────
+
+    private static long envLong(String k, long d) {
+        try { return Long.parseLong(System.getenv().getOrDefault(k, String.valueOf(d)).trim()); }
+        catch (Exception e) { return d; }
+    }
+
+    private static double envDouble(String k, double d) {
+        try { return Double.parseDouble(System.getenv().getOrDefault(k, String.valueOf(d)).trim()); }
+        catch (Exception e) { return d; }
+    }
+}
@@ -0,0 +1,557 @@
+package com.bot;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+/**
+ * TickJournal v1.0 — binary append-only journal of raw WS market events
+ * (aggTrade, bookTicker, forceOrder).
+ *
+ * ┌─────────────────────────────────────────────────────────────────────┐
+ * │  Hot path: offer() copies 8 primitives into a preallocated MPSC     │
+ * │  ring (CAS claim, no locks, no allocation) and returns. Full ring → │
+ * │  event dropped and counted, the WS thread never waits.              │
+ * │  Writer thread: drains the ring into a memory-mapped segment.       │
+ * └─────────────────────────────────────────────────────────────────────┘
+ *
+ * Segments: {@code <dir>/ticks-YYYYMMDD-<part>.bin} + {@code .sym}, rolled at
+ * UTC midnight; every process start opens a new part, so each segment is
+ * self-contained (its own symbol table). Segments older than KEEP_DAYS are
+ * deleted on roll; a day stops at MAX_MB_PER_DAY.
+ *
+ * Layout (little-endian):
+ *   header 64 B : magic "TJ01" | int version | long dayBaseMs | int recordBytes
+ *                 | long committedRecords (updated after every drain batch)
+ *   record 40 B : byte type | byte flags | short symbolId | int tsOffsetMs
+ *                 (event time − dayBaseMs) | double a | double b | double c | double d
+ *     AGG_TRADE   a=price b=qty c=tradeCount        flags bit0 = buyerMaker
+ *     BOOK_TICKER a=bidPx b=bidQty c=askPx d=askQty
+ *     LIQUIDATION a=avgPrice b=qty                  flags bit0 = SELL (long liquidated)
+ *     MARK_PRICE  a=markPx b=fundingRate c=indexPx d=nextFundingMs
+ *   .sym        : "id,SYMBOL" lines, appended when a symbol first appears in the segment.
+ *
+ * Reader iterates one day (all parts) in event-time order across symbols.
+ * Exchange timestamps from different streams arrive slightly out of order, so
+ * each segment is re-sorted through a REORDER_WINDOW-record heap.
+ *
+ * Параметры:
+ *   TICK_JOURNAL                — 1 = включить (default 0)
+ *   TICK_JOURNAL_DIR            — каталог (default ./data/ticks)
+ *   TICK_JOURNAL_KEEP_DAYS      — хранить дней (default 3)
+ *   TICK_JOURNAL_MAX_MB_PER_DAY — лимит на сутки (default 4096)
+ *
+ * Benchmark: {@code java -cp bot.jar com.bot.TickJournal bench [events/s] [seconds] [dir]}
+ */
+public final class TickJournal {
+
+    private static final Logger LOG = Logger.getLogger("TickJournal");
+
+    public static final byte AGG_TRADE   = 1;
+    public static final byte BOOK_TICKER = 2;
+    public static final byte LIQUIDATION = 3;
+    public static final byte MARK_PRICE  = 4;
+
+    static final int  MAGIC          = 0x31304A54; // "TJ01" little-endian
+    static final int  VERSION        = 1;
+    static final int  HEADER_BYTES   = 64;
+    static final int  RECORD_BYTES   = 40;
+    static final int  COMMITTED_OFF  = 20;
+    static final int  CHUNK_RECORDS  = 1 << 20;    // 40 MB per mapping
+    static final long CHUNK_BYTES    = (long) CHUNK_RECORDS * RECORD_BYTES;
+    static final int  REORDER_WINDOW = 8192;
+    private static final long DAY_MS = 86_400_000L;
+    private static final DateTimeFormatter DAY_FMT = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private static final int RING_BITS = 16, RING_CAP = 1 << RING_BITS, RING_MASK = RING_CAP - 1;
+
+    // ─── Ring (MPSC) ──────────────────────────────────────────────────
+
+    private final byte[]   rType  = new byte[RING_CAP];
+    private final byte[]   rFlags = new byte[RING_CAP];
+    private final int[]    rSym   = new int[RING_CAP];
+    private final long[]   rTs    = new long[RING_CAP];
+    private final double[] rA = new double[RING_CAP], rB = new double[RING_CAP];
+    private final double[] rC = new double[RING_CAP], rD = new double[RING_CAP];
+    private final AtomicLongArray published = new AtomicLongArray(RING_CAP);
+    private final AtomicLong claim = new AtomicLong(0);
+    private volatile long consumed = 0;
+
+    private final Map<String, Integer> symbolIds = new ConcurrentHashMap<>();
+    private volatile String[] symbolsById = new String[256];
+
+    private final AtomicLong offered = new AtomicLong(0);
+    private final AtomicLong dropped = new AtomicLong(0);
+    private final AtomicLong written = new AtomicLong(0);
+
+    // ─── Writer state (writer thread only) ────────────────────────────
+
+    private final Path dir;
+    private final int keepDays;
+    private final long maxRecordsPerDay;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    private FileChannel segChannel;
+    private MappedByteBuffer header, chunk;
+    private int chunkIndex = -1;
+    private long segRecords = 0, segDayBaseMs = -1, dayRecords = 0;
+    private LocalDate segDay;
+    private boolean[] declared = new boolean[256];
+    private java.io.Writer symOut;
+
+    public TickJournal(Path dir, int keepDays, long maxMbPerDay) {
+        this.dir = dir;
+        this.keepDays = Math.max(1, keepDays);
+        this.maxRecordsPerDay = Math.max(1L, maxMbPerDay * 1024L * 1024L / RECORD_BYTES);
+        for (int i = 0; i < RING_CAP; i++) published.set(i, -1L);
+        this.writer = new Thread(this::drainLoop, "tick-journal");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /** Journal configured from env, or null when TICK_JOURNAL is off. */
+    public static TickJournal fromEnv() {
+        if (!"1".equals(System.getenv().getOrDefault("TICK_JOURNAL", "0"))) return null;
+        Path dir = Paths.get(System.getenv().getOrDefault("TICK_JOURNAL_DIR", "./data/ticks").trim());
+        TickJournal j = new TickJournal(dir, (int) envLong("TICK_JOURNAL_KEEP_DAYS", 3),
+                envLong("TICK_JOURNAL_MAX_MB_PER_DAY", 4096));
+        LOG.info("[TJ] tick journal → " + dir.toAbsolutePath());
+        return j;
+    }
+
+    // ─── Hot path ─────────────────────────────────────────────────────
+
+    /** Enqueues one event. Never blocks; returns false if the ring was full (event dropped). */
+    public boolean offer(byte type, int flags, String symbol, long ts,
+                         double a, double b, double c, double d) {
+        offered.incrementAndGet();
+        int sym = symbolId(symbol);
+        long s;
+        do {
+            s = claim.get();
+            if (s - consumed >= RING_CAP) { dropped.incrementAndGet(); return false; }
+        } while (!claim.compareAndSet(s, s + 1));
+        int i = (int) (s & RING_MASK);
+        rType[i] = type; rFlags[i] = (byte) flags; rSym[i] = sym; rTs[i] = ts;
+        rA[i] = a; rB[i] = b; rC[i] = c; rD[i] = d;
+        published.set(i, s);   // volatile store publishes the slot
+        return true;
+    }
+
+    private int symbolId(String symbol) {
+        Integer id = symbolIds.get(symbol);
+        if (id != null) return id;
+        synchronized (symbolIds) {
+            id = symbolIds.get(symbol);
+            if (id != null) return id;
+            int next = symbolIds.size();
+            String[] arr = symbolsById;
+            if (next >= arr.length) arr = Arrays.copyOf(arr, arr.length * 2);
+            arr[next] = symbol;
+            symbolsById = arr;
+            symbolIds.put(symbol, next);
+            return next;
+        }
+    }
+
+    // ─── Writer ───────────────────────────────────────────────────────
+
+    private void drainLoop() {
+        long next = 0;
+        while (running || next < claim.get()) {
+            int batch = 0;
+            try {
+                while (batch < 4096) {
+                    int i = (int) (next & RING_MASK);
+                    if (published.get(i) != next) break;
+                    writeRecord(rType[i], rFlags[i], rSym[i], rTs[i], rA[i], rB[i], rC[i], rD[i]);
+                    next++;
+                    batch++;
+                    if ((batch & 255) == 0) consumed = next;
+                }
+                consumed = next;
+                if (batch > 0 && header != null) header.putLong(COMMITTED_OFF, segRecords);
+            } catch (Throwable t) {
+                LOG.warning("[TJ] write failed: " + t.getMessage());
+                closeSegment();
+                consumed = next = skipPublished(next);
+                LockSupport.parkNanos(1_000_000_000L);
+            }
+            if (batch == 0) LockSupport.parkNanos(1_000_000L);
+        }
+        closeSegment();
+    }
+
+    /** After a write error: discards everything published so far so producers don't stall. */
+    private long skipPublished(long next) {
+        while (published.get((int) (next & RING_MASK)) == next) { next++; dropped.incrementAndGet(); }
+        return next;
+    }
+
+    private void writeRecord(byte type, byte flags, int sym, long ts,
+                             double a, double b, double c, double d) throws IOException {
+        long now = System.currentTimeMillis();
+        if (segChannel == null || now - segDayBaseMs >= DAY_MS) openSegment(now);
+        if (dayRecords >= maxRecordsPerDay) { dropped.incrementAndGet(); return; }
+        if (sym >= declared.length) declared = Arrays.copyOf(declared, Math.max(sym + 1, declared.length * 2));
+        if (!declared[sym]) {
+            symOut.write(sym + "," + symbolsById[sym] + "\n");
+            symOut.flush();
+            declared[sym] = true;
+        }
+        int ci = (int) (segRecords / CHUNK_RECORDS);
+        if (ci != chunkIndex) {
+            chunk = segChannel.map(FileChannel.MapMode.READ_WRITE, HEADER_BYTES + ci * CHUNK_BYTES, CHUNK_BYTES);
+            chunk.order(ByteOrder.LITTLE_ENDIAN);
+            chunkIndex = ci;
+        }
+        int p = (int) ((segRecords % CHUNK_RECORDS) * RECORD_BYTES);
+        long off = ts - segDayBaseMs;
+        chunk.put(p, type);
+        chunk.put(p + 1, flags);
+        chunk.putShort(p + 2, (short) sym);
+        chunk.putInt(p + 4, (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, off)));
+        chunk.putDouble(p + 8, a);
+        chunk.putDouble(p + 16, b);
+        chunk.putDouble(p + 24, c);
+        chunk.putDouble(p + 32, d);
+        segRecords++;
+        dayRecords++;
+        written.incrementAndGet();
+    }
+
+    private void openSegment(long now) throws IOException {
+        closeSegment();
+        Files.createDirectories(dir);
+        LocalDate day = LocalDate.ofEpochDay(Math.floorDiv(now, DAY_MS));
+        if (!day.equals(segDay)) dayRecords = 0;
+        segDay = day;
+        segDayBaseMs = day.toEpochDay() * DAY_MS;
+        String stem = "ticks-" + day.format(DAY_FMT) + "-";
+        int part = 0;
+        while (Files.exists(dir.resolve(stem + part + ".bin"))) part++;
+        Path bin = dir.resolve(stem + part + ".bin");
+        segChannel = FileChannel.open(bin, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        header = segChannel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+        header.order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(0, MAGIC).putInt(4, VERSION).putLong(8, segDayBaseMs)
+                .putInt(16, RECORD_BYTES).putLong(COMMITTED_OFF, 0L);
+        symOut = Files.newBufferedWriter(dir.resolve(stem + part + ".sym"), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        segRecords = 0;
+        chunkIndex = -1;
+        chunk = null;
+        Arrays.fill(declared, false);
+        pruneOldSegments(day);
+        LOG.info("[TJ] segment " + bin.getFileName());
+    }
+
+    private void closeSegment() {
+        try {
+            if (header != null) { header.putLong(COMMITTED_OFF, segRecords); header.force(); }
+            if (chunk != null) chunk.force();
+        } catch (Throwable ignored) {}
+        try { if (symOut != null) symOut.close(); } catch (Throwable ignored) {}
+        try { if (segChannel != null) segChannel.close(); } catch (Throwable ignored) {}
+        header = null; chunk = null; segChannel = null; symOut = null;
+    }
+
+    private void pruneOldSegments(LocalDate today) {
+        LocalDate cutoff = today.minusDays(keepDays - 1L);
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, "ticks-*")) {
+            for (Path p : ds) {
+                LocalDate d = dayOf(p.getFileName().toString());
+                if (d != null && d.isBefore(cutoff)) Files.deleteIfExists(p);
+            }
+        } catch (Exception e) {
+            LOG.warning("[TJ] prune: " + e.getMessage());
+        }
+    }
+
+    private static LocalDate dayOf(String name) {
+        try { return LocalDate.parse(name.substring(6, 14), DAY_FMT); } catch (Exception e) { return null; }
+    }
+
+    /** Stops the writer after draining what is already queued. */
+    public void close() {
+        running = false;
+        try { writer.join(5_000L); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+    }
+
+    public String stats() {
+        return String.format("offered=%d written=%d dropped=%d lag=%d",
+                offered.get(), written.get(), dropped.get(), claim.get() - consumed);
+    }
+
+    // ─── Reader ───────────────────────────────────────────────────────
+
+    /** One decoded record; reused by {@link Reader#next(Event)}. Field meaning per type: see class doc. */
+    public static final class Event {
+        public byte   type;
+        public int    flags;
+        public String symbol;
+        public long   ts;
+        public double a, b, c, d;
+
+        public boolean buyerMaker() { return (flags & 1) != 0; }
+    }
+
+    /** Segment parts of {@code day} in {@code dir}, in part order. */
+    public static List<Path> segments(Path dir, LocalDate day) throws IOException {
+        List<Path> out = new ArrayList<>();
+        String stem = "ticks-" + day.format(DAY_FMT) + "-";
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, stem + "*.bin")) {
+            for (Path p : ds) out.add(p);
+        }
+        out.sort(Comparator.comparingInt(p -> {
+            String n = p.getFileName().toString();
+            return Integer.parseInt(n.substring(stem.length(), n.length() - 4));
+        }));
+        return out;
+    }
+
+    public static Reader open(Path dir, LocalDate day) throws IOException {
+        return new Reader(segments(dir, day));
+    }
+
+    /**
+     * Time-ordered iteration over one or more segments. Records are merged
+     * across segments by event time; within a segment out-of-order records
+     * are re-sorted through a REORDER_WINDOW heap.
+     */
+    public static final class Reader implements AutoCloseable {
+        private final List<Cursor> cursors = new ArrayList<>();
+
+        public Reader(List<Path> segments) throws IOException {
+            for (Path p : segments) {
+                Cursor c = new Cursor(p);
+                if (c.total > 0) { cursors.add(c); c.fill(); } else c.close();
+            }
+        }
+
+        /** Fills {@code e} with the next event; false at the end. */
+        public boolean next(Event e) {
+            Cursor best = null;
+            for (Cursor c : cursors) {
+                if (c.heapSize == 0) continue;
+                if (best == null || c.heapTs[0] < best.heapTs[0]) best = c;
+            }
+            if (best == null) return false;
+            best.pop(e);
+            return true;
+        }
+
+        @Override public void close() {
+            for (Cursor c : cursors) c.close();
+        }
+    }
+
+    private static final class Cursor {
+        final FileChannel ch;
+        final long total, baseMs;
+        final String[] symbols;
+        final MappedByteBuffer[] chunks;
+        long readIdx = 0;
+        final long[] heapTs = new long[REORDER_WINDOW], heapIdx = new long[REORDER_WINDOW];
+        int heapSize = 0;
+
+        Cursor(Path bin) throws IOException {
+            ch = FileChannel.open(bin, StandardOpenOption.READ);
+            MappedByteBuffer h = ch.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            h.order(ByteOrder.LITTLE_ENDIAN);
+            if (h.getInt(0) != MAGIC || h.getInt(16) != RECORD_BYTES)
+                throw new IOException("not a tick journal: " + bin);
+            baseMs = h.getLong(8);
+            total = h.getLong(COMMITTED_OFF);
+            chunks = new MappedByteBuffer[(int) ((total + CHUNK_RECORDS - 1) / CHUNK_RECORDS)];
+            String name = bin.getFileName().toString();
+            Path sym = bin.resolveSibling(name.substring(0, name.length() - 4) + ".sym");
+            List<String> names = new ArrayList<>();
+            if (Files.exists(sym)) {
+                for (String line : Files.readAllLines(sym, StandardCharsets.UTF_8)) {
+                    int comma = line.indexOf(',');
+                    if (comma <= 0) continue;
+                    int id = Integer.parseInt(line.substring(0, comma));
+                    while (names.size() <= id) names.add(null);
+                    names.set(id, line.substring(comma + 1));
+                }
+            }
+            symbols = names.toArray(new String[0]);
+        }
+
+        MappedByteBuffer chunkFor(long idx) {
+            int ci = (int) (idx / CHUNK_RECORDS);
+            MappedByteBuffer m = chunks[ci];
+            if (m == null) {
+                try {
+                    long len = Math.min(CHUNK_BYTES, (total - (long) ci * CHUNK_RECORDS) * RECORD_BYTES);
+                    m = ch.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + ci * CHUNK_BYTES, len);
+                } catch (IOException ex) {
+                    throw new java.io.UncheckedIOException(ex);
+                }
+                m.order(ByteOrder.LITTLE_ENDIAN);
+                chunks[ci] = m;
+            }
+            return m;
+        }
+
+        long tsAt(long idx) {
+            return baseMs + chunkFor(idx).getInt((int) ((idx % CHUNK_RECORDS) * RECORD_BYTES) + 4);
+        }
+
+        void fill() {
+            while (heapSize < REORDER_WINDOW && readIdx < total) {
+                push(tsAt(readIdx), readIdx);
+                readIdx++;
+            }
+        }
+
+        void pop(Event e) {
+            long idx = heapIdx[0];
+            MappedByteBuffer m = chunkFor(idx);
+            int p = (int) ((idx % CHUNK_RECORDS) * RECORD_BYTES);
+            e.type   = m.get(p);
+            e.flags  = m.get(p + 1) & 0xFF;
+            int sym  = m.getShort(p + 2) & 0xFFFF;
+            e.symbol = sym < symbols.length ? symbols[sym] : "#" + sym;
+            e.ts     = baseMs + m.getInt(p + 4);
+            e.a = m.getDouble(p + 8);
+            e.b = m.getDouble(p + 16);
+            e.c = m.getDouble(p + 24);
+            e.d = m.getDouble(p + 32);
+            // remove root
+            heapSize--;
+            if (heapSize > 0) {
+                heapTs[0] = heapTs[heapSize]; heapIdx[0] = heapIdx[heapSize];
+                siftDown(0);
+            }
+            if (readIdx < total) { push(tsAt(readIdx), readIdx); readIdx++; }
+        }
+
+        private boolean less(int i, int j) {
+            return heapTs[i] < heapTs[j] || (heapTs[i] == heapTs[j] && heapIdx[i] < heapIdx[j]);
+        }
+
+        private void push(long ts, long idx) {
+            int i = heapSize++;
+            heapTs[i] = ts; heapIdx[i] = idx;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!less(i, parent)) break;
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int l = 2 * i + 1, r = l + 1, m = i;
+                if (l < heapSize && less(l, m)) m = l;
+                if (r < heapSize && less(r, m)) m = r;
+                if (m == i) return;
+                swap(i, m);
+                i = m;
+            }
+        }
+
+        private void swap(int i, int j) {
+            long t = heapTs[i]; heapTs[i] = heapTs[j]; heapTs[j] = t;
+            long x = heapIdx[i]; heapIdx[i] = heapIdx[j]; heapIdx[j] = x;
+        }
+
+        void close() {
+            try { ch.close(); } catch (IOException ignored) {}
+        }
+    }
+
+    // ─── Benchmark ────────────────────────────────────────────────────
+
+    /**
+     * {@code bench [events/s=50000] [seconds=20] [dir=./data/ticks-bench]}: 4 producer
+     * threads offer a mixed aggTrade/bookTicker load at the target rate over 200
+     * symbols; reports offer() latency (sampled p50/p99/max), drops, writer lag,
+     * and then reads the journal back checking count and time order.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0 || !"bench".equals(args[0])) {
+            System.out.println("usage: TickJournal bench [events/s] [seconds] [dir]");
+            return;
+        }
+        int rate = args.length > 1 ? Integer.parseInt(args[1]) : 50_000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        Path dir = Paths.get(args.length > 3 ? args[3] : "./data/ticks-bench");
+        TickJournal j = new TickJournal(dir, 1, 1L << 20);
+        int producers = 4;
+        String[] syms = new String[200];
+        for (int i = 0; i < syms.length; i++) syms[i] = "SYM" + i + "USDT";
+        long[][] samples = new long[producers][];
+        Thread[] threads = new Thread[producers];
+        long startNs = System.nanoTime();
+        for (int t = 0; t < producers; t++) {
+            final int tid = t;
+            threads[t] = new Thread(() -> {
+                Random r = new Random(tid);
+                long perThread = (long) rate * seconds / producers;
+                long[] lat = new long[(int) Math.min(perThread, 1_000_000)];
+                int ls = 0;
+                long intervalNs = 1_000_000_000L * producers / rate;
+                long due = System.nanoTime();
+                for (long k = 0; k < perThread; k++) {
+                    due += intervalNs;
+                    long now;
+                    while ((now = System.nanoTime()) < due) {
+                        if (due - now > 200_000) LockSupport.parkNanos(due - now - 100_000);
+                    }
+                    String s = syms[r.nextInt(syms.length)];
+                    long ts = System.currentTimeMillis();
+                    long t0 = System.nanoTime();
+                    if ((k & 1) == 0) j.offer(AGG_TRADE, r.nextInt(2), s, ts, 100 + r.nextDouble(), r.nextDouble(), 1, 0);
+                    else j.offer(BOOK_TICKER, 0, s, ts, 100, 1, 100.01, 2);
+                    long dt = System.nanoTime() - t0;
+                    if (ls < lat.length) lat[ls++] = dt;
+                }
+                samples[tid] = Arrays.copyOf(lat, ls);
+            }, "bench-" + t);
+            threads[t].start();
+        }
+        for (Thread t : threads) t.join();
+        double elapsed = (System.nanoTime() - startNs) / 1e9;
+        long[] all = Arrays.stream(samples).flatMapToLong(Arrays::stream).sorted().toArray();
+        j.close();
+        System.out.printf("offered %.0f ev/s over %.1fs | offer() p50=%dns p99=%dns p99.9=%dns max=%dns | %s%n",
+                j.offered.get() / elapsed, elapsed,
+                all[all.length / 2], all[(int) (all.length * 0.99)], all[(int) (all.length * 0.999)],
+                all[all.length - 1], j.stats());
+
+        long t0 = System.nanoTime(), n = 0, outOfOrder = 0, prev = Long.MIN_VALUE;
+        Event e = new Event();
+        try (Reader rd = open(dir, LocalDate.now(ZoneOffset.UTC))) {
+            while (rd.next(e)) {
+                if (e.ts < prev) outOfOrder++;
+                prev = e.ts;
+                n++;
+            }
+        }
+        double rs = (System.nanoTime() - t0) / 1e9;
+        System.out.printf("read back %d events in %.2fs (%.0f ev/s), out-of-order=%d%n", n, rs, n / rs, outOfOrder);
+    }
+
+    private static long envLong(String k, long d) {
+        try { return Long.parseLong(System.getenv().getOrDefault(k, String.valueOf(d))); }
+        catch (Exception e) { return d; }
+    }
+}
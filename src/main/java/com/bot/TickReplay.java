@@ -0,0 +1,256 @@
+package com.bot;
+
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+/**
+ * TickReplay v1.0 — offline driver for the real SignalSender tick path.
+ *
+ * ┌─────────────────────────────────────────────────────────────────────┐
+ * │  Источник → те же обработчики, что у WebSocket:                     │
+ * │    aggTrade    → processAggTrade (дельты, VDA, CVD, tick features,  │
+ * │                  MicroCandleBuilder, HOT rescan, EARLY_TICK)        │
+ * │    bookTicker  → processBookTicker (OBI, OFV)                       │
+ * │    forceOrder  → processLiquidationEvent                            │
+ * │  SignalSender работает в offline-режиме: без сети, без планировщиков,│
+ * │  время берётся из симулированных часов = время события.             │
+ * └─────────────────────────────────────────────────────────────────────┘
+ *
+ * Sources:
+ *   - TickJournal directory + day (see TickJournal), or
+ *   - a text file of captured frames, one JSON per line: combined-stream
+ *     {"stream":"btcusdt@aggTrade","data":{…}} or raw forceOrder {"e":"forceOrder",…}.
+ *
+ * Speed: "max" (as fast as possible), "1" (real time) or any N for N× real time.
+ * EARLY_TICK candidates are drained every 2 s of simulated time (the live
+ * flush cadence); the coalesced evaluator runs every 50 ms of simulated time.
+ *
+ * Report: events by type, wall time, events/s, achieved speed-up, HOT triggers,
+ * EARLY_TICK candidates, and per-stage latency (p50/p99/max) for each handler.
+ *
+ * Запуск:
+ *   java -cp bot.jar com.bot.TickReplay <journalDir> <yyyy-MM-dd> [speed] [SYM1,SYM2…]
+ *   java -cp bot.jar com.bot.TickReplay <frames.jsonl> [speed] [SYM1,SYM2…]
+ */
+public final class TickReplay {
+
+    private static final Logger LOG = Logger.getLogger("TickReplay");
+
+    private static final long EARLY_FLUSH_SIM_MS = 2_000L;
+    private static final long EARLY_EVAL_SIM_MS  = 50L;
+
+    private final SignalSender sender;
+    private final double speed;               // ≤0 = as fast as possible
+    private final Set<String> symbols;        // empty = all
+
+    private volatile long simNowMs = 0;
+    private long firstSimMs = -1, wallStartNs, lastFlushSim, lastEvalSim;
+
+    private long aggTrades = 0, bookTickers = 0, liquidations = 0, skipped = 0;
+    private final List<DecisionEngineMerged.TradeIdea> signals = new ArrayList<>();
+    private final SignalSender.LatencyHistogram aggLat   = new SignalSender.LatencyHistogram();
+    private final SignalSender.LatencyHistogram bookLat  = new SignalSender.LatencyHistogram();
+    private final SignalSender.LatencyHistogram liqLat   = new SignalSender.LatencyHistogram();
+    private final SignalSender.LatencyHistogram evalLat  = new SignalSender.LatencyHistogram();
+
+    public TickReplay(double speed, Set<String> symbols) {
+        this.sender  = new SignalSender(null, new GlobalImpulseController(), new InstitutionalSignalCore(), true);
+        this.speed   = speed;
+        this.symbols = symbols;
+        this.sender.setClock(() -> simNowMs);
+    }
+
+    // ─── Sources ──────────────────────────────────────────────────────
+
+    /** Replays one journal day (all parts) in event-time order. */
+    public void replayJournal(Path dir, LocalDate day) throws Exception {
+        TickJournal.Event e = new TickJournal.Event();
+        try (TickJournal.Reader rd = TickJournal.open(dir, day)) {
+            while (rd.next(e)) {
+                if (!wanted(e.symbol)) { skipped++; continue; }
+                advanceClock(e.ts);
+                switch (e.type) {
+                    case TickJournal.AGG_TRADE -> {
+                        JSONObject j = new JSONObject()
+                                .put("s", e.symbol).put("T", e.ts)
+                                .put("p", Double.toString(e.a)).put("q", Double.toString(e.b))
+                                .put("m", e.buyerMaker())
+                                .put("f", 0L).put("l", Math.max(0L, (long) e.c - 1L));
+                        feedAggTrade(e.symbol, j);
+                    }
+                    case TickJournal.BOOK_TICKER -> {
+                        JSONObject j = new JSONObject()
+                                .put("s", e.symbol).put("T", e.ts)
+                                .put("b", Double.toString(e.a)).put("B", Double.toString(e.b))
+                                .put("a", Double.toString(e.c)).put("A", Double.toString(e.d));
+                        feedBookTicker(e.symbol, j);
+                    }
+                    case TickJournal.LIQUIDATION -> {
+                        JSONObject o = new JSONObject()
+                                .put("s", e.symbol).put("T", e.ts)
+                                .put("S", (e.flags & 1) != 0 ? "SELL" : "BUY")
+                                .put("ap", Double.toString(e.a)).put("q", Double.toString(e.b));
+                        feedLiquidation(new JSONObject().put("e", "forceOrder").put("E", e.ts).put("o", o));
+                    }
+                    default -> skipped++;
+                }
+            }
+        }
+        finish();
+    }
+
+    /** Replays a captured-frames file in file order. */
+    public void replayFrames(Path file) throws Exception {
+        try (BufferedReader r = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = r.readLine()) != null) {
+                if (line.isBlank()) continue;
+                JSONObject frame;
+                try { frame = new JSONObject(line); } catch (Exception ex) { skipped++; continue; }
+                String stream = frame.optString("stream", "");
+                JSONObject data = frame.optJSONObject("data");
+                if (data == null) data = frame;
+                if (stream.endsWith("@aggTrade") || "aggTrade".equals(data.optString("e"))) {
+                    String sym = data.optString("s");
+                    if (!wanted(sym)) { skipped++; continue; }
+                    advanceClock(data.optLong("T", data.optLong("E", simNowMs)));
+                    feedAggTrade(sym, data);
+                } else if (stream.endsWith("@bookTicker") || "bookTicker".equals(data.optString("e"))) {
+                    String sym = data.optString("s");
+                    if (!wanted(sym)) { skipped++; continue; }
+                    advanceClock(data.optLong("T", data.optLong("E", simNowMs)));
+                    feedBookTicker(sym, data);
+                } else if ("forceOrder".equals(data.optString("e"))) {
+                    JSONObject o = data.optJSONObject("o");
+                    if (o == null || !wanted(o.optString("s"))) { skipped++; continue; }
+                    advanceClock(o.optLong("T", data.optLong("E", simNowMs)));
+                    feedLiquidation(data);
+                } else {
+                    skipped++;
+                }
+            }
+        }
+        finish();
+    }
+
+    private boolean wanted(String sym) {
+        return sym != null && !sym.isEmpty() && (symbols.isEmpty() || symbols.contains(sym));
+    }
+
+    // ─── Clock + pacing ───────────────────────────────────────────────
+
+    private void advanceClock(long ts) {
+        if (firstSimMs < 0) {
+            firstSimMs = ts; lastFlushSim = ts; lastEvalSim = ts;
+            wallStartNs = System.nanoTime();
+        }
+        if (ts > simNowMs) simNowMs = ts;
+        if (speed > 0) {
+            long dueNs = wallStartNs + (long) ((simNowMs - firstSimMs) * 1e6 / speed);
+            long wait = dueNs - System.nanoTime();
+            if (wait > 0) LockSupport.parkNanos(wait);
+        }
+        if (simNowMs - lastEvalSim >= EARLY_EVAL_SIM_MS) {
+            lastEvalSim = simNowMs;
+            long t0 = System.nanoTime();
+            sender.replayEvaluateEarlyTicks();
+            evalLat.record(System.nanoTime() - t0);
+        }
+        if (simNowMs - lastFlushSim >= EARLY_FLUSH_SIM_MS) {
+            lastFlushSim = simNowMs;
+            collectSignals();
+        }
+    }
+
+    private void collectSignals() {
+        for (DecisionEngineMerged.TradeIdea idea : sender.drainEarlyTickCandidates()) {
+            signals.add(idea);
+            if (signals.size() <= 50) {
+                System.out.printf("[REPLAY] %s %s %s prob=%.1f entry=%.6f %s%n",
+                        java.time.Instant.ofEpochMilli(simNowMs), idea.symbol, idea.side,
+                        idea.probability, idea.price, idea.flags);
+            }
+        }
+    }
+
+    // ─── Handlers ─────────────────────────────────────────────────────
+
+    private void feedAggTrade(String sym, JSONObject j) {
+        long t0 = System.nanoTime();
+        try { sender.replayAggTrade(sym, j); } catch (Exception ex) { skipped++; }
+        aggLat.record(System.nanoTime() - t0);
+        aggTrades++;
+    }
+
+    private void feedBookTicker(String sym, JSONObject j) {
+        long t0 = System.nanoTime();
+        try { sender.replayBookTicker(sym, j); } catch (Exception ex) { skipped++; }
+        bookLat.record(System.nanoTime() - t0);
+        bookTickers++;
+    }
+
+    private void feedLiquidation(JSONObject event) {
+        long t0 = System.nanoTime();
+        try { sender.replayLiquidation(event); } catch (Exception ex) { skipped++; }
+        liqLat.record(System.nanoTime() - t0);
+        liquidations++;
+    }
+
+    private void finish() {
+        sender.replayEvaluateEarlyTicks();
+        collectSignals();
+    }
+
+    // ─── Report ───────────────────────────────────────────────────────
+
+    public String report() {
+        double wallSec = firstSimMs < 0 ? 0 : (System.nanoTime() - wallStartNs) / 1e9;
+        double simSec  = firstSimMs < 0 ? 0 : (simNowMs - firstSimMs) / 1e3;
+        long events = aggTrades + bookTickers + liquidations;
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("[REPLAY] events=%d (aggTrade=%d bookTicker=%d liq=%d skipped=%d)%n",
+                events, aggTrades, bookTickers, liquidations, skipped));
+        sb.append(String.format("[REPLAY] wall=%.2fs sim=%.1fs → %.0f ev/s, speed-up %.1f×%n",
+                wallSec, simSec, wallSec > 0 ? events / wallSec : 0, wallSec > 0 ? simSec / wallSec : 0));
+        sb.append(String.format("[REPLAY] HOT triggers=%d EARLY_TICK candidates=%d%n",
+                sender.hotRescanTriggers(), signals.size()));
+        sb.append("[REPLAY] latency aggTrade   ").append(aggLat.summary()).append('\n');
+        sb.append("[REPLAY] latency bookTicker ").append(bookLat.summary()).append('\n');
+        sb.append("[REPLAY] latency liq        ").append(liqLat.summary()).append('\n');
+        sb.append("[REPLAY] latency earlyEval  ").append(evalLat.summary());
+        return sb.toString();
+    }
+
+    public List<DecisionEngineMerged.TradeIdea> signals() { return signals; }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.out.println("usage: TickReplay <journalDir> <yyyy-MM-dd> [speed|max] [SYM1,SYM2…]");
+            System.out.println("       TickReplay <frames.jsonl> [speed|max] [SYM1,SYM2…]");
+            return;
+        }
+        Path src = Paths.get(args[0]);
+        boolean journal = Files.isDirectory(src);
+        int i = journal ? 2 : 1;
+        double speed = args.length > i && !"max".equalsIgnoreCase(args[i]) ? Double.parseDouble(args[i]) : 0;
+        Set<String> syms = new HashSet<>();
+        if (args.length > i + 1) for (String s : args[i + 1].split(",")) if (!s.isBlank()) syms.add(s.trim().toUpperCase());
+
+        TickReplay replay = new TickReplay(speed, syms);
+        LOG.info("[REPLAY] " + src + (journal ? " day=" + args[1] : "") + " speed="
+                + (speed > 0 ? speed + "×" : "max") + (syms.isEmpty() ? "" : " symbols=" + syms));
+        if (journal) replay.replayJournal(src, LocalDate.parse(args[1]));
+        else         replay.replayFrames(src);
+        System.out.println(replay.report());
+        System.exit(0);
+    }
+}
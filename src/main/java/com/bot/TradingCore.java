@@ -25,6 +25,8 @@ public final class TradingCore {
         public final double lowerWick;
         public final double range;
         public final boolean isBullish;
+        /** Filled into a hole by CandleIntegrity (REST range fetch), not received in sequence. */
+        public final boolean repaired;
 
         public Candle(long openTime, double open, double high, double low,
                       double close, double volume, double quoteVolume, long closeTime) {
@@ -34,6 +36,14 @@ public final class TradingCore {
         public Candle(long openTime, double open, double high, double low,
                       double close, double volume, double quoteVolume, long closeTime,
                       int numberOfTrades, double takerBuyBaseVol, double takerBuyQuoteVol) {
+            this(openTime, open, high, low, close, volume, quoteVolume, closeTime,
+                    numberOfTrades, takerBuyBaseVol, takerBuyQuoteVol, false);
+        }
+
+        private Candle(long openTime, double open, double high, double low,
+                       double close, double volume, double quoteVolume, long closeTime,
+                       int numberOfTrades, double takerBuyBaseVol, double takerBuyQuoteVol, boolean repaired) {
+            this.repaired             = repaired;
             this.openTime             = openTime;
             this.open                 = open;
             this.high                 = high;
@@ -63,6 +73,12 @@ public final class TradingCore {
         public double takerBuySellRatio() {
             return volume > 0 ? takerBuyBaseVolume / volume : 0.5;
         }
+
+        /** Same bar flagged as repaired. */
+        public Candle asRepaired() {
+            return repaired ? this : new Candle(openTime, open, high, low, close, volume, quoteVolume, closeTime,
+                    numberOfTrades, takerBuyBaseVolume, takerBuyQuoteVolume, true);
+        }
     }
 
     /* ════════════════════════════════════════════════════════════════